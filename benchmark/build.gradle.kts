@@ -0,0 +1,41 @@
+plugins {
+    id("com.android.library")
+    id("androidx.benchmark")
+}
+
+android {
+    setCompileSdkVersion(property("compileSdkVersion") as Int)
+    defaultConfig {
+        setMinSdkVersion(property("minSdkVersion") as Int)
+        setTargetSdkVersion(property("targetSdkVersion") as Int)
+        testInstrumentationRunner = "androidx.benchmark.junit4.AndroidBenchmarkRunner"
+    }
+    // Benchmarks must run against a build with no debugging and no coverage instrumentation,
+    // so test the release build type, signed with the debug key.
+    testBuildType = "release"
+    buildTypes["release"].isMinifyEnabled = false
+    buildTypes["release"].signingConfig = signingConfigs["debug"]
+}
+
+dependencies {
+    androidTestImplementation(project(":cameraview"))
+    androidTestImplementation("androidx.test:runner:1.3.0")
+    androidTestImplementation("androidx.test.ext:junit:1.1.1")
+    androidTestImplementation("androidx.benchmark:benchmark-junit4:1.0.0")
+}
+
+// Run benchmarks on the connected device and collect the JSON results
+// in build/benchmark_output, so that they can be archived and compared over time.
+val buildDir = project.buildDir.absolutePath
+tasks.register("runBenchmarks") { // changing name? change github workflow
+    dependsOn("connectedReleaseAndroidTest")
+    doLast {
+        copy {
+            from("$buildDir/outputs/connected_android_test_additional_output")
+            include("**/*benchmarkData.json")
+            eachFile { path = name }
+            includeEmptyDirs = false
+            into("$buildDir/benchmark_output") // changing? change github workflow
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.otaliastudios.cameraview;
+
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures {@link CameraLogger} calls whose level is filtered out,
+ * which is what per-frame log calls cost in production, for both the varargs
+ * methods and the primitive overloads, and buffered calls whose level is enabled.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class CameraLoggerBenchmark {
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final CameraLogger logger = CameraLogger.create("Benchmark");
+
+    @Before
+    public void setUp() {
+        CameraLogger.setLogLevel(CameraLogger.LEVEL_ERROR);
+    }
+
+    @After
+    public void tearDown() {
+        CameraLogger.setBuffered(false);
+        CameraLogger.setLogLevel(CameraLogger.LEVEL_ERROR);
+    }
+
+    @Test
+    public void log_disabled() {
+        BenchmarkState state = benchmarkRule.getState();
+        long time = 0;
+        while (state.keepRunning()) {
+            logger.v("getFrame:", "time:", time++, "processors:", 2);
+        }
+    }
+
+    @Test
+    public void log_disabled_primitives() {
+        BenchmarkState state = benchmarkRule.getState();
+        long time = 0;
+        while (state.keepRunning()) {
+            logger.vValues("getFrame: time:", time++, "processors:", 2);
+        }
+    }
+
+    @Test
+    public void log_buffered_primitives() {
+        CameraLogger.setLogLevel(CameraLogger.LEVEL_VERBOSE);
+        CameraLogger.setBuffered(true);
+        BenchmarkState state = benchmarkRule.getState();
+        long time = 0;
+        while (state.keepRunning()) {
+            logger.vValues("getFrame: time:", time++, "processors:", 2);
+            if (time % CameraLogger.BUFFER_CAPACITY == 0) {
+                state.pauseTiming();
+                CameraLogger.drain();
+                state.resumeTiming();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import android.graphics.ImageFormat;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.otaliastudios.cameraview.engine.offset.Angles;
+import com.otaliastudios.cameraview.size.Size;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures the per-frame cost of the frame pool: taking a frame for a camera buffer
+ * and releasing it, which happens for every preview frame.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class FrameManagerBenchmark {
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void getFrame_release() {
+        ByteBufferFrameManager manager = new ByteBufferFrameManager(2, null);
+        manager.setUp(ImageFormat.NV21, new Size(1920, 1080), new Angles());
+        BenchmarkState state = benchmarkRule.getState();
+        long time = 0;
+        while (state.keepRunning()) {
+            byte[] buffer = manager.getBuffer();
+            //noinspection ConstantConditions
+            Frame frame = manager.getFrame(buffer, time++);
+            //noinspection ConstantConditions
+            frame.release();
+        }
+        manager.release();
+    }
+
+    @Test
+    public void getFrame_release_directBuffers() {
+        final byte[][] cameraBuffer = new byte[1][];
+        DirectByteBufferFrameManager manager = new DirectByteBufferFrameManager(2,
+                new ByteBufferFrameManager.BufferCallback() {
+                    @Override
+                    public void onBufferAvailable(byte[] buffer) {
+                        cameraBuffer[0] = buffer;
+                    }
+                });
+        manager.setUp(ImageFormat.NV21, new Size(1920, 1080), new Angles());
+        BenchmarkState state = benchmarkRule.getState();
+        long time = 0;
+        while (state.keepRunning()) {
+            Frame frame = manager.getFrame(cameraBuffer[0], time++);
+            //noinspection ConstantConditions
+            frame.release();
+        }
+        manager.release();
+    }
+}
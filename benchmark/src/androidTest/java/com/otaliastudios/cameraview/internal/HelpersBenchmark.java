@@ -0,0 +1,85 @@
+package com.otaliastudios.cameraview.internal;
+
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.otaliastudios.cameraview.size.AspectRatio;
+import com.otaliastudios.cameraview.size.Size;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+/**
+ * Measures the static helpers in this package.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class HelpersBenchmark {
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void rotationHelper_rotate_1080p() {
+        Size size = new Size(1920, 1080);
+        byte[] input = new byte[size.getWidth() * size.getHeight() * 3 / 2];
+        new Random(0).nextBytes(input);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            RotationHelper.rotate(input, size, 90);
+        }
+    }
+
+    @Test
+    public void yuvRotator_rotate_1080p() {
+        Size size = new Size(1920, 1080);
+        byte[] input = new byte[size.getWidth() * size.getHeight() * 3 / 2];
+        new Random(0).nextBytes(input);
+        byte[] output = new byte[input.length];
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            YuvRotator.rotate(input, size, 90, output);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void rotationHelper_rotate_4K() {
+        Size size = new Size(3840, 2160);
+        byte[] input = new byte[size.getWidth() * size.getHeight() * 3 / 2];
+        new Random(0).nextBytes(input);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            RotationHelper.rotate(input, size, 90);
+        }
+    }
+
+    @Test
+    public void yuvRotator_rotate_4K() {
+        Size size = new Size(3840, 2160);
+        byte[] input = new byte[size.getWidth() * size.getHeight() * 3 / 2];
+        new Random(0).nextBytes(input);
+        byte[] output = new byte[input.length];
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            YuvRotator.rotate(input, size, 90, output);
+        }
+    }
+
+    @Test
+    public void cropHelper_computeCrop() {
+        Size size = new Size(1920, 1080);
+        AspectRatio ratio = AspectRatio.of(4, 3);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            CropHelper.computeCrop(size, ratio);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.otaliastudios.cameraview.internal;
+
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures {@link Pool}, which is used for every audio chunk and encoded packet,
+ * against the previous {@link LockedPool} implementation. Contended benchmarks
+ * run background threads that use the same pool while the measured loop runs.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class PoolBenchmark {
+
+    private final static int CONTENDING_THREADS = 3;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final Pool.Factory<Object> factory = new Pool.Factory<Object>() {
+        @Override
+        public Object create() {
+            return new Object();
+        }
+    };
+
+    private final Pool<Object> pool = new Pool<>(10, factory);
+    private final LockedPool<Object> lockedPool = new LockedPool<>(10, factory);
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean contending;
+
+    @After
+    public void tearDown() throws Exception {
+        contending = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        threads.clear();
+    }
+
+    private void contend(final Runnable runnable) {
+        contending = true;
+        for (int i = 0; i < CONTENDING_THREADS; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (contending) {
+                        runnable.run();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    private final Runnable poolRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Object item = pool.get();
+            if (item != null) pool.recycle(item);
+        }
+    };
+
+    private final Runnable lockedPoolRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Object item = lockedPool.get();
+            if (item != null) lockedPool.recycle(item);
+        }
+    };
+
+    @Test
+    public void get_recycle() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            poolRunnable.run();
+        }
+    }
+
+    @Test
+    public void get_recycle_locked() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            lockedPoolRunnable.run();
+        }
+    }
+
+    @Test
+    public void get_recycle_contended() {
+        contend(poolRunnable);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            poolRunnable.run();
+        }
+    }
+
+    @Test
+    public void get_recycle_contended_locked() {
+        contend(lockedPoolRunnable);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            lockedPoolRunnable.run();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.otaliastudios.cameraview.size;
+
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures {@link AspectRatio} creation and {@link SizeSelectors} chains,
+ * which run every time the engine computes its sizes.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class SizeBenchmark {
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void aspectRatio_of_cached() {
+        AspectRatio.of(1920, 1080);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            AspectRatio.of(1920, 1080);
+        }
+    }
+
+    @Test
+    public void aspectRatio_of_uncached() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            AspectRatio.sCache.clear();
+            state.resumeTiming();
+            AspectRatio.of(1920, 1080);
+        }
+    }
+
+    @Test
+    public void sizeSelectors_chain() {
+        List<Size> sizes = new ArrayList<>();
+        int[][] values = {{4032, 3024}, {3840, 2160}, {2560, 1440}, {1920, 1080},
+                {1600, 1200}, {1440, 1080}, {1280, 960}, {1280, 720}, {1024, 768},
+                {800, 600}, {720, 480}, {640, 480}, {352, 288}, {320, 240}, {176, 144}};
+        for (int[] value : values) {
+            sizes.add(new Size(value[0], value[1]));
+        }
+        SizeSelector selector = SizeSelectors.or(
+                SizeSelectors.and(
+                        SizeSelectors.aspectRatio(AspectRatio.of(16, 9), 0.1F),
+                        SizeSelectors.maxArea(1920 * 1080),
+                        SizeSelectors.biggest()),
+                SizeSelectors.and(
+                        SizeSelectors.maxWidth(1920),
+                        SizeSelectors.biggest()),
+                SizeSelectors.biggest());
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            selector.select(sizes);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.otaliastudios.cameraview.video.encoding;
+
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures {@link AudioTimestamp}, which runs for every audio chunk.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class AudioTimestampBenchmark {
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void increaseUs() {
+        // 44.1 kHz, 16 bit, mono
+        AudioTimestamp timestamp = new AudioTimestamp(88200);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            timestamp.increaseUs(2048);
+        }
+    }
+}
@@ -15,6 +15,7 @@ buildscript {
         classpath("com.android.tools.build:gradle:4.0.1")
         classpath("com.otaliastudios.tools:publisher:0.3.3")
         classpath("org.jetbrains.kotlin:kotlin-gradle-plugin:1.4.0")
+        classpath("androidx.benchmark:benchmark-gradle-plugin:1.0.0")
 
     }
 }
@@ -22,6 +22,9 @@ android {
     }
     buildTypes["debug"].isTestCoverageEnabled = true
     buildTypes["release"].isMinifyEnabled = false
+    // Test helpers used by both unit tests and android tests.
+    sourceSets["test"].java.srcDir("src/sharedTest/java")
+    sourceSets["androidTest"].java.srcDir("src/sharedTest/java")
 }
 
 dependencies {
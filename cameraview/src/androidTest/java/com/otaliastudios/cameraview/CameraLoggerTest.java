@@ -10,6 +10,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -20,16 +21,21 @@ public class CameraLoggerTest extends BaseTest {
 
     private String loggerTag = "myLogger";
     private CameraLogger logger;
+    private CameraLogger.Logger quietLogger;
 
     @Before
     public void setUp() {
         CameraLogger.setLogLevel(CameraLogger.LEVEL_VERBOSE);
         CameraLogger.unregisterLogger(CameraLogger.sAndroidLogger); // Avoid writing into Logs during these tests
+        quietLogger = mock(CameraLogger.Logger.class); // Makes sure that logging is enabled
+        CameraLogger.registerLogger(quietLogger);
         logger = CameraLogger.create(loggerTag);
     }
 
     @After
     public void tearDown() {
+        CameraLogger.setBuffered(false);
+        CameraLogger.unregisterLogger(quietLogger);
         CameraLogger.registerLogger(CameraLogger.sAndroidLogger);
         logger = null;
     }
@@ -126,4 +132,72 @@ public class CameraLoggerTest extends BaseTest {
         logger.e("Got", new RuntimeException(""), "while starting");
         assertNotNull(op.await(100));
     }
+
+    @Test
+    public void testPrimitives() {
+        logger.vValues("a:", 1);
+        assertEquals(CameraLogger.lastMessage, "a: 1");
+        logger.iValues("a:", 1, "b:", 2L);
+        assertEquals(CameraLogger.lastMessage, "a: 1 b: 2");
+        logger.iValues("a:", 1, "b:", 2, "c:", -3);
+        assertEquals(CameraLogger.lastMessage, "a: 1 b: 2 c: -3");
+        logger.vValues("name", "a:", 1);
+        assertEquals(CameraLogger.lastMessage, "name a: 1");
+        logger.vValues("name", "a:", 1, "b:", 2, "c:", 3);
+        assertEquals(CameraLogger.lastMessage, "name a: 1 b: 2 c: 3");
+        assertEquals(CameraLogger.lastTag, loggerTag);
+
+        CameraLogger.lastMessage = null;
+        CameraLogger.setLogLevel(CameraLogger.LEVEL_WARNING);
+        logger.iValues("a:", 1);
+        assertNull(CameraLogger.lastMessage);
+    }
+
+    @Test
+    public void testBuffered() {
+        CameraLogger.Logger mock = mock(CameraLogger.Logger.class);
+        CameraLogger.registerLogger(mock);
+        CameraLogger.setBuffered(true);
+        assertTrue(CameraLogger.isBuffered());
+        logger.vValues("a:", 1);
+        logger.iValues("b:", 2);
+        verify(mock, never()).log(anyInt(), anyString(), anyString(), any(Throwable.class));
+
+        assertEquals(2, CameraLogger.drain());
+        InOrder inOrder = inOrder(mock);
+        inOrder.verify(mock).log(CameraLogger.LEVEL_VERBOSE, loggerTag, "a: 1", null);
+        inOrder.verify(mock).log(CameraLogger.LEVEL_INFO, loggerTag, "b: 2", null);
+        assertEquals(0, CameraLogger.drain());
+
+        // Other entries do not wait for the buffer.
+        reset(mock);
+        logger.iValues("c:", 3);
+        logger.e("d");
+        verify(mock).log(CameraLogger.LEVEL_ERROR, loggerTag, "d", null);
+        verify(mock, never()).log(CameraLogger.LEVEL_INFO, loggerTag, "c: 3", null);
+        assertEquals(1, CameraLogger.drain());
+        verify(mock).log(CameraLogger.LEVEL_INFO, loggerTag, "c: 3", null);
+        CameraLogger.unregisterLogger(mock);
+    }
+
+    @Test
+    public void testBuffered_full() {
+        CameraLogger.setBuffered(true);
+        for (int i = 0; i < CameraLogger.BUFFER_CAPACITY + 10; i++) {
+            logger.vValues("i:", i);
+        }
+        assertEquals(10, CameraLogger.getDroppedCount());
+        assertEquals(CameraLogger.BUFFER_CAPACITY, CameraLogger.drain());
+        assertEquals(CameraLogger.lastMessage, "i: " + (CameraLogger.BUFFER_CAPACITY - 1));
+    }
+
+    @Test
+    public void testBuffered_disable() {
+        CameraLogger.setBuffered(true);
+        logger.vValues("a:", 1);
+        CameraLogger.lastMessage = null;
+        CameraLogger.setBuffered(false);
+        assertFalse(CameraLogger.isBuffered());
+        assertEquals(CameraLogger.lastMessage, "a: 1");
+    }
 }
@@ -32,6 +32,8 @@ import com.otaliastudios.cameraview.filter.Filter;
 import com.otaliastudios.cameraview.filter.Filters;
 import com.otaliastudios.cameraview.filters.DuotoneFilter;
 import com.otaliastudios.cameraview.frame.Frame;
+import com.otaliastudios.cameraview.frame.FrameManager;
+import com.otaliastudios.cameraview.frame.FrameProcessingPolicy;
 import com.otaliastudios.cameraview.frame.FrameProcessor;
 import com.otaliastudios.cameraview.gesture.Gesture;
 import com.otaliastudios.cameraview.gesture.GestureAction;
@@ -189,6 +191,10 @@ public class CameraViewTest extends BaseTest {
         assertEquals(cameraView.getPictureMetering(), CameraView.DEFAULT_PICTURE_METERING);
         assertEquals(cameraView.getPictureSnapshotMetering(), CameraView.DEFAULT_PICTURE_SNAPSHOT_METERING);
         assertEquals(cameraView.getFrameProcessingPoolSize(), CameraView.DEFAULT_FRAME_PROCESSING_POOL_SIZE);
+        assertEquals(cameraView.getFrameProcessingDirectBuffers(), CameraView.DEFAULT_FRAME_PROCESSING_DIRECT_BUFFERS);
+        assertEquals(cameraView.getFrameProcessingFreezeBudget(), 0);
+        assertEquals(cameraView.getFrameProcessingFreezeEvictOldest(), CameraView.DEFAULT_FRAME_PROCESSING_FREEZE_EVICT_OLDEST);
+        assertEquals(cameraView.getFrameProcessingParallel(), CameraView.DEFAULT_FRAME_PROCESSING_PARALLEL);
         assertEquals(cameraView.getGestureAction(Gesture.TAP), gestures.getTapAction());
         assertEquals(cameraView.getGestureAction(Gesture.LONG_TAP), gestures.getLongTapAction());
         assertEquals(cameraView.getGestureAction(Gesture.PINCH), gestures.getPinchAction());
@@ -889,6 +895,25 @@ public class CameraViewTest extends BaseTest {
         assertEquals(6, cameraView.getFrameProcessingPoolSize());
     }
 
+    @Test
+    public void testFrameProcessingDirectBuffers() {
+        cameraView.setFrameProcessingDirectBuffers(true);
+        assertTrue(cameraView.getFrameProcessingDirectBuffers());
+        cameraView.setFrameProcessingDirectBuffers(false);
+        assertFalse(cameraView.getFrameProcessingDirectBuffers());
+    }
+
+    @Test
+    public void testFrameProcessingFreezeBudget() {
+        cameraView.setFrameProcessingFreezeBudget(1000);
+        cameraView.setFrameProcessingFreezeEvictOldest(true);
+        assertEquals(1000, cameraView.getFrameProcessingFreezeBudget());
+        assertTrue(cameraView.getFrameProcessingFreezeEvictOldest());
+        FrameManager manager = mockController.getFrameManager();
+        assertEquals(1000, manager.getFreezeBudget());
+        assertTrue(manager.getFreezeEvictOldest());
+    }
+
     @Test
     public void testFrameProcessingExecutors() {
         cameraView.setFrameProcessingExecutors(5);
@@ -902,6 +927,44 @@ public class CameraViewTest extends BaseTest {
         cameraView.setFrameProcessingExecutors(0);
     }
 
+    @Test
+    public void testFrameProcessingParallel() {
+        cameraView.setFrameProcessingParallel(true);
+        assertTrue(cameraView.getFrameProcessingParallel());
+        cameraView.setFrameProcessingParallel(false);
+        assertFalse(cameraView.getFrameProcessingParallel());
+    }
+
+    @Test
+    public void testFrameProcessorTargetFps() {
+        FrameProcessor processor = mock(FrameProcessor.class);
+        assertEquals(0F, cameraView.getFrameProcessorTargetFps(processor), 0F);
+        cameraView.addFrameProcessor(processor);
+        cameraView.setFrameProcessorTargetFps(processor, 10F);
+        assertEquals(10F, cameraView.getFrameProcessorTargetFps(processor), 0F);
+        cameraView.setFrameProcessorTargetFps(processor, 0F);
+        assertEquals(0F, cameraView.getFrameProcessorTargetFps(processor), 0F);
+        cameraView.setFrameProcessorTargetFps(processor, 10F);
+        cameraView.removeFrameProcessor(processor);
+        assertEquals(0F, cameraView.getFrameProcessorTargetFps(processor), 0F);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFrameProcessorTargetFps_notAdded() {
+        cameraView.setFrameProcessorTargetFps(mock(FrameProcessor.class), 10F);
+    }
+
+    @Test
+    public void testFrameProcessingStats() {
+        FrameProcessor processor = mock(FrameProcessor.class);
+        assertNotNull(cameraView.getFrameProcessingStats());
+        assertNull(cameraView.getFrameProcessingStats().getProcessorStats(processor));
+        cameraView.addFrameProcessor(processor);
+        assertNotNull(cameraView.getFrameProcessingStats().getProcessorStats(processor));
+        cameraView.removeFrameProcessor(processor);
+        assertNull(cameraView.getFrameProcessingStats().getProcessorStats(processor));
+    }
+
     //endregion
 
     //region Lists of listeners and processors
@@ -962,6 +1025,22 @@ public class CameraViewTest extends BaseTest {
         }
     }
 
+    @Test
+    public void testFrameProcessorsList_policy() {
+        FrameProcessor processor = new FrameProcessor() {
+            public void process(@NonNull Frame frame) {}
+        };
+        cameraView.addFrameProcessor(processor, FrameProcessingPolicy.latestOnly());
+        assertEquals(cameraView.mFrameProcessors.size(), 1);
+
+        // Changing the policy should not add the processor again.
+        cameraView.addFrameProcessor(processor, FrameProcessingPolicy.boundedQueue(3));
+        assertEquals(cameraView.mFrameProcessors.size(), 1);
+
+        cameraView.removeFrameProcessor(processor);
+        assertTrue(cameraView.mFrameProcessors.isEmpty());
+    }
+
     //endregion
 
     //region Snapshots
@@ -0,0 +1,387 @@
+package com.otaliastudios.cameraview.engine;
+
+import android.graphics.ImageFormat;
+import android.graphics.PointF;
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.otaliastudios.cameraview.CameraOptions;
+import com.otaliastudios.cameraview.PictureResult;
+import com.otaliastudios.cameraview.VideoResult;
+import com.otaliastudios.cameraview.controls.Facing;
+import com.otaliastudios.cameraview.controls.Flash;
+import com.otaliastudios.cameraview.controls.Hdr;
+import com.otaliastudios.cameraview.controls.PictureFormat;
+import com.otaliastudios.cameraview.controls.WhiteBalance;
+import com.otaliastudios.cameraview.engine.offset.Reference;
+import com.otaliastudios.cameraview.engine.options.SyntheticOptions;
+import com.otaliastudios.cameraview.frame.ByteBufferFrameManager;
+import com.otaliastudios.cameraview.frame.DirectByteBufferFrameManager;
+import com.otaliastudios.cameraview.frame.Frame;
+import com.otaliastudios.cameraview.frame.FrameManager;
+import com.otaliastudios.cameraview.gesture.Gesture;
+import com.otaliastudios.cameraview.internal.RingBuffer;
+import com.otaliastudios.cameraview.metering.MeteringRegions;
+import com.otaliastudios.cameraview.size.AspectRatio;
+import com.otaliastudios.cameraview.size.Size;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link CameraEngine} that does not open any camera, but generates synthetic frames
+ * of the given size and format, at the given frame rate.
+ *
+ * Frames go through the real {@link FrameManager} (the same as {@link Camera1Engine}, including
+ * {@link #setFrameProcessingDirectBuffers(boolean)}), are dispatched to the real
+ * {@link CameraEngine.Callback}, and the engine lifecycle runs through the real
+ * orchestrator. This makes it possible to stress-test the whole frame path, for example
+ * pool exhaustion and executor saturation, on devices or emulators with no camera hardware.
+ *
+ * Frames are generated on a dedicated thread, which keeps the given rate regardless of
+ * how long processors take, like a real sensor. When all buffers are retained by processors,
+ * the frame is dropped and {@link CameraEngine.Callback#dispatchFrameDropped()} is called.
+ * Each frame is a flat image whose luma changes at every frame.
+ *
+ * Pictures and videos are not supported.
+ */
+public class SyntheticCameraEngine extends CameraBaseEngine
+        implements ByteBufferFrameManager.BufferCallback {
+
+    private final Size mSize;
+    private final int mFormat;
+    private final float mFps;
+    private RingBuffer<byte[]> mBuffers;
+    private Thread mGenerator;
+    private volatile boolean mGenerating;
+    private volatile long mGeneratedFrames;
+    private volatile long mDroppedFrames;
+
+    /**
+     * Creates a new engine.
+     *
+     * @param callback the engine callback
+     * @param size the frame size, in sensor reference
+     * @param format the frame format, for example {@link ImageFormat#NV21}
+     * @param fps the frame rate, or 0 to generate frames as fast as possible
+     */
+    public SyntheticCameraEngine(@NonNull Callback callback,
+                                 @NonNull Size size,
+                                 int format,
+                                 float fps) {
+        super(callback);
+        if (ImageFormat.getBitsPerPixel(format) <= 0) {
+            throw new IllegalArgumentException("Unsupported frame format: " + format);
+        }
+        if (fps < 0) {
+            throw new IllegalArgumentException("Frame rate should be >= 0, got " + fps);
+        }
+        mSize = size;
+        mFormat = format;
+        mFps = fps;
+        mFrameProcessingFormat = format;
+    }
+
+    /**
+     * Returns the number of frames generated since the engine was created,
+     * including dropped ones.
+     * @return the generated frames
+     */
+    public long getGeneratedFrames() {
+        return mGeneratedFrames;
+    }
+
+    /**
+     * Returns the number of frames that were dropped because all buffers were busy.
+     * @return the dropped frames
+     */
+    public long getDroppedFrames() {
+        return mDroppedFrames;
+    }
+
+    //region Start & Stop
+
+    @Override
+    protected boolean collectCameraInfo(@NonNull Facing facing) {
+        getAngles().setSensorOffset(facing, 0);
+        return true;
+    }
+
+    @NonNull
+    @EngineThread
+    @Override
+    protected Task<CameraOptions> onStartEngine() {
+        mCameraOptions = new SyntheticOptions(mSize, mFormat, mFps);
+        return Tasks.forResult(mCameraOptions);
+    }
+
+    @NonNull
+    @EngineThread
+    @Override
+    protected Task<Void> onStartBind() {
+        mCaptureSize = computeCaptureSize();
+        mPreviewStreamSize = computePreviewStreamSize();
+        return Tasks.forResult(null);
+    }
+
+    @NonNull
+    @EngineThread
+    @Override
+    protected Task<Void> onStartPreview() {
+        getCallback().onCameraPreviewStreamSizeChanged();
+        Size previewSize = getPreviewStreamSize(Reference.VIEW);
+        if (previewSize == null) {
+            throw new IllegalStateException("previewStreamSize should not be null at this point.");
+        }
+        mPreview.setStreamSize(previewSize.getWidth(), previewSize.getHeight());
+        mPreview.setDrawRotation(0);
+
+        mBuffers = new RingBuffer<>(getFrameProcessingPoolSize() + 2);
+        mGenerating = true;
+        getFrameManager().setUp(mFormat, mPreviewStreamSize, getAngles());
+        final FrameManager manager = getFrameManager();
+        mGenerator = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                generate(manager);
+            }
+        }, "SyntheticCameraEngine");
+        mGenerator.start();
+        return Tasks.forResult(null);
+    }
+
+    @NonNull
+    @EngineThread
+    @Override
+    protected Task<Void> onStopPreview() {
+        mGenerating = false;
+        if (mGenerator != null) {
+            mGenerator.interrupt();
+            try {
+                mGenerator.join();
+            } catch (InterruptedException e) {
+                LOG.w("onStopPreview:", "interrupted while waiting for the generator.");
+                Thread.currentThread().interrupt();
+            }
+            mGenerator = null;
+        }
+        getFrameManager().release();
+        mBuffers = null;
+        return Tasks.forResult(null);
+    }
+
+    @NonNull
+    @EngineThread
+    @Override
+    protected Task<Void> onStopBind() {
+        mPreviewStreamSize = null;
+        mCaptureSize = null;
+        return Tasks.forResult(null);
+    }
+
+    @NonNull
+    @EngineThread
+    @Override
+    protected Task<Void> onStopEngine() {
+        mCameraOptions = null;
+        return Tasks.forResult(null);
+    }
+
+    //endregion
+
+    //region Frame generation
+
+    /**
+     * Generates frames until {@link #onStopPreview()}, keeping the frame rate
+     * even if dispatching is slow.
+     */
+    private void generate(@NonNull FrameManager manager) {
+        long period = mFps > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / mFps) : 0;
+        long next = System.nanoTime();
+        int lumaBytes = mSize.getWidth() * mSize.getHeight();
+        while (mGenerating) {
+            if (period > 0) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+                // Like a sensor, don't catch up with frames we missed.
+                next = Math.max(next + period, System.nanoTime());
+            }
+            long time = System.currentTimeMillis();
+            mGeneratedFrames++;
+            byte[] data = mBuffers.poll();
+            if (data == null) {
+                mDroppedFrames++;
+                getCallback().dispatchFrameDropped();
+                continue;
+            }
+            if (mFormat == ImageFormat.NV21 && data.length > lumaBytes) {
+                Arrays.fill(data, 0, lumaBytes, (byte) mGeneratedFrames);
+                Arrays.fill(data, lumaBytes, data.length, (byte) 128);
+            } else {
+                Arrays.fill(data, (byte) mGeneratedFrames);
+            }
+            Frame frame;
+            if (manager instanceof DirectByteBufferFrameManager) {
+                frame = ((DirectByteBufferFrameManager) manager).getFrame(data, time);
+            } else {
+                frame = ((ByteBufferFrameManager) manager).getFrame(data, time);
+            }
+            if (frame != null) {
+                getCallback().dispatchFrame(frame);
+            } else {
+                mDroppedFrames++;
+                getCallback().dispatchFrameDropped();
+            }
+        }
+    }
+
+    @Override
+    public void onBufferAvailable(@NonNull byte[] buffer) {
+        RingBuffer<byte[]> buffers = mBuffers;
+        if (buffers != null && mGenerating) {
+            buffers.offer(buffer);
+        }
+    }
+
+    @NonNull
+    @Override
+    protected FrameManager instantiateFrameManager(int poolSize) {
+        if (getFrameProcessingDirectBuffers()) {
+            return new DirectByteBufferFrameManager(poolSize, this);
+        }
+        return new ByteBufferFrameManager(poolSize, this);
+    }
+
+    @Override
+    public void setHasFrameProcessors(boolean hasFrameProcessors) {
+        // Frames are always generated.
+        mHasFrameProcessors = hasFrameProcessors;
+    }
+
+    @Override
+    public void setFrameProcessingFormat(int format) {
+        // Ignore input: we only generate the format given in the constructor.
+        mFrameProcessingFormat = mFormat;
+    }
+
+    @NonNull
+    @Override
+    protected List<Size> getPreviewStreamAvailableSizes() {
+        return Collections.singletonList(mSize);
+    }
+
+    @NonNull
+    @Override
+    protected List<Size> getFrameProcessingAvailableSizes() {
+        return Collections.singletonList(mSize);
+    }
+
+    @Override
+    protected void onPreviewStreamSizeChanged() {
+        restartPreview();
+    }
+
+    //endregion
+
+    //region Pictures & Videos
+
+    @Override
+    protected void onTakePicture(@NonNull PictureResult.Stub stub, boolean doMetering) {
+        onPictureResult(null, new UnsupportedOperationException(
+                "Pictures are not supported by the synthetic engine."));
+    }
+
+    @Override
+    protected void onTakePictureSnapshot(@NonNull PictureResult.Stub stub,
+                                         @NonNull AspectRatio outputRatio,
+                                         boolean doMetering) {
+        onPictureResult(null, new UnsupportedOperationException(
+                "Pictures are not supported by the synthetic engine."));
+    }
+
+    @Override
+    protected void onTakeVideo(@NonNull VideoResult.Stub stub) {
+        onVideoResult(null, new UnsupportedOperationException(
+                "Videos are not supported by the synthetic engine."));
+    }
+
+    @Override
+    protected void onTakeVideoSnapshot(@NonNull VideoResult.Stub stub,
+                                       @NonNull AspectRatio outputRatio) {
+        onVideoResult(null, new UnsupportedOperationException(
+                "Videos are not supported by the synthetic engine."));
+    }
+
+    //endregion
+
+    //region Controls
+
+    @Override
+    public void setZoom(float zoom, @Nullable PointF[] points, boolean notify) {
+        mZoomValue = zoom;
+    }
+
+    @Override
+    public void setExposureCorrection(float EVvalue,
+                                      @NonNull float[] bounds,
+                                      @Nullable PointF[] points,
+                                      boolean notify) {
+        mExposureCorrectionValue = EVvalue;
+    }
+
+    @Override
+    public void setFlash(@NonNull Flash flash) {
+        mFlash = flash;
+    }
+
+    @Override
+    public void setWhiteBalance(@NonNull WhiteBalance whiteBalance) {
+        mWhiteBalance = whiteBalance;
+    }
+
+    @Override
+    public void setHdr(@NonNull Hdr hdr) {
+        mHdr = hdr;
+    }
+
+    @Override
+    public void setLocation(@Nullable Location location) {
+        mLocation = location;
+    }
+
+    @Override
+    public void setPictureFormat(@NonNull PictureFormat pictureFormat) {
+        mPictureFormat = pictureFormat;
+    }
+
+    @Override
+    public void setPlaySounds(boolean playSounds) {
+        mPlaySounds = playSounds;
+    }
+
+    @Override
+    public void setPreviewFrameRate(float previewFrameRate) {
+        mPreviewFrameRate = previewFrameRate;
+    }
+
+    @Override
+    public void startAutoFocus(@Nullable Gesture gesture,
+                               @NonNull MeteringRegions regions,
+                               @NonNull PointF legacyPoint) {
+        // No focus.
+    }
+
+    //endregion
+}
@@ -0,0 +1,121 @@
+package com.otaliastudios.cameraview.engine;
+
+
+import android.graphics.ImageFormat;
+import android.widget.FrameLayout;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+
+import com.google.android.gms.tasks.Tasks;
+import com.otaliastudios.cameraview.BaseTest;
+import com.otaliastudios.cameraview.controls.Facing;
+import com.otaliastudios.cameraview.frame.Frame;
+import com.otaliastudios.cameraview.preview.MockCameraPreview;
+import com.otaliastudios.cameraview.size.Size;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+public class SyntheticCameraEngineTest extends BaseTest {
+
+    private final static Size SIZE = new Size(64, 48);
+
+    private CameraEngine.Callback callback;
+    private MockCameraPreview preview;
+    private SyntheticCameraEngine engine;
+    private final List<Frame> frames = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        callback = mock(CameraEngine.Callback.class);
+        when(callback.getContext()).thenReturn(getContext());
+        uiSync(new Runnable() {
+            @Override
+            public void run() {
+                preview = new MockCameraPreview(getContext(), new FrameLayout(getContext()));
+                preview.setMockSurfaceAvailable(SIZE.getWidth(), SIZE.getHeight());
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (Frame frame : frames) {
+            frame.release();
+        }
+        frames.clear();
+        if (engine != null) {
+            Tasks.await(engine.stop(false));
+            engine.destroy(false);
+        }
+        engine = null;
+        preview = null;
+        callback = null;
+    }
+
+    private void start(float fps, int poolSize, final boolean release) throws Exception {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                Frame frame = invocation.getArgument(0);
+                assertEquals(SIZE, frame.getSize());
+                assertEquals(ImageFormat.NV21, frame.getFormat());
+                if (release) {
+                    frame.release();
+                } else {
+                    frames.add(frame);
+                }
+                return null;
+            }
+        }).when(callback).dispatchFrame(any(Frame.class));
+        engine = new SyntheticCameraEngine(callback, SIZE, ImageFormat.NV21, fps);
+        engine.setFacing(Facing.BACK);
+        engine.setFrameProcessingPoolSize(poolSize);
+        engine.setPreview(preview);
+        Tasks.await(engine.start());
+    }
+
+    @Test
+    public void testFrames() throws Exception {
+        start(100, 2, true);
+        verify(callback, timeout(2000).atLeast(10)).dispatchFrame(any(Frame.class));
+        verify(callback, times(0)).dispatchFrameDropped();
+        assertEquals(0, engine.getDroppedFrames());
+    }
+
+    @Test
+    public void testFrames_poolExhausted() throws Exception {
+        start(0, 2, false);
+        verify(callback, timeout(2000).atLeastOnce()).dispatchFrameDropped();
+        // Only the pooled frames are dispatched, since they are never released.
+        verify(callback, times(2)).dispatchFrame(any(Frame.class));
+        long dropped = engine.getDroppedFrames();
+        assertTrue(dropped > 0);
+        assertTrue(engine.getGeneratedFrames() >= dropped + 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedFormat() {
+        new SyntheticCameraEngine(callback, SIZE, ImageFormat.UNKNOWN, 30);
+    }
+}
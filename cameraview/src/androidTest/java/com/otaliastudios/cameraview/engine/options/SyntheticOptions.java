@@ -0,0 +1,38 @@
+package com.otaliastudios.cameraview.engine.options;
+
+import androidx.annotation.NonNull;
+
+import com.otaliastudios.cameraview.CameraOptions;
+import com.otaliastudios.cameraview.controls.Facing;
+import com.otaliastudios.cameraview.controls.Flash;
+import com.otaliastudios.cameraview.controls.Hdr;
+import com.otaliastudios.cameraview.controls.PictureFormat;
+import com.otaliastudios.cameraview.controls.WhiteBalance;
+import com.otaliastudios.cameraview.size.AspectRatio;
+import com.otaliastudios.cameraview.size.Size;
+
+/**
+ * Options of the {@link com.otaliastudios.cameraview.engine.SyntheticCameraEngine}:
+ * a single stream size and frame format, and no controls.
+ */
+public class SyntheticOptions extends CameraOptions {
+
+    public SyntheticOptions(@NonNull Size size, int format, float fps) {
+        supportedFacing.add(Facing.BACK);
+        supportedFacing.add(Facing.FRONT);
+        supportedWhiteBalance.add(WhiteBalance.AUTO);
+        supportedFlash.add(Flash.OFF);
+        supportedHdr.add(Hdr.OFF);
+
+        supportedPictureSizes.add(size);
+        supportedPictureAspectRatio.add(AspectRatio.of(size));
+        supportedVideoSizes.add(size);
+        supportedVideoAspectRatio.add(AspectRatio.of(size));
+
+        previewFrameRateMinValue = fps;
+        previewFrameRateMaxValue = fps;
+
+        supportedPictureFormats.add(PictureFormat.JPEG);
+        supportedFrameProcessingFormats.add(format);
+    }
+}
@@ -8,6 +8,7 @@ import androidx.test.filters.SmallTest;
 
 import com.otaliastudios.cameraview.BaseTest;
 import com.otaliastudios.cameraview.engine.offset.Angles;
+import com.otaliastudios.cameraview.internal.MemoryBudget;
 import com.otaliastudios.cameraview.size.Size;
 
 import org.junit.After;
@@ -15,7 +16,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -52,6 +56,40 @@ public class ByteBufferFrameManagerTest extends BaseTest {
         verify(callback, times(5)).onBufferAvailable(any(byte[].class));
     }
 
+    @Test
+    public void testAllocate_memoryBudget() {
+        MemoryBudget budget = MemoryBudget.get();
+        long used = budget.getUsedBytes();
+        int bytes = FrameManager.computeFrameBytes(ImageFormat.NV21, new Size(50, 50));
+        budget.setLimit(used + 2 * bytes);
+        try {
+            ByteBufferFrameManager manager = new ByteBufferFrameManager(5, callback);
+            manager.setUp(ImageFormat.NV21, new Size(50, 50), angles);
+            verify(callback, times(2)).onBufferAvailable(any(byte[].class));
+            assertEquals(used + 2 * bytes, budget.getUsedBytes());
+            manager.release();
+            assertEquals(used, budget.getUsedBytes());
+        } finally {
+            budget.setLimit(0);
+        }
+    }
+
+    @Test
+    public void testFreeze_recyclesBuffer() {
+        ByteBufferFrameManager manager = new ByteBufferFrameManager(1, null);
+        manager.setUp(ImageFormat.NV21, new Size(10, 10), angles);
+        byte[] buffer = manager.getBuffer();
+        assertNotNull(buffer);
+        Frame frame = manager.getFrame(buffer, 0);
+        assertNotNull(frame);
+        Frame frozen = frame.freeze();
+        byte[] data = frozen.getData();
+        assertNotSame(buffer, data);
+        frozen.release();
+        frozen = frame.freeze();
+        assertSame(data, frozen.getData());
+    }
+
     @Test
     public void testOnFrameReleased_alreadyFull() {
         ByteBufferFrameManager manager = new ByteBufferFrameManager(1, callback);
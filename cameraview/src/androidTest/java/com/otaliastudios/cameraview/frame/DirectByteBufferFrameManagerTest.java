@@ -0,0 +1,129 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import android.graphics.ImageFormat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.otaliastudios.cameraview.BaseTest;
+import com.otaliastudios.cameraview.engine.offset.Angles;
+import com.otaliastudios.cameraview.size.Size;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class DirectByteBufferFrameManagerTest extends BaseTest {
+
+    private final Angles angles = new Angles();
+    private ByteBufferFrameManager.BufferCallback callback;
+
+    @Before
+    public void setUp() {
+        callback = mock(ByteBufferFrameManager.BufferCallback.class);
+    }
+
+    @After
+    public void tearDown() {
+        callback = null;
+    }
+
+    @Test
+    public void testAllocate() {
+        // The number of camera buffers does not depend on the pool size.
+        DirectByteBufferFrameManager manager = new DirectByteBufferFrameManager(5, callback);
+        manager.setUp(ImageFormat.NV21, new Size(50, 50), angles);
+        verify(callback, times(2)).onBufferAvailable(any(byte[].class));
+    }
+
+    @Test
+    public void testGetFrame() {
+        DirectByteBufferFrameManager manager = new DirectByteBufferFrameManager(1, callback);
+        manager.setUp(ImageFormat.NV21, new Size(50, 50), angles);
+        int length = manager.getFrameBytes();
+        byte[] picture = new byte[length];
+        picture[0] = 1;
+        picture[length - 1] = 2;
+        reset(callback);
+
+        Frame frame = manager.getFrame(picture, 0);
+        assertNotNull(frame);
+        // The camera buffer is given back right away.
+        verify(callback, times(1)).onBufferAvailable(picture);
+        assertSame(ByteBuffer.class, frame.getDataClass());
+        ByteBuffer data = frame.getData();
+        assertTrue(data.isDirect());
+        assertEquals(0, data.position());
+        assertEquals(length, data.limit());
+        assertEquals(1, data.get(0));
+        assertEquals(2, data.get(length - 1));
+    }
+
+    @Test
+    public void testGetFrame_noBuffers() {
+        DirectByteBufferFrameManager manager = new DirectByteBufferFrameManager(1, callback);
+        manager.setUp(ImageFormat.NV21, new Size(50, 50), angles);
+        int length = manager.getFrameBytes();
+        Frame frame = manager.getFrame(new byte[length], 0);
+        assertNotNull(frame);
+
+        // The only direct buffer is taken. The camera buffer should still go back.
+        reset(callback);
+        byte[] picture = new byte[length];
+        assertNull(manager.getFrame(picture, 0));
+        verify(callback, times(1)).onBufferAvailable(picture);
+
+        // After release, the direct buffer is reused.
+        ByteBuffer data = frame.getData();
+        frame.release();
+        Frame other = manager.getFrame(picture, 0);
+        assertNotNull(other);
+        assertSame(data, other.getData());
+    }
+
+    @Test
+    public void testGetFrame_differentLength() {
+        DirectByteBufferFrameManager manager = new DirectByteBufferFrameManager(1, callback);
+        manager.setUp(ImageFormat.NV21, new Size(50, 50), angles);
+        reset(callback);
+        // Buffers from an old setUp are not given back to the camera.
+        byte[] picture = new byte[manager.getFrameBytes() + 1];
+        assertNull(manager.getFrame(picture, 0));
+        verify(callback, never()).onBufferAvailable(picture);
+    }
+
+    @Test
+    public void testFreeze() {
+        DirectByteBufferFrameManager manager = new DirectByteBufferFrameManager(1, callback);
+        manager.setUp(ImageFormat.NV21, new Size(50, 50), angles);
+        byte[] picture = new byte[manager.getFrameBytes()];
+        picture[10] = 5;
+        Frame frame = manager.getFrame(picture, 0);
+        assertNotNull(frame);
+        Frame frozen = frame.freeze();
+        ByteBuffer data = frozen.getData();
+        assertNotSame(frame.getData(), data);
+        assertTrue(data.isDirect());
+        assertEquals(manager.getFrameBytes(), data.remaining());
+        assertEquals(5, data.get(10));
+    }
+}
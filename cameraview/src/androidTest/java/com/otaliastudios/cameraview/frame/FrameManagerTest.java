@@ -17,6 +17,7 @@ import org.junit.runner.RunWith;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -70,4 +71,109 @@ public class FrameManagerTest extends BaseTest {
         Frame second = manager.getFrame("bar", 0);
         assertNull(second);
     }
+
+    @Test
+    public void testFreeze_release() {
+        FrameManager<String> manager = new MockFrameManager<>(1, String.class);
+        manager.setUp(ImageFormat.NV21, new Size(10, 10), angles);
+        Frame frame = manager.getFrame("foo", 0);
+        assertNotNull(frame);
+        Frame frozen = frame.freeze();
+        assertEquals(150, manager.getFrozenBytes());
+        frozen.release();
+        assertEquals(0, manager.getFrozenBytes());
+        // Frozen frames do not belong to the pool.
+        assertNull(manager.getFrame("bar", 0));
+        frame.release();
+        assertNotNull(manager.getFrame("bar", 0));
+    }
+
+    @Test
+    public void testFreeze_timestamp() {
+        FrameManager<String> manager = new MockFrameManager<>(1, String.class);
+        manager.setUp(ImageFormat.NV21, new Size(10, 10), angles);
+        Frame frame = manager.getFrame("foo", 1000, 5000);
+        assertNotNull(frame);
+        Frame frozen = frame.freeze();
+        assertEquals(5000, frozen.getTimestamp());
+        assertEquals(frame.getLatency().getAcquiredNanos(),
+                frozen.getLatency().getAcquiredNanos());
+        frame.release();
+        frozen.release();
+    }
+
+    @Test
+    public void testFreeze_budgetExceeded() {
+        FrameManager<String> manager = new MockFrameManager<>(1, String.class);
+        manager.setUp(ImageFormat.NV21, new Size(10, 10), angles);
+        manager.setFreezeBudget(200, false);
+        Frame frame = manager.getFrame("foo", 0);
+        assertNotNull(frame);
+        Frame frozen = frame.freeze();
+        try {
+            frame.freeze();
+            fail("Expected freeze() to fail.");
+        } catch (IllegalStateException expected) {
+            // All good
+        }
+        assertEquals(150, manager.getFrozenBytes());
+        // After release, there is room again.
+        frozen.release();
+        frame.freeze();
+        assertEquals(150, manager.getFrozenBytes());
+    }
+
+    @Test
+    public void testFreeze_budgetEvictsOldest() {
+        FrameManager<String> manager = new MockFrameManager<>(1, String.class);
+        manager.setUp(ImageFormat.NV21, new Size(10, 10), angles);
+        manager.setFreezeBudget(300, true);
+        Frame frame = manager.getFrame("foo", 0);
+        assertNotNull(frame);
+        Frame frozen1 = frame.freeze();
+        Frame frozen2 = frame.freeze();
+        Frame frozen3 = frame.freeze();
+        assertEquals(300, manager.getFrozenBytes());
+        try {
+            frozen1.getData();
+            fail("Expected the frame to be evicted.");
+        } catch (RuntimeException expected) {
+            // All good
+        }
+        assertEquals("foo", frozen2.getData());
+        assertEquals("foo", frozen3.getData());
+        // Releasing an evicted frame does nothing.
+        frozen1.release();
+        assertEquals(300, manager.getFrozenBytes());
+    }
+
+    @Test
+    public void testFreeze_budgetKeepsRetained() {
+        FrameManager<String> manager = new MockFrameManager<>(1, String.class);
+        manager.setUp(ImageFormat.NV21, new Size(10, 10), angles);
+        manager.setFreezeBudget(300, true);
+        Frame frame = manager.getFrame("foo", 0);
+        assertNotNull(frame);
+        Frame frozen1 = frame.freeze().retain();
+        Frame frozen2 = frame.freeze();
+        Frame frozen3 = frame.freeze();
+        // The retained frame is skipped, and the next one is evicted.
+        assertEquals("foo", frozen1.getData());
+        assertEquals("foo", frozen3.getData());
+        try {
+            frozen2.getData();
+            fail("Expected the frame to be evicted.");
+        } catch (RuntimeException expected) {
+            // All good
+        }
+        // When all frames are retained, there is nothing to evict.
+        frozen3.retain();
+        try {
+            frame.freeze();
+            fail("Expected freeze() to fail.");
+        } catch (IllegalStateException expected) {
+            // All good
+        }
+        assertEquals(300, manager.getFrozenBytes());
+    }
 }
@@ -0,0 +1,105 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import android.graphics.ImageFormat;
+import android.media.Image;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.otaliastudios.cameraview.BaseTest;
+import com.otaliastudios.cameraview.engine.offset.Angles;
+import com.otaliastudios.cameraview.size.Size;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Records {@link Image} frames, which are converted to NV21.
+ * NV21 frames are tested in the unit tests.
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class FrameRecorderTest extends BaseTest {
+
+    private final static int WIDTH = 8;
+    private final static int HEIGHT = 4;
+    private final static int BYTES = WIDTH * HEIGHT * 3 / 2;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("frames", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    @Test
+    public void testRecordAndReplay_image() throws Exception {
+        // Padded luma rows and semi-planar chroma.
+        final byte[] expected = new byte[BYTES];
+        for (int i = 0; i < BYTES; i++) expected[i] = (byte) i;
+        int rowStride = WIDTH + 2;
+        ByteBuffer luma = ByteBuffer.allocateDirect(rowStride * HEIGHT);
+        ByteBuffer chroma = ByteBuffer.allocateDirect(rowStride * HEIGHT / 2);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                luma.put(y * rowStride + x, expected[y * WIDTH + x]);
+                if (y < HEIGHT / 2) {
+                    chroma.put(y * rowStride + x, expected[WIDTH * HEIGHT + y * WIDTH + x]);
+                }
+            }
+        }
+        ByteBuffer v = chroma.duplicate();
+        chroma.position(1);
+        ByteBuffer u = chroma.slice();
+        Image image = mock(Image.class);
+        Image.Plane[] planes = new Image.Plane[3];
+        ByteBuffer[] buffers = new ByteBuffer[]{ luma, u, v };
+        for (int i = 0; i < 3; i++) {
+            planes[i] = mock(Image.Plane.class);
+            when(planes[i].getBuffer()).thenReturn(buffers[i]);
+            when(planes[i].getRowStride()).thenReturn(rowStride);
+            when(planes[i].getPixelStride()).thenReturn(i == 0 ? 1 : 2);
+        }
+        when(image.getPlanes()).thenReturn(planes);
+
+        ImageFrameManager manager = new ImageFrameManager(1);
+        manager.setUp(ImageFormat.YUV_420_888, new Size(WIDTH, HEIGHT), new Angles());
+        FrameRecorder recorder = new FrameRecorder(file);
+        Frame frame = manager.getFrame(image, 5000);
+        assertNotNull(frame);
+        recorder.process(frame);
+        recorder.close();
+
+        FrameReplayer replayer = new FrameReplayer(file);
+        assertEquals(1, replayer.replay(false, new FrameProcessor() {
+            @Override
+            public void process(@NonNull Frame frame) {
+                byte[] data = frame.getData();
+                assertArrayEquals(expected, data);
+                assertEquals(ImageFormat.NV21, frame.getFormat());
+                assertEquals(5000, frame.getTime());
+            }
+        }));
+        replayer.close();
+    }
+}
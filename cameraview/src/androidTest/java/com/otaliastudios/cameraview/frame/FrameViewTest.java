@@ -0,0 +1,224 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.media.Image;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.otaliastudios.cameraview.BaseTest;
+import com.otaliastudios.cameraview.engine.offset.Reference;
+import com.otaliastudios.cameraview.size.Size;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class FrameViewTest extends BaseTest {
+
+    private final static int WIDTH = 8;
+    private final static int HEIGHT = 6;
+
+    private FrameManager<Object> manager;
+
+    @Before
+    public void setUp() {
+        manager = new MockFrameManager<>(1, Object.class);
+    }
+
+    /**
+     * Creates a NV21 array where luma is 10 * y + x, and chroma encodes the plane
+     * (100 for V, 200 for U) plus the chroma row.
+     */
+    @NonNull
+    private byte[] nv21() {
+        byte[] data = new byte[WIDTH * HEIGHT * 3 / 2];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                data[y * WIDTH + x] = (byte) (10 * y + x);
+            }
+        }
+        for (int y = 0; y < HEIGHT / 2; y++) {
+            for (int x = 0; x < WIDTH / 2; x++) {
+                data[WIDTH * HEIGHT + y * WIDTH + 2 * x] = (byte) (100 + 10 * y + x);
+                data[WIDTH * HEIGHT + y * WIDTH + 2 * x + 1] = (byte) (200 + 10 * y + x);
+            }
+        }
+        return data;
+    }
+
+    @NonNull
+    private Frame frame(@NonNull Object data, int format, int userRotation) {
+        Frame frame = new Frame(manager);
+        frame.setContent(data, 0, 0, userRotation, 0, new Size(WIDTH, HEIGHT), format);
+        return frame;
+    }
+
+    @Test
+    public void testToSensorRect() {
+        Rect rect = new Rect(0, 0, 2, 4);
+        assertEquals(new Rect(0, 0, 2, 4), FrameView.toSensorRect(rect, 0, WIDTH, HEIGHT));
+        assertEquals(new Rect(0, 4, 4, 6), FrameView.toSensorRect(rect, 90, WIDTH, HEIGHT));
+        assertEquals(new Rect(6, 2, 8, 6), FrameView.toSensorRect(rect, 180, WIDTH, HEIGHT));
+        assertEquals(new Rect(4, 0, 8, 2), FrameView.toSensorRect(rect, 270, WIDTH, HEIGHT));
+    }
+
+    @Test
+    public void testToSensorRect_alignsAndClamps() {
+        assertEquals(new Rect(0, 2, 4, 6),
+                FrameView.toSensorRect(new Rect(-3, 3, 3, 100), 0, WIDTH, HEIGHT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testToSensorRect_outside() {
+        FrameView.toSensorRect(new Rect(20, 20, 30, 30), 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void testView_nv21() {
+        byte[] data = nv21();
+        FrameView view = frame(data, ImageFormat.NV21, 0).view(new Rect(2, 2, 6, 6));
+        assertEquals(3, view.getPlaneCount());
+        assertEquals(4, view.getWidth());
+        assertEquals(4, view.getHeight());
+        assertEquals(22, view.getLuma(0, 0));
+        assertEquals(35, view.getLuma(3, 1));
+        // Chroma planes start at chroma pixel (1, 1).
+        ByteBuffer u = view.getPlane(1);
+        ByteBuffer v = view.getPlane(2);
+        assertEquals(2, view.getPixelStride(1));
+        assertEquals(WIDTH, view.getRowStride(1));
+        assertEquals(211, u.get(0) & 0xFF);
+        assertEquals(111, v.get(0) & 0xFF);
+        assertEquals(112, v.get(view.getPixelStride(2)) & 0xFF);
+        assertEquals(121, v.get(view.getRowStride(2)) & 0xFF);
+        // Zero copy.
+        data[2 * WIDTH + 2] = 99;
+        assertEquals(99, view.getLuma(0, 0));
+    }
+
+    @Test
+    public void testView_nv21DirectBuffer() {
+        byte[] array = nv21();
+        ByteBuffer data = ByteBuffer.allocateDirect(array.length);
+        data.put(array);
+        data.flip();
+        FrameView view = frame(data, ImageFormat.NV21, 0).view(new Rect(2, 2, 6, 6));
+        assertEquals(3, view.getPlaneCount());
+        assertEquals(22, view.getLuma(0, 0));
+        assertEquals(35, view.getLuma(3, 1));
+        assertEquals(211, view.getPlane(1).get(0) & 0xFF);
+        assertEquals(111, view.getPlane(2).get(0) & 0xFF);
+        // Zero copy, and the frame buffer is not touched.
+        data.put(2 * WIDTH + 2, (byte) 99);
+        assertEquals(99, view.getLuma(0, 0));
+        assertEquals(0, data.position());
+    }
+
+    @Test
+    public void testViewLuma_rotated() {
+        Frame frame = frame(nv21(), ImageFormat.NV21, 90);
+        // Top left corner in output coordinates is bottom left in sensor coordinates.
+        FrameView view = frame.viewLuma(new Rect(0, 0, 2, 2), Reference.OUTPUT);
+        assertEquals(1, view.getPlaneCount());
+        assertEquals(90, view.getRotation());
+        assertEquals(new Rect(0, 4, 2, 6), view.getRect());
+        assertEquals(40, view.getLuma(0, 0));
+    }
+
+    @Test
+    public void testView_image() {
+        Image image = mock(Image.class);
+        Image.Plane[] planes = new Image.Plane[3];
+        int[] rowStrides = new int[]{ 16, 8, 8 };
+        int[] pixelStrides = new int[]{ 1, 2, 2 };
+        for (int i = 0; i < 3; i++) {
+            byte[] array = new byte[rowStrides[i] * HEIGHT];
+            for (int j = 0; j < array.length; j++) array[j] = (byte) j;
+            planes[i] = mock(Image.Plane.class);
+            when(planes[i].getBuffer()).thenReturn(ByteBuffer.wrap(array));
+            when(planes[i].getRowStride()).thenReturn(rowStrides[i]);
+            when(planes[i].getPixelStride()).thenReturn(pixelStrides[i]);
+        }
+        when(image.getPlanes()).thenReturn(planes);
+        FrameView view = frame(image, ImageFormat.YUV_420_888, 0)
+                .view(new Rect(2, 4, 6, 6));
+        assertEquals(16, view.getRowStride(0));
+        assertEquals(4 * 16 + 2, view.getLuma(0, 0));
+        assertEquals(2 * 8 + 2, view.getPlane(1).get(0));
+        assertEquals(2, view.getPlaneWidth(2));
+        assertEquals(1, view.getPlaneHeight(2));
+    }
+
+    /**
+     * Reads all pixels of a view as Y, U, V triplets, the way a processor would.
+     */
+    @NonNull
+    private int[] readPixels(@NonNull FrameView view) {
+        int[] pixels = new int[view.getWidth() * view.getHeight()];
+        for (int y = 0; y < view.getHeight(); y++) {
+            for (int x = 0; x < view.getWidth(); x++) {
+                int luma = view.getLuma(x, y);
+                int u = view.getPlane(1).get((y / 2) * view.getRowStride(1)
+                        + (x / 2) * view.getPixelStride(1)) & 0xFF;
+                int v = view.getPlane(2).get((y / 2) * view.getRowStride(2)
+                        + (x / 2) * view.getPixelStride(2)) & 0xFF;
+                pixels[y * view.getWidth() + x] = (luma << 16) | (u << 8) | v;
+            }
+        }
+        return pixels;
+    }
+
+    @Test
+    public void testView_wholeFrame() {
+        byte[] nv21 = nv21();
+        // Same content, as an image with padded rows and semi-planar chroma.
+        Image image = mock(Image.class);
+        Image.Plane[] planes = new Image.Plane[3];
+        int rowStride = WIDTH + 4;
+        byte[] luma = new byte[rowStride * HEIGHT];
+        byte[] chroma = new byte[rowStride * HEIGHT / 2];
+        for (int y = 0; y < HEIGHT; y++) {
+            System.arraycopy(nv21, y * WIDTH, luma, y * rowStride, WIDTH);
+        }
+        for (int y = 0; y < HEIGHT / 2; y++) {
+            System.arraycopy(nv21, WIDTH * HEIGHT + y * WIDTH, chroma, y * rowStride, WIDTH);
+        }
+        ByteBuffer[] buffers = new ByteBuffer[]{
+                ByteBuffer.wrap(luma),
+                ByteBuffer.wrap(chroma, 1, chroma.length - 1).slice(),
+                ByteBuffer.wrap(chroma)
+        };
+        for (int i = 0; i < 3; i++) {
+            planes[i] = mock(Image.Plane.class);
+            when(planes[i].getBuffer()).thenReturn(buffers[i]);
+            when(planes[i].getRowStride()).thenReturn(rowStride);
+            when(planes[i].getPixelStride()).thenReturn(i == 0 ? 1 : 2);
+        }
+        when(image.getPlanes()).thenReturn(planes);
+
+        FrameView nv21View = frame(nv21, ImageFormat.NV21, 90).view();
+        FrameView imageView = frame(image, ImageFormat.YUV_420_888, 90).view();
+        assertEquals(new Rect(0, 0, WIDTH, HEIGHT), nv21View.getRect());
+        assertEquals(0, nv21View.getRotation());
+        assertEquals(3, imageView.getPlaneCount());
+        assertArrayEquals(readPixels(nv21View), readPixels(imageView));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testView_unsupportedFormat() {
+        frame(new byte[WIDTH * HEIGHT * 2], ImageFormat.YUY2, 0).view(new Rect(0, 0, 2, 2));
+    }
+}
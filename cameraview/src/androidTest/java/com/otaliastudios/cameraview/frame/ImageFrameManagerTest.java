@@ -0,0 +1,139 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import android.graphics.ImageFormat;
+import android.media.Image;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.otaliastudios.cameraview.BaseTest;
+import com.otaliastudios.cameraview.engine.offset.Angles;
+import com.otaliastudios.cameraview.size.Size;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class ImageFrameManagerTest extends BaseTest {
+
+    private final static int WIDTH = 4;
+    private final static int HEIGHT = 4;
+
+    private ImageFrameManager manager;
+
+    @Before
+    public void setUp() {
+        manager = new ImageFrameManager(1);
+        manager.setUp(ImageFormat.YUV_420_888, new Size(WIDTH, HEIGHT), new Angles());
+    }
+
+    /**
+     * Creates an image with padded rows, where luma is 10 * y + x,
+     * U is 100 + 10 * y + x and V is 200 + 10 * y + x.
+     */
+    @NonNull
+    private Image image(int chromaPixelStride) {
+        Image image = mock(Image.class);
+        Image.Plane[] planes = new Image.Plane[3];
+        int[] rowStrides = new int[]{ WIDTH + 3, WIDTH / 2 * chromaPixelStride + 1,
+                WIDTH / 2 * chromaPixelStride + 1 };
+        int[] pixelStrides = new int[]{ 1, chromaPixelStride, chromaPixelStride };
+        int[] bases = new int[]{ 0, 100, 200 };
+        for (int i = 0; i < 3; i++) {
+            int width = i == 0 ? WIDTH : WIDTH / 2;
+            int height = i == 0 ? HEIGHT : HEIGHT / 2;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(rowStrides[i] * height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    buffer.put(y * rowStrides[i] + x * pixelStrides[i],
+                            (byte) (bases[i] + 10 * y + x));
+                }
+            }
+            planes[i] = mock(Image.Plane.class);
+            when(planes[i].getBuffer()).thenReturn(buffer);
+            when(planes[i].getRowStride()).thenReturn(rowStrides[i]);
+            when(planes[i].getPixelStride()).thenReturn(pixelStrides[i]);
+        }
+        when(image.getPlanes()).thenReturn(planes);
+        return image;
+    }
+
+    private void assertNv21(@NonNull byte[] data) {
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(10 * y + x, data[y * WIDTH + x] & 0xFF);
+            }
+        }
+        for (int y = 0; y < HEIGHT / 2; y++) {
+            for (int x = 0; x < WIDTH / 2; x++) {
+                int index = WIDTH * HEIGHT + y * WIDTH + 2 * x;
+                assertEquals(200 + 10 * y + x, data[index] & 0xFF);
+                assertEquals(100 + 10 * y + x, data[index + 1] & 0xFF);
+            }
+        }
+    }
+
+    @Test
+    public void testFreeze() {
+        Image image = image(2);
+        Frame frame = manager.getFrame(image, 1000);
+        assertNotNull(frame);
+        Frame frozen = frame.freeze();
+        assertSame(byte[].class, frozen.getDataClass());
+        assertEquals(ImageFormat.NV21, frozen.getFormat());
+        assertEquals(1000, frozen.getTime());
+        assertEquals(WIDTH * HEIGHT * 3 / 2, manager.getFrozenBytes());
+        assertNv21((byte[]) frozen.getData());
+
+        // The frozen frame does not hold the image.
+        frame.release();
+        verify(image, times(1)).close();
+        assertNv21((byte[]) frozen.getData());
+    }
+
+    @Test
+    public void testFreeze_planar() {
+        Frame frame = manager.getFrame(image(1), 1000);
+        assertNotNull(frame);
+        assertNv21((byte[]) frame.freeze().getData());
+    }
+
+    @Test
+    public void testFreeze_recyclesBuffer() {
+        Image image = image(2);
+        Frame frame = manager.getFrame(image, 1000);
+        assertNotNull(frame);
+        Frame frozen = frame.freeze();
+        byte[] data = frozen.getData();
+        frozen.release();
+        verify(image, never()).close();
+        assertEquals(0, manager.getFrozenBytes());
+        assertSame(data, frame.freeze().getData());
+    }
+
+    @Test
+    public void testFreeze_view() {
+        Frame frame = manager.getFrame(image(2), 1000);
+        assertNotNull(frame);
+        Frame frozen = frame.freeze();
+        frame.release();
+        FrameView view = frozen.getLumaLevel(1);
+        // Average of 0, 1, 10, 11.
+        assertEquals(6, view.getLuma(0, 0));
+    }
+}
@@ -0,0 +1,114 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import android.graphics.ImageFormat;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.otaliastudios.cameraview.BaseTest;
+import com.otaliastudios.cameraview.engine.offset.Angles;
+import com.otaliastudios.cameraview.size.Size;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class LumaPyramidTest extends BaseTest {
+
+    private final static int WIDTH = 8;
+    private final static int HEIGHT = 4;
+
+    private ByteBufferFrameManager manager;
+
+    @Before
+    public void setUp() {
+        manager = new ByteBufferFrameManager(1, null);
+        manager.setUp(ImageFormat.NV21, new Size(WIDTH, HEIGHT), new Angles());
+    }
+
+    @After
+    public void tearDown() {
+        manager.release();
+        manager = null;
+    }
+
+    @NonNull
+    private Frame newFrame() {
+        byte[] data = manager.getBuffer();
+        assertNotNull(data);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                data[y * WIDTH + x] = (byte) (x * 10 + y * 100);
+            }
+        }
+        Frame frame = manager.getFrame(data, 0);
+        assertNotNull(frame);
+        return frame;
+    }
+
+    @Test
+    public void testLevels() {
+        Frame frame = newFrame();
+        FrameView level0 = frame.getLumaLevel(0);
+        assertEquals(WIDTH, level0.getWidth());
+        assertEquals(HEIGHT, level0.getHeight());
+        assertEquals(210, level0.getLuma(1, 2));
+
+        FrameView level1 = frame.getLumaLevel(1);
+        assertEquals(WIDTH / 2, level1.getWidth());
+        assertEquals(HEIGHT / 2, level1.getHeight());
+        // Average of (0, 10, 100, 110)
+        assertEquals(55, level1.getLuma(0, 0));
+        // Average of (20, 30, 120, 130)
+        assertEquals(75, level1.getLuma(1, 0));
+        // Average of (200, 210, 300, 310) in bytes, that is, (200, 210, 44, 54)
+        assertEquals(127, level1.getLuma(0, 1));
+
+        FrameView level2 = frame.getLumaLevel(2);
+        assertEquals(2, level2.getWidth());
+        assertEquals(1, level2.getHeight());
+        // Average of (55, 75, 127, 147)
+        assertEquals(101, level2.getLuma(0, 0));
+        frame.release();
+    }
+
+    @Test
+    public void testShared() {
+        Frame frame = newFrame();
+        FrameView first = frame.getLumaLevel(1);
+        FrameView second = frame.getLumaLevel(1);
+        assertNotSame(first, second);
+        assertSame(first.getPlane(0).array(), second.getPlane(0).array());
+        frame.release();
+    }
+
+    @Test
+    public void testBuffersAreRecycled() {
+        Frame frame = newFrame();
+        byte[] buffer = frame.getLumaLevel(1).getPlane(0).array();
+        frame.release();
+        frame = newFrame();
+        assertSame(buffer, frame.getLumaLevel(1).getPlane(0).array());
+        frame.release();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooSmall() {
+        Frame frame = newFrame();
+        try {
+            frame.getLumaLevel(3);
+        } finally {
+            frame.release();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import android.graphics.ImageFormat;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.otaliastudios.cameraview.BaseTest;
+import com.otaliastudios.cameraview.engine.offset.Reference;
+import com.otaliastudios.cameraview.size.Size;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class RgbConverterTest extends BaseTest {
+
+    private final static int WIDTH = 64;
+    private final static int HEIGHT = 48;
+
+    private FrameManager<Object> manager;
+    private RgbConverter converter;
+
+    @Before
+    public void setUp() {
+        manager = new MockFrameManager<>(1, Object.class);
+        converter = new RgbConverter(4);
+    }
+
+    @After
+    public void tearDown() {
+        converter.release();
+        converter = null;
+        manager = null;
+    }
+
+    /**
+     * Creates a gray NV21 frame where luma is x + y.
+     */
+    @NonNull
+    private Frame grayFrame(int userRotation) {
+        byte[] data = new byte[WIDTH * HEIGHT * 3 / 2];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                data[y * WIDTH + x] = (byte) (x + y);
+            }
+        }
+        for (int i = WIDTH * HEIGHT; i < data.length; i++) {
+            data[i] = (byte) 128;
+        }
+        Frame frame = new Frame(manager);
+        frame.setContent(data, 0, 0, userRotation, 0, new Size(WIDTH, HEIGHT), ImageFormat.NV21);
+        return frame;
+    }
+
+    private static int gray(int value) {
+        return 0xFF000000 | (value << 16) | (value << 8) | value;
+    }
+
+    @Test
+    public void testToArgb() {
+        assertEquals(gray(0), RgbConverter.toArgb(0, 0, 0));
+        assertEquals(gray(255), RgbConverter.toArgb(255, 0, 0));
+        // Pure red in full range BT.601 is (76, 85, 255).
+        int red = RgbConverter.toArgb(76, 85 - 128, 255 - 128);
+        assertEquals(255, (red >> 16) & 0xFF, 2);
+        assertEquals(0, (red >> 8) & 0xFF, 2);
+        assertEquals(0, red & 0xFF, 2);
+    }
+
+    @Test
+    public void testConvert() {
+        RgbFrame rgb = converter.convert(grayFrame(0));
+        assertEquals(WIDTH, rgb.getWidth());
+        assertEquals(HEIGHT, rgb.getHeight());
+        int[] pixels = rgb.getPixels();
+        assertEquals(gray(0), pixels[0]);
+        assertEquals(gray(5 + 7), pixels[7 * WIDTH + 5]);
+        assertEquals(gray(WIDTH - 1 + HEIGHT - 1), pixels[WIDTH * HEIGHT - 1]);
+        rgb.release();
+    }
+
+    @Test
+    public void testConvert_downscaleAndRotate() {
+        RgbFrame rgb = converter.convert(grayFrame(90), 2, Reference.OUTPUT);
+        assertEquals(90, rgb.getRotation());
+        assertEquals(HEIGHT / 2, rgb.getWidth());
+        assertEquals(WIDTH / 2, rgb.getHeight());
+        int[] pixels = rgb.getPixels();
+        // After a clock-wise rotation, the top-left pixel comes from the bottom-left
+        // of the source, that is (0, HEIGHT - 2) after downscaling.
+        assertEquals(gray(HEIGHT - 2), pixels[0]);
+        // The top-right pixel comes from the top-left of the source.
+        assertEquals(gray(0), pixels[rgb.getWidth() - 1]);
+        rgb.release();
+    }
+
+    @Test
+    public void testStripesMatchSingleThread() {
+        RgbConverter single = new RgbConverter(1);
+        for (int rotation = 0; rotation < 360; rotation += 90) {
+            RgbFrame expected = single.convert(grayFrame(rotation), 1, Reference.OUTPUT);
+            RgbFrame actual = converter.convert(grayFrame(rotation), 1, Reference.OUTPUT);
+            assertArrayEquals(expected.getPixels(), actual.getPixels());
+            expected.release();
+            actual.release();
+        }
+        single.release();
+    }
+
+    @Test
+    public void testPixelsArePooled() {
+        RgbFrame first = converter.convert(grayFrame(0));
+        int[] pixels = first.getPixels();
+        first.release();
+        RgbFrame second = converter.convert(grayFrame(0));
+        assertSame(pixels, second.getPixels());
+        second.release();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReleasedFrame() {
+        RgbFrame rgb = converter.convert(grayFrame(0));
+        rgb.release();
+        rgb.getPixels();
+    }
+}
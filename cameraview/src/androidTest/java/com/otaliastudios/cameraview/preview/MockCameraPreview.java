@@ -19,6 +19,10 @@ public class MockCameraPreview extends CameraPreview<View, Void> implements Filt
     private View rootView;
     private Filter filter;
 
+    public void setMockSurfaceAvailable(int width, int height) {
+        dispatchOnSurfaceAvailable(width, height);
+    }
+
     @Override
     public boolean supportsCropping() {
         return true;
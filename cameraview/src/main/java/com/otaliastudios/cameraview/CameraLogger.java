@@ -9,11 +9,20 @@ import androidx.annotation.VisibleForTesting;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * Utility class that can log traces and info.
+ *
+ * Besides the varargs methods, the verbose and info channels have {@link #vValues(String, long)}
+ * and {@link #iValues(String, long)}, which take a few String labels and long values,
+ * for per-frame code. They do not allocate, box or format
+ * anything when the level is filtered out. When logging is buffered with
+ * {@link #setBuffered(boolean)}, they do not format anything either: entries are written
+ * into a preallocated, lock-free ring, and only formatted when {@link #drain()} is called.
  */
 @SuppressWarnings({"WeakerAccess", "UnusedReturnValue"})
 public final class CameraLogger {
@@ -23,6 +32,12 @@ public final class CameraLogger {
     public final static int LEVEL_WARNING = 2;
     public final static int LEVEL_ERROR = 3;
 
+    /**
+     * The max number of entries that are kept by {@link #setBuffered(boolean)}
+     * until {@link #drain()} is called. Further entries are dropped.
+     */
+    public final static int BUFFER_CAPACITY = 1024;
+
     /**
      * Interface of integers representing log levels.
      * @see #LEVEL_VERBOSE
@@ -60,6 +75,15 @@ public final class CameraLogger {
 
     private static int sLevel;
     private static Set<Logger> sLoggers = new CopyOnWriteArraySet<>();
+    private static final List<String> sTags = new CopyOnWriteArrayList<>();
+    private static volatile LogBuffer sBuffer;
+
+    private static final LogBuffer.Sink sBufferSink = new LogBuffer.Sink() {
+        @Override
+        public void onEntry(int level, int tag, @NonNull String message) {
+            dispatch(level, sTags.get(tag), message, null);
+        }
+    };
 
     @VisibleForTesting static Logger sAndroidLogger = new Logger() {
         @Override
@@ -89,7 +113,15 @@ public final class CameraLogger {
      * @return a new CameraLogger
      */
     public static CameraLogger create(@NonNull String tag) {
-        return new CameraLogger(tag);
+        synchronized (sTags) {
+            // Loggers with the same tag share the same id.
+            int tagId = sTags.indexOf(tag);
+            if (tagId < 0) {
+                sTags.add(tag);
+                tagId = sTags.size() - 1;
+            }
+            return new CameraLogger(tag, tagId);
+        }
     }
 
     /**
@@ -127,11 +159,83 @@ public final class CameraLogger {
         sLoggers.remove(logger);
     }
 
+    /**
+     * Sets whether log entries should be buffered. If true, entries logged through
+     * {@link #vValues(String, long)}, {@link #iValues(String, long)} and their overloads
+     * are kept in a preallocated ring of {@link #BUFFER_CAPACITY} entries, and are only
+     * formatted and passed to {@link Logger}s when {@link #drain()} is called, for example
+     * periodically from a background thread. Other entries are logged right away, so they
+     * can come before buffered entries that were logged earlier.
+     *
+     * If false, which is the default, all entries are logged right away. Disabling buffering
+     * drains pending entries.
+     *
+     * @param buffered whether to buffer entries
+     */
+    public static void setBuffered(boolean buffered) {
+        LogBuffer drained = null;
+        synchronized (CameraLogger.class) {
+            if (buffered && sBuffer == null) {
+                sBuffer = new LogBuffer(BUFFER_CAPACITY);
+            } else if (!buffered && sBuffer != null) {
+                drained = sBuffer;
+                sBuffer = null;
+            }
+        }
+        // Loggers are called outside of the lock.
+        if (drained != null) drained.drain(sBufferSink);
+    }
+
+    /**
+     * Returns whether log entries are buffered.
+     * @see #setBuffered(boolean)
+     * @return true if buffered
+     */
+    public static boolean isBuffered() {
+        return sBuffer != null;
+    }
+
+    /**
+     * Formats the entries that were buffered since the last call and passes them to the
+     * registered {@link Logger}s, oldest first, on the calling thread.
+     * Does nothing if logging is not buffered, or if another thread is draining.
+     *
+     * @return the number of entries
+     */
+    public static int drain() {
+        LogBuffer buffer = sBuffer;
+        return buffer == null ? 0 : buffer.drain(sBufferSink);
+    }
+
+    /**
+     * Returns the number of entries that were dropped because the buffer was full,
+     * since buffering was enabled.
+     * @see #setBuffered(boolean)
+     * @return the dropped count
+     */
+    public static long getDroppedCount() {
+        LogBuffer buffer = sBuffer;
+        return buffer == null ? 0 : buffer.getDroppedCount();
+    }
+
+    private static void dispatch(@LogLevel int level,
+                                 @NonNull String tag,
+                                 @NonNull String message,
+                                 @Nullable Throwable throwable) {
+        for (Logger logger : sLoggers) {
+            logger.log(level, tag, message, throwable);
+        }
+        lastMessage = message;
+        lastTag = tag;
+    }
+
     @NonNull
     private String mTag;
+    private final int mTagId;
 
-    private CameraLogger(@NonNull String tag) {
+    private CameraLogger(@NonNull String tag, int tagId) {
         mTag = tag;
+        mTagId = tagId;
     }
 
     private boolean should(int messageLevel) {
@@ -158,6 +262,132 @@ public final class CameraLogger {
         return log(LEVEL_INFO, data);
     }
 
+    /**
+     * Log to the verbose channel, without allocating when the level is filtered out.
+     * @param label0 a label
+     * @param value0 a value
+     */
+    public void vValues(@NonNull String label0, long value0) {
+        log(LEVEL_VERBOSE, null, 1, label0, value0, null, 0, null, 0);
+    }
+
+    /**
+     * Log to the verbose channel, without allocating when the level is filtered out.
+     * @param label0 a label
+     * @param value0 a value
+     * @param label1 a label
+     * @param value1 a value
+     */
+    public void vValues(@NonNull String label0, long value0,
+                        @NonNull String label1, long value1) {
+        log(LEVEL_VERBOSE, null, 2, label0, value0, label1, value1, null, 0);
+    }
+
+    /**
+     * Log to the verbose channel, without allocating when the level is filtered out.
+     * @param label0 a label
+     * @param value0 a value
+     * @param label1 a label
+     * @param value1 a value
+     * @param label2 a label
+     * @param value2 a value
+     */
+    public void vValues(@NonNull String label0, long value0,
+                        @NonNull String label1, long value1,
+                        @NonNull String label2, long value2) {
+        log(LEVEL_VERBOSE, null, 3, label0, value0, label1, value1, label2, value2);
+    }
+
+    /**
+     * Log to the verbose channel, without allocating when the level is filtered out.
+     * @param prefix a prefix, like the name of the logging instance
+     * @param label0 a label
+     * @param value0 a value
+     */
+    public void vValues(@NonNull String prefix, @NonNull String label0, long value0) {
+        log(LEVEL_VERBOSE, prefix, 1, label0, value0, null, 0, null, 0);
+    }
+
+    /**
+     * Log to the verbose channel, without allocating when the level is filtered out.
+     * @param prefix a prefix, like the name of the logging instance
+     * @param label0 a label
+     * @param value0 a value
+     * @param label1 a label
+     * @param value1 a value
+     * @param label2 a label
+     * @param value2 a value
+     */
+    public void vValues(@NonNull String prefix,
+                        @NonNull String label0, long value0,
+                        @NonNull String label1, long value1,
+                        @NonNull String label2, long value2) {
+        log(LEVEL_VERBOSE, prefix, 3, label0, value0, label1, value1, label2, value2);
+    }
+
+    /**
+     * Log to the info channel, without allocating when the level is filtered out.
+     * @param label0 a label
+     * @param value0 a value
+     */
+    public void iValues(@NonNull String label0, long value0) {
+        log(LEVEL_INFO, null, 1, label0, value0, null, 0, null, 0);
+    }
+
+    /**
+     * Log to the info channel, without allocating when the level is filtered out.
+     * @param label0 a label
+     * @param value0 a value
+     * @param label1 a label
+     * @param value1 a value
+     */
+    public void iValues(@NonNull String label0, long value0,
+                        @NonNull String label1, long value1) {
+        log(LEVEL_INFO, null, 2, label0, value0, label1, value1, null, 0);
+    }
+
+    /**
+     * Log to the info channel, without allocating when the level is filtered out.
+     * @param label0 a label
+     * @param value0 a value
+     * @param label1 a label
+     * @param value1 a value
+     * @param label2 a label
+     * @param value2 a value
+     */
+    public void iValues(@NonNull String label0, long value0,
+                        @NonNull String label1, long value1,
+                        @NonNull String label2, long value2) {
+        log(LEVEL_INFO, null, 3, label0, value0, label1, value1, label2, value2);
+    }
+
+    /**
+     * Log to the info channel, without allocating when the level is filtered out.
+     * @param prefix a prefix, like the name of the logging instance
+     * @param label0 a label
+     * @param value0 a value
+     */
+    public void iValues(@NonNull String prefix, @NonNull String label0, long value0) {
+        log(LEVEL_INFO, prefix, 1, label0, value0, null, 0, null, 0);
+    }
+
+    /**
+     * Log to the info channel, without allocating when the level is filtered out.
+     * @param prefix a prefix, like the name of the logging instance
+     * @param label0 a label
+     * @param value0 a value
+     * @param label1 a label
+     * @param value1 a value
+     * @param label2 a label
+     * @param value2 a value
+     */
+    public void iValues(@NonNull String prefix,
+                        @NonNull String label0, long value0,
+                        @NonNull String label1, long value1,
+                        @NonNull String label2, long value2) {
+        log(LEVEL_INFO, prefix, 3, label0, value0, label1, value1, label2, value2);
+    }
+
     /**
      * Log to the warning channel.
      * @param data log contents
@@ -178,10 +408,25 @@ public final class CameraLogger {
         return log(LEVEL_ERROR, data);
     }
 
+    private void log(@LogLevel int level, @Nullable String prefix, int count,
+                     @Nullable String label0, long value0,
+                     @Nullable String label1, long value1,
+                     @Nullable String label2, long value2) {
+        if (!should(level)) return;
+        LogBuffer buffer = sBuffer;
+        if (buffer != null) {
+            buffer.offer(level, mTagId, prefix, count,
+                    label0, value0, label1, value1, label2, value2);
+        } else {
+            String message = LogBuffer.format(new StringBuilder(), prefix, count,
+                    label0, value0, label1, value1, label2, value2);
+            dispatch(level, mTag, message, null);
+        }
+    }
+
     @Nullable
     private String log(@LogLevel int level, @NonNull Object... data) {
         if (!should(level)) return null;
-
         StringBuilder message = new StringBuilder();
         Throwable throwable = null;
         for (Object object : data) {
@@ -192,11 +437,7 @@ public final class CameraLogger {
             message.append(" ");
         }
         String string = message.toString().trim();
-        for (Logger logger : sLoggers) {
-            logger.log(level, mTag, string, throwable);
-        }
-        lastMessage = string;
-        lastTag = mTag;
+        dispatch(level, mTag, string, throwable);
         return string;
     }
 }
@@ -12,7 +12,7 @@ import android.os.Handler;
 import com.otaliastudios.cameraview.controls.Facing;
 import com.otaliastudios.cameraview.engine.mappers.Camera1Mapper;
 import com.otaliastudios.cameraview.internal.ExifHelper;
-import com.otaliastudios.cameraview.internal.WorkerHandler;
+import com.otaliastudios.cameraview.internal.WorkerExecutor;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -102,6 +102,7 @@ public class CameraUtils {
     /**
      * Writes the given data to the given file in a background thread, returning on the
      * original thread (typically the UI thread) once writing is done.
+     * Writes run on the {@link WorkerExecutor#io()} lane, so they are not delayed by decoding.
      * If some error is encountered, the {@link FileCallback} will return null instead of the
      * original file.
      *
@@ -114,7 +115,7 @@ public class CameraUtils {
                                    @NonNull final File file,
                                    @NonNull final FileCallback callback) {
         final Handler ui = new Handler();
-        WorkerHandler.execute(new Runnable() {
+        WorkerExecutor.io().execute(new Runnable() {
             @Override
             public void run() {
                 final File result = writeToFile(data, file);
@@ -209,7 +210,7 @@ public class CameraUtils {
                              final int rotation,
                              @NonNull final BitmapCallback callback) {
         final Handler ui = new Handler();
-        WorkerHandler.execute(new Runnable() {
+        WorkerExecutor.cpu().execute(new Runnable() {
             @Override
             public void run() {
                 final Bitmap bitmap = decodeBitmap(source, maxWidth, maxHeight, options, rotation);
@@ -4,10 +4,12 @@ import android.Manifest;
 import android.annotation.SuppressLint;
 import android.annotation.TargetApi;
 import android.app.Activity;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.ContextWrapper;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.graphics.PointF;
 import android.graphics.Rect;
@@ -58,7 +60,13 @@ import com.otaliastudios.cameraview.filter.NoFilter;
 import com.otaliastudios.cameraview.filter.OneParameterFilter;
 import com.otaliastudios.cameraview.filter.TwoParameterFilter;
 import com.otaliastudios.cameraview.frame.Frame;
+import com.otaliastudios.cameraview.frame.FrameProcessingPolicy;
+import com.otaliastudios.cameraview.frame.FrameProcessingRecorder;
+import com.otaliastudios.cameraview.frame.FrameProcessingStats;
 import com.otaliastudios.cameraview.frame.FrameProcessor;
+import com.otaliastudios.cameraview.frame.FrameProcessorLane;
+import com.otaliastudios.cameraview.frame.FrameRateLimiter;
+import com.otaliastudios.cameraview.frame.OrderedFrameProcessor;
 import com.otaliastudios.cameraview.gesture.Gesture;
 import com.otaliastudios.cameraview.gesture.GestureAction;
 import com.otaliastudios.cameraview.gesture.GestureFinder;
@@ -68,6 +76,7 @@ import com.otaliastudios.cameraview.gesture.ScrollGestureFinder;
 import com.otaliastudios.cameraview.gesture.TapGestureFinder;
 import com.otaliastudios.cameraview.internal.GridLinesLayout;
 import com.otaliastudios.cameraview.internal.CropHelper;
+import com.otaliastudios.cameraview.internal.MemoryBudget;
 import com.otaliastudios.cameraview.internal.OrientationHelper;
 import com.otaliastudios.cameraview.markers.AutoFocusMarker;
 import com.otaliastudios.cameraview.markers.AutoFocusTrigger;
@@ -91,6 +100,8 @@ import java.io.FileDescriptor;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -123,6 +134,9 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
     final static boolean DEFAULT_REQUEST_PERMISSIONS = true;
     final static int DEFAULT_FRAME_PROCESSING_POOL_SIZE = 2;
     final static int DEFAULT_FRAME_PROCESSING_EXECUTORS = 1;
+    final static boolean DEFAULT_FRAME_PROCESSING_PARALLEL = false;
+    final static boolean DEFAULT_FRAME_PROCESSING_DIRECT_BUFFERS = false;
+    final static boolean DEFAULT_FRAME_PROCESSING_FREEZE_EVICT_OLDEST = false;
 
     // Self managed parameters
     private boolean mPlaySounds;
@@ -133,6 +147,7 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
     private Engine mEngine;
     private Filter mPendingFilter;
     private int mFrameProcessingExecutors;
+    private boolean mFrameProcessingParallel;
 
     // Components
     private Handler mUiHandler;
@@ -146,8 +161,35 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
     private AutoFocusMarker mAutoFocusMarker;
     @VisibleForTesting List<CameraListener> mListeners = new CopyOnWriteArrayList<>();
     @VisibleForTesting List<FrameProcessor> mFrameProcessors = new CopyOnWriteArrayList<>();
+    private Map<FrameProcessor, FrameProcessorLane<Frame>> mFrameProcessorLanes
+            = new ConcurrentHashMap<>();
+    private Map<FrameProcessor, FrameProcessingPolicy> mFrameProcessorPolicies
+            = new ConcurrentHashMap<>();
+    private Map<FrameProcessor, FrameRateLimiter> mFrameProcessorLimiters
+            = new ConcurrentHashMap<>();
+    private final FrameProcessingRecorder mFrameProcessingRecorder
+            = new FrameProcessingRecorder();
+    // Recycled lists of the sequential processors that accept a frame, so that frame rate
+    // limiters do not make us allocate a list for each frame.
+    private final List<List<FrameProcessor>> mSequentialProcessorLists = new ArrayList<>();
     private Lifecycle mLifecycle;
 
+    // Forwards system memory signals, so that idle camera buffers are dropped.
+    private final ComponentCallbacks2 mMemoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            MemoryBudget.get().onTrimMemory(level);
+        }
+
+        @Override
+        public void onLowMemory() {
+            MemoryBudget.get().onTrimMemory(TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull Configuration newConfig) { }
+    };
+
     // Gestures
     @VisibleForTesting PinchGestureFinder mPinchGestureFinder;
     @VisibleForTesting TapGestureFinder mTapGestureFinder;
@@ -223,8 +265,18 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
         int frameFormat = a.getInteger(R.styleable.CameraView_cameraFrameProcessingFormat, 0);
         int framePoolSize = a.getInteger(R.styleable.CameraView_cameraFrameProcessingPoolSize,
                 DEFAULT_FRAME_PROCESSING_POOL_SIZE);
+        boolean frameDirectBuffers = a.getBoolean(
+                R.styleable.CameraView_cameraFrameProcessingDirectBuffers,
+                DEFAULT_FRAME_PROCESSING_DIRECT_BUFFERS);
+        int frameFreezeBudget = a.getInteger(
+                R.styleable.CameraView_cameraFrameProcessingFreezeBudget, 0);
+        boolean frameFreezeEvictOldest = a.getBoolean(
+                R.styleable.CameraView_cameraFrameProcessingFreezeEvictOldest,
+                DEFAULT_FRAME_PROCESSING_FREEZE_EVICT_OLDEST);
         int frameExecutors = a.getInteger(R.styleable.CameraView_cameraFrameProcessingExecutors,
                 DEFAULT_FRAME_PROCESSING_EXECUTORS);
+        boolean frameParallel = a.getBoolean(R.styleable.CameraView_cameraFrameProcessingParallel,
+                DEFAULT_FRAME_PROCESSING_PARALLEL);
 
         // Size selectors and gestures
         SizeSelectorParser sizeSelectors = new SizeSelectorParser(a);
@@ -288,7 +340,11 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
         setFrameProcessingMaxHeight(frameMaxHeight);
         setFrameProcessingFormat(frameFormat);
         setFrameProcessingPoolSize(framePoolSize);
+        setFrameProcessingDirectBuffers(frameDirectBuffers);
+        setFrameProcessingFreezeBudget(frameFreezeBudget);
+        setFrameProcessingFreezeEvictOldest(frameFreezeEvictOldest);
         setFrameProcessingExecutors(frameExecutors);
+        setFrameProcessingParallel(frameParallel);
 
         // Apply gestures
         mapGesture(Gesture.TAP, gestures.getTapAction());
@@ -389,6 +445,7 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
         if (mInEditor) return;
+        getContext().registerComponentCallbacks(mMemoryCallbacks);
         if (mCameraPreview == null) {
             // isHardwareAccelerated will return the real value only after we are
             // attached. That's why we instantiate the preview here.
@@ -399,6 +456,7 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
     @Override
     protected void onDetachedFromWindow() {
         mLastPreviewStreamSize = null;
+        if (!mInEditor) getContext().unregisterComponentCallbacks(mMemoryCallbacks);
         super.onDetachedFromWindow();
     }
 
@@ -1037,6 +1095,9 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
         setFrameProcessingMaxHeight(oldEngine.getFrameProcessingMaxHeight());
         setFrameProcessingFormat(0 /* this is very engine specific, so do not pass */);
         setFrameProcessingPoolSize(oldEngine.getFrameProcessingPoolSize());
+        setFrameProcessingDirectBuffers(oldEngine.getFrameProcessingDirectBuffers());
+        setFrameProcessingFreezeBudget(oldEngine.getFrameProcessingFreezeBudget());
+        setFrameProcessingFreezeEvictOldest(oldEngine.getFrameProcessingFreezeEvictOldest());
         mCameraEngine.setHasFrameProcessors(!mFrameProcessors.isEmpty());
     }
 
@@ -2372,23 +2433,66 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
         public void dispatchFrame(@NonNull final Frame frame) {
             // The getTime() below might crash if developers incorrectly release
             // frames asynchronously.
-            LOG.v("dispatchFrame:", frame.getTime(), "processors:", mFrameProcessors.size());
+            LOG.vValues("dispatchFrame:", frame.getTime(), "processors:", mFrameProcessors.size());
             if (mFrameProcessors.isEmpty()) {
                 // Mark as released. This instance will be reused.
                 frame.release();
+                return;
+            }
+            mFrameProcessingRecorder.onFrameInput(false);
+            mFrameProcessingRecorder.onFrameDispatched(frame);
+            // Dispatch this frame to each lane that needs it. Lanes retain the frame,
+            // so it is recycled only after all processors are done.
+            final long time = frame.getTime();
+            for (Map.Entry<FrameProcessor, FrameProcessorLane<Frame>> entry
+                    : mFrameProcessorLanes.entrySet()) {
+                if (acceptsFrame(entry.getKey(), time)) {
+                    entry.getValue().dispatch(frame);
+                }
+            }
+            // Find the sequential processors that need this frame. When no processor has a
+            // target frame rate, they all do, and we avoid using a list.
+            boolean hasSequentialProcessors = false;
+            final List<FrameProcessor> sequentialProcessors = mFrameProcessorLimiters.isEmpty()
+                    ? null : obtainSequentialProcessors();
+            for (FrameProcessor processor : mFrameProcessors) {
+                if (mFrameProcessorLanes.containsKey(processor)) continue;
+                if (sequentialProcessors == null) {
+                    hasSequentialProcessors = true;
+                    break;
+                } else if (acceptsFrame(processor, time)) {
+                    hasSequentialProcessors = true;
+                    sequentialProcessors.add(processor);
+                }
+            }
+            if (!hasSequentialProcessors) {
+                // Nobody else needs this frame. This instance will be reused.
+                if (sequentialProcessors != null) recycleSequentialProcessors(sequentialProcessors);
+                frame.release();
             } else {
                 // Dispatch this frame to frame processors.
+                mFrameProcessingRecorder.onFrameQueued();
                 mFrameProcessingExecutor.execute(new Runnable() {
                     @Override
                     public void run() {
+                        mFrameProcessingRecorder.onFrameDequeued();
                         LOG.v("dispatchFrame: executing. Passing", frame.getTime(),
                                 "to processors.");
-                        for (FrameProcessor processor : mFrameProcessors) {
+                        mFrameProcessingRecorder.onFrameStarted(frame);
+                        for (FrameProcessor processor : sequentialProcessors == null
+                                ? mFrameProcessors : sequentialProcessors) {
+                            if (mFrameProcessorLanes.containsKey(processor)) continue;
+                            long start = System.nanoTime();
                             try {
                                 processor.process(frame);
                             } catch (Exception e) {
                                 LOG.w("Frame processor crashed:", e);
                             }
+                            mFrameProcessingRecorder.onFrameProcessed(frame, processor,
+                                    System.nanoTime() - start);
+                        }
+                        if (sequentialProcessors != null) {
+                            recycleSequentialProcessors(sequentialProcessors);
                         }
                         frame.release();
                     }
@@ -2396,6 +2500,34 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
             }
         }
 
+        @NonNull
+        private List<FrameProcessor> obtainSequentialProcessors() {
+            synchronized (mSequentialProcessorLists) {
+                int size = mSequentialProcessorLists.size();
+                if (size > 0) return mSequentialProcessorLists.remove(size - 1);
+            }
+            return new ArrayList<>();
+        }
+
+        private void recycleSequentialProcessors(@NonNull List<FrameProcessor> processors) {
+            processors.clear();
+            synchronized (mSequentialProcessorLists) {
+                mSequentialProcessorLists.add(processors);
+            }
+        }
+
+        private boolean acceptsFrame(@NonNull FrameProcessor processor, long time) {
+            FrameRateLimiter limiter = mFrameProcessorLimiters.get(processor);
+            return limiter == null || limiter.accept(time);
+        }
+
+        @Override
+        public void dispatchFrameDropped() {
+            if (!mFrameProcessors.isEmpty()) {
+                mFrameProcessingRecorder.onFrameInput(true);
+            }
+        }
+
         @Override
         public void dispatchError(final CameraException exception) {
             LOG.i("dispatchError", exception);
@@ -2449,12 +2581,41 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
     public void addFrameProcessor(@Nullable FrameProcessor processor) {
         if (processor != null) {
             mFrameProcessors.add(processor);
+            mFrameProcessingRecorder.onProcessorAdded(processor);
+            updateFrameProcessorLanes();
             if (mFrameProcessors.size() == 1) {
                 mCameraEngine.setHasFrameProcessors(true);
             }
         }
     }
 
+    /**
+     * Adds a {@link FrameProcessor} instance to be notified of
+     * new frames in the preview stream, with the given {@link FrameProcessingPolicy}.
+     *
+     * The processor will run on its own thread and have its own queue of pending frames,
+     * which is managed according to the policy. For example,
+     * {@link FrameProcessingPolicy#latestOnly()} ensures that the processor only receives
+     * the most recent frame, while {@link FrameProcessingPolicy#boundedQueue(int)} can be
+     * used by processors that want as many frames as possible.
+     *
+     * If the processor was already added, it is not added again: only its policy is updated.
+     *
+     * @param processor a frame processor
+     * @param policy the policy for pending frames
+     */
+    public void addFrameProcessor(@Nullable FrameProcessor processor,
+                                  @NonNull FrameProcessingPolicy policy) {
+        if (processor != null) {
+            mFrameProcessorPolicies.put(processor, policy);
+            if (mFrameProcessors.contains(processor)) {
+                updateFrameProcessorLanes();
+            } else {
+                addFrameProcessor(processor);
+            }
+        }
+    }
+
     /**
      * Remove a {@link FrameProcessor} that was previously registered.
      *
@@ -2463,6 +2624,12 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
     public void removeFrameProcessor(@Nullable FrameProcessor processor) {
         if (processor != null) {
             mFrameProcessors.remove(processor);
+            if (!mFrameProcessors.contains(processor)) {
+                mFrameProcessorPolicies.remove(processor);
+                mFrameProcessorLimiters.remove(processor);
+                mFrameProcessingRecorder.onProcessorRemoved(processor);
+            }
+            updateFrameProcessorLanes();
             if (mFrameProcessors.size() == 0) {
                 mCameraEngine.setHasFrameProcessors(false);
             }
@@ -2475,7 +2642,13 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
      */
     public void clearFrameProcessors() {
         boolean had = mFrameProcessors.size() > 0;
+        for (FrameProcessor processor : mFrameProcessors) {
+            mFrameProcessingRecorder.onProcessorRemoved(processor);
+        }
         mFrameProcessors.clear();
+        mFrameProcessorPolicies.clear();
+        mFrameProcessorLimiters.clear();
+        updateFrameProcessorLanes();
         if (had) {
             mCameraEngine.setHasFrameProcessors(false);
         }
@@ -2566,6 +2739,103 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
         return mCameraEngine.getFrameProcessingPoolSize();
     }
 
+    /**
+     * Sets whether frames should hold direct (off-heap) {@link java.nio.ByteBuffer}s
+     * instead of byte[] arrays. Direct buffers can be passed to NIO channels or native code
+     * without further copies, and only a couple of byte[] arrays are kept for the camera,
+     * regardless of the pool size.
+     *
+     * This only has effect with {@link Engine#CAMERA1}: Camera2 frames hold
+     * {@link android.media.Image}s, whose planes are already direct buffers.
+     * Defaults to false.
+     *
+     * Changing this value after camera initialization will have no effect.
+     * @param directBuffers whether to use direct buffers
+     */
+    public void setFrameProcessingDirectBuffers(boolean directBuffers) {
+        mCameraEngine.setFrameProcessingDirectBuffers(directBuffers);
+    }
+
+    /**
+     * Returns whether frames should hold direct buffers.
+     * @see #setFrameProcessingDirectBuffers(boolean)
+     * @return true if using direct buffers
+     */
+    public boolean getFrameProcessingDirectBuffers() {
+        return mCameraEngine.getFrameProcessingDirectBuffers();
+    }
+
+    /**
+     * Sets the max number of bytes that frames created by {@link Frame#freeze()} can hold
+     * at any given moment. This protects the heap from processors that freeze frames faster
+     * than they release them. When the budget would be exceeded, {@link Frame#freeze()}
+     * throws an {@link IllegalStateException}, unless
+     * {@link #setFrameProcessingFreezeEvictOldest(boolean)} is used.
+     *
+     * Defaults to 0, which means no limit.
+     * @param bytes the budget in bytes
+     */
+    public void setFrameProcessingFreezeBudget(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Budget should be >= 0, got " + bytes);
+        }
+        mCameraEngine.setFrameProcessingFreezeBudget(bytes);
+    }
+
+    /**
+     * Returns the freeze budget in bytes, or 0 if there is no limit.
+     * @see #setFrameProcessingFreezeBudget(long)
+     * @return the freeze budget
+     */
+    public long getFrameProcessingFreezeBudget() {
+        return mCameraEngine.getFrameProcessingFreezeBudget();
+    }
+
+    /**
+     * Sets what happens when a {@link Frame#freeze()} call would exceed the budget set with
+     * {@link #setFrameProcessingFreezeBudget(long)}. If true, the oldest frozen frames are
+     * released to make room, and can not be accessed anymore. If false, the call fails.
+     * Frozen frames that were retained through {@link Frame#retain()} are never evicted.
+     *
+     * Defaults to false.
+     * @param evictOldest whether to evict old frozen frames
+     */
+    public void setFrameProcessingFreezeEvictOldest(boolean evictOldest) {
+        mCameraEngine.setFrameProcessingFreezeEvictOldest(evictOldest);
+    }
+
+    /**
+     * Returns whether old frozen frames are evicted when the freeze budget is exceeded.
+     * @see #setFrameProcessingFreezeEvictOldest(boolean)
+     * @return true if evicting
+     */
+    public boolean getFrameProcessingFreezeEvictOldest() {
+        return mCameraEngine.getFrameProcessingFreezeEvictOldest();
+    }
+
+    /**
+     * Sets the max number of bytes that camera buffers can hold at any given time: frame
+     * pools, frozen frames, audio encoder buffers and overlay surfaces. When the budget is
+     * exceeded, idle buffers are dropped, frame pools are allocated with fewer buffers,
+     * {@link Frame#freeze()} fails and audio frames are skipped.
+     *
+     * The budget is shared by all CameraView instances in the process.
+     * Defaults to 0, which means no limit.
+     * @param bytes the budget in bytes
+     */
+    public void setMemoryBudget(long bytes) {
+        MemoryBudget.get().setLimit(bytes);
+    }
+
+    /**
+     * Returns the memory budget in bytes, or 0 if there is no limit.
+     * @see #setMemoryBudget(long)
+     * @return the memory budget
+     */
+    public long getMemoryBudget() {
+        return MemoryBudget.get().getLimit();
+    }
+
     /**
      * Sets the thread pool size for frame processing. This means that if the processing rate
      * is slower than the preview rate, you can set this value to something bigger than 1
@@ -2575,6 +2845,9 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
      * Should be tuned depending on the task, the processor implementation, and along with
      * {@link #setFrameProcessingPoolSize(int)}. We recommend choosing a pool size that is
      * equal to the executors plus 1.
+     *
+     * With more than 1 executor, frames can complete in any order. If results are needed
+     * in capture order, use an {@link OrderedFrameProcessor} instead.
      * @param executors thread count
      */
     public void setFrameProcessingExecutors(int executors) {
@@ -2609,6 +2882,117 @@ public class CameraView extends FrameLayout implements LifecycleObserver {
         return mFrameProcessingExecutors;
     }
 
+    /**
+     * Sets whether frames should be dispatched to {@link FrameProcessor}s in parallel.
+     * By default, all processors are run sequentially for each frame, on one of the
+     * threads defined by {@link #setFrameProcessingExecutors(int)}, so frame latency is
+     * the sum of all processing times.
+     *
+     * When this is true, each processor gets its own thread (lane) and the same frame is
+     * passed to all of them at once, so latency is that of the slowest processor.
+     * The frame goes back to the pool when all processors have returned. Each processor
+     * still receives frames in order, and is never called concurrently with itself.
+     * In this mode, {@link #setFrameProcessingExecutors(int)} has no effect.
+     *
+     * Processors registered with a {@link FrameProcessingPolicy} always run on their own
+     * lane, regardless of this value.
+     *
+     * @param parallel whether to dispatch in parallel
+     */
+    public void setFrameProcessingParallel(boolean parallel) {
+        mFrameProcessingParallel = parallel;
+        updateFrameProcessorLanes();
+    }
+
+    /**
+     * Returns whether frames are dispatched in parallel.
+     * @see #setFrameProcessingParallel(boolean)
+     * @return true if parallel
+     */
+    public boolean getFrameProcessingParallel() {
+        return mFrameProcessingParallel;
+    }
+
+    /**
+     * Sets the frame rate that the given processor needs. Many processors, like detectors,
+     * do not need every frame coming from the camera: in this case, frames are skipped
+     * before being queued for this processor, which saves CPU and keeps more frames available
+     * in the pool. Frames that no processor needs are released right away.
+     *
+     * Frames are picked based on {@link Frame#getTime()}, so that they are evenly spaced.
+     * Pass 0 to remove the limit and receive all frames, which is the default.
+     * The processor must have been added through {@link #addFrameProcessor(FrameProcessor)}.
+     *
+     * @param processor a registered processor
+     * @param fps the target frame rate, or 0
+     * @throws IllegalArgumentException if fps is negative or the processor was not added
+     */
+    public void setFrameProcessorTargetFps(@NonNull FrameProcessor processor, float fps) {
+        if (fps < 0F) {
+            throw new IllegalArgumentException("Target fps should not be negative, got " + fps);
+        }
+        if (!mFrameProcessors.contains(processor)) {
+            throw new IllegalArgumentException("Processor was not added: " + processor);
+        }
+        if (fps == 0F) {
+            mFrameProcessorLimiters.remove(processor);
+        } else {
+            mFrameProcessorLimiters.put(processor, new FrameRateLimiter(fps));
+        }
+    }
+
+    /**
+     * Returns the frame rate that the given processor needs, or 0 if it has no limit.
+     * @see #setFrameProcessorTargetFps(FrameProcessor, float)
+     * @param processor a processor
+     * @return the target fps
+     */
+    public float getFrameProcessorTargetFps(@NonNull FrameProcessor processor) {
+        FrameRateLimiter limiter = mFrameProcessorLimiters.get(processor);
+        return limiter == null ? 0F : limiter.getTargetFps();
+    }
+
+    /**
+     * Returns live statistics about frame processing: input and processed frame rates,
+     * frames dropped because no {@link Frame} was available, queue depth and
+     * per-processor latency histograms. Statistics are always collected, and the
+     * returned object can be kept and polled at any time.
+     *
+     * @return the frame processing stats
+     */
+    @NonNull
+    public FrameProcessingStats getFrameProcessingStats() {
+        return mFrameProcessingRecorder.getStats();
+    }
+
+    /**
+     * Ensures that processors that need a lane have one with the correct policy,
+     * and releases the lanes that are not needed anymore. A processor needs a lane
+     * if we're dispatching in parallel or if it was registered with a policy.
+     */
+    private void updateFrameProcessorLanes() {
+        for (FrameProcessor processor : mFrameProcessorLanes.keySet()) {
+            FrameProcessingPolicy policy = mFrameProcessorPolicies.get(processor);
+            boolean needsLane = mFrameProcessors.contains(processor)
+                    && (mFrameProcessingParallel || policy != null);
+            FrameProcessorLane<Frame> lane = mFrameProcessorLanes.get(processor);
+            //noinspection ConstantConditions
+            if (!needsLane || (policy != null && !policy.equals(lane.getPolicy()))) {
+                mFrameProcessorLanes.remove(processor);
+                //noinspection ConstantConditions
+                lane.release();
+            }
+        }
+        for (FrameProcessor processor : mFrameProcessors) {
+            FrameProcessingPolicy policy = mFrameProcessorPolicies.get(processor);
+            if ((mFrameProcessingParallel || policy != null)
+                    && !mFrameProcessorLanes.containsKey(processor)) {
+                mFrameProcessorLanes.put(processor, FrameProcessorLane.forProcessor(processor,
+                        policy, mFrameProcessingRecorder));
+            }
+        }
+    }
+
     //endregion
 
     //region Overlays
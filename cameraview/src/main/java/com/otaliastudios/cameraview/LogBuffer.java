@@ -0,0 +1,202 @@
+package com.otaliastudios.cameraview;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-capacity, lock-free ring of log entries, used by {@link CameraLogger} when
+ * logging is buffered. Each entry holds a level, a tag id, an optional prefix and up to
+ * {@link #MAX_VALUES} label and long value pairs, stored in preallocated arrays, so
+ * that {@link #offer(int, int, String, int, String, long, String, long, String, long)}
+ * does not allocate, box or format anything.
+ *
+ * Any number of threads can offer. Entries are formatted by {@link #drain(Sink)}, which
+ * can be called from any thread, but only runs on one thread at a time: a call made while
+ * another thread is draining returns right away. No lock is held while the sink runs.
+ * When the ring is full, new entries are dropped and counted.
+ *
+ * Slots use the same sequence encoding as the internal RingBuffer: a slot is free for
+ * the producer at a given position when its sequence is 2 * position, and filled for
+ * the consumer when it is 2 * position + 1.
+ */
+final class LogBuffer {
+
+    /**
+     * The max number of values of each entry.
+     */
+    final static int MAX_VALUES = 3;
+
+    /**
+     * Receives formatted entries from {@link #drain(Sink)}.
+     */
+    interface Sink {
+        void onEntry(int level, int tag, @NonNull String message);
+    }
+
+    private final int mCapacity;
+    private final AtomicLongArray mSequences;
+    private final AtomicLong mProducerPosition = new AtomicLong(0);
+    private final AtomicLong mDroppedCount = new AtomicLong(0);
+    private final int[] mLevels;
+    private final int[] mTags;
+    private final int[] mCounts;
+    private final String[] mPrefixes;
+    private final String[] mLabels;
+    private final long[] mValues;
+
+    private final AtomicBoolean mDraining = new AtomicBoolean(false);
+    // Only written by the draining thread.
+    private volatile long mConsumerPosition = 0;
+    private final StringBuilder mBuilder = new StringBuilder();
+
+    LogBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity should be at least 1, got " + capacity);
+        }
+        mCapacity = capacity;
+        mSequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            mSequences.set(i, 2L * i);
+        }
+        mLevels = new int[capacity];
+        mTags = new int[capacity];
+        mCounts = new int[capacity];
+        mPrefixes = new String[capacity];
+        mLabels = new String[capacity * MAX_VALUES];
+        mValues = new long[capacity * MAX_VALUES];
+    }
+
+    /**
+     * Adds an entry, if there is space. Only the first count pairs are used.
+     * @return true if added, false if the ring was full
+     */
+    boolean offer(int level, int tag, @Nullable String prefix, int count,
+                  @Nullable String label0, long value0,
+                  @Nullable String label1, long value1,
+                  @Nullable String label2, long value2) {
+        long position = mProducerPosition.get();
+        int index;
+        while (true) {
+            index = (int) (position % mCapacity);
+            long difference = mSequences.get(index) - 2 * position;
+            if (difference == 0) {
+                if (mProducerPosition.compareAndSet(position, position + 1)) break;
+            } else if (difference < 0) {
+                // Logging should never wait for the drainer.
+                mDroppedCount.incrementAndGet();
+                return false;
+            }
+            position = mProducerPosition.get();
+        }
+        int offset = index * MAX_VALUES;
+        mLevels[index] = level;
+        mTags[index] = tag;
+        mCounts[index] = count;
+        mPrefixes[index] = prefix;
+        mLabels[offset] = label0;
+        mValues[offset] = value0;
+        mLabels[offset + 1] = label1;
+        mValues[offset + 1] = value1;
+        mLabels[offset + 2] = label2;
+        mValues[offset + 2] = value2;
+        // Publishes the plain writes above.
+        mSequences.set(index, 2 * position + 1);
+        return true;
+    }
+
+    /**
+     * Formats the given entry, the same way {@link CameraLogger} formats its arguments:
+     * joined by spaces.
+     */
+    @NonNull
+    static String format(@NonNull StringBuilder builder, @Nullable String prefix, int count,
+                         @Nullable String label0, long value0,
+                         @Nullable String label1, long value1,
+                         @Nullable String label2, long value2) {
+        builder.setLength(0);
+        if (prefix != null) builder.append(prefix).append(' ');
+        if (count > 0) builder.append(label0).append(' ').append(value0).append(' ');
+        if (count > 1) builder.append(label1).append(' ').append(value1).append(' ');
+        if (count > 2) builder.append(label2).append(' ').append(value2);
+        return builder.toString().trim();
+    }
+
+    /**
+     * Formats all entries in the ring and passes them to the given sink, oldest first.
+     * If another thread is draining, this returns 0 and that thread passes the entries.
+     * @param sink the sink
+     * @return the number of entries
+     */
+    int drain(@NonNull Sink sink) {
+        int drained = 0;
+        while (mDraining.compareAndSet(false, true)) {
+            try {
+                drained += drainOwned(sink);
+            } finally {
+                mDraining.set(false);
+            }
+            // An entry might have been added after the last check, but before the flag
+            // was cleared, by a thread whose drain() returned early. Keep going.
+            if (!hasNext()) break;
+        }
+        return drained;
+    }
+
+    private boolean hasNext() {
+        long position = mConsumerPosition;
+        return mSequences.get((int) (position % mCapacity)) == 2 * position + 1;
+    }
+
+    private int drainOwned(@NonNull Sink sink) {
+        int drained = 0;
+        while (hasNext()) {
+            long position = mConsumerPosition;
+            int index = (int) (position % mCapacity);
+            int offset = index * MAX_VALUES;
+            String message = format(mBuilder, mPrefixes[index], mCounts[index],
+                    mLabels[offset], mValues[offset],
+                    mLabels[offset + 1], mValues[offset + 1],
+                    mLabels[offset + 2], mValues[offset + 2]);
+            int level = mLevels[index];
+            int tag = mTags[index];
+            mPrefixes[index] = null;
+            mLabels[offset] = null;
+            mLabels[offset + 1] = null;
+            mLabels[offset + 2] = null;
+            mConsumerPosition = position + 1;
+            mSequences.set(index, 2 * (position + mCapacity));
+            sink.onEntry(level, tag, message);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Returns the number of entries waiting to be drained. This is an estimate.
+     * @return the size
+     */
+    int size() {
+        long size = mProducerPosition.get() - mConsumerPosition;
+        return (int) Math.max(0, Math.min(size, mCapacity));
+    }
+
+    /**
+     * Returns the max number of entries.
+     * @return the capacity
+     */
+    int capacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Returns the number of entries that were dropped because the ring was full.
+     * @return the dropped count
+     */
+    long getDroppedCount() {
+        return mDroppedCount.get();
+    }
+}
@@ -27,6 +27,7 @@ import com.otaliastudios.cameraview.engine.offset.Reference;
 import com.otaliastudios.cameraview.engine.options.Camera1Options;
 import com.otaliastudios.cameraview.engine.orchestrator.CameraState;
 import com.otaliastudios.cameraview.frame.ByteBufferFrameManager;
+import com.otaliastudios.cameraview.frame.DirectByteBufferFrameManager;
 import com.otaliastudios.cameraview.frame.Frame;
 import com.otaliastudios.cameraview.PictureResult;
 import com.otaliastudios.cameraview.VideoResult;
@@ -818,15 +819,12 @@ public class Camera1Engine extends CameraBaseEngine implements
     @NonNull
     @Override
     protected FrameManager instantiateFrameManager(int poolSize) {
+        if (getFrameProcessingDirectBuffers()) {
+            return new DirectByteBufferFrameManager(poolSize, this);
+        }
         return new ByteBufferFrameManager(poolSize, this);
     }
 
-    @NonNull
-    @Override
-    public ByteBufferFrameManager getFrameManager() {
-        return (ByteBufferFrameManager) super.getFrameManager();
-    }
-
     @Override
     public void setHasFrameProcessors(boolean hasFrameProcessors) {
         // we don't care, FP is always on
@@ -853,9 +851,18 @@ public class Camera1Engine extends CameraBaseEngine implements
             // Seen this happen in logs.
             return;
         }
-        Frame frame = getFrameManager().getFrame(data, System.currentTimeMillis());
+        long time = System.currentTimeMillis();
+        FrameManager manager = getFrameManager();
+        Frame frame;
+        if (manager instanceof DirectByteBufferFrameManager) {
+            frame = ((DirectByteBufferFrameManager) manager).getFrame(data, time);
+        } else {
+            frame = ((ByteBufferFrameManager) manager).getFrame(data, time);
+        }
         if (frame != null) {
             getCallback().dispatchFrame(frame);
+        } else {
+            getCallback().dispatchFrameDropped();
         }
     }
 
@@ -19,6 +19,7 @@ import android.location.Location;
 import android.media.Image;
 import android.media.ImageReader;
 import android.os.Build;
+import android.os.SystemClock;
 import android.util.Pair;
 import android.util.Range;
 import android.util.Rational;
@@ -91,6 +92,7 @@ public class Camera2Engine extends CameraBaseEngine implements
     private String mCameraId;
     private CameraDevice mCamera;
     private CameraCharacteristics mCameraCharacteristics;
+    private boolean mRealtimeTimestamps;
     private CameraCaptureSession mSession;
     private CaptureRequest.Builder mRepeatingRequestBuilder;
     private TotalCaptureResult mLastRepeatingResult;
@@ -410,6 +412,10 @@ public class Camera2Engine extends CameraBaseEngine implements
                     try {
                         LOG.i("onStartEngine:", "Opened camera device.");
                         mCameraCharacteristics = mManager.getCameraCharacteristics(mCameraId);
+                        mRealtimeTimestamps = readCharacteristic(
+                                CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE,
+                                CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE_UNKNOWN)
+                                == CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE_REALTIME;
                         boolean flip = getAngles().flip(Reference.SENSOR, Reference.VIEW);
                         int format;
                         switch (mPictureFormat) {
@@ -1456,12 +1462,14 @@ public class Camera2Engine extends CameraBaseEngine implements
             // After preview, the frame manager is correctly set up
             //noinspection unchecked
             Frame frame = getFrameManager().getFrame(image,
-                    System.currentTimeMillis());
+                    System.currentTimeMillis(),
+                    getFrameTimestamp(image));
             if (frame != null) {
                 LOG.v("onImageAvailable:", "Image acquired, dispatching.");
                 getCallback().dispatchFrame(frame);
             } else {
                 LOG.i("onImageAvailable:", "Image acquired, but no free frames. DROPPING.");
+                getCallback().dispatchFrameDropped();
             }
         } else {
             LOG.i("onImageAvailable:", "Image acquired in wrong state. Closing it now.");
@@ -1469,6 +1477,17 @@ public class Camera2Engine extends CameraBaseEngine implements
         }
     }
 
+    /**
+     * Converts the image timestamp to the {@link System#nanoTime()} reference.
+     * Realtime timestamps share the {@link SystemClock#elapsedRealtimeNanos()} base, while
+     * unknown timestamps are monotonic and, in practice, share the nanoTime base.
+     */
+    private long getFrameTimestamp(@NonNull Image image) {
+        long timestamp = image.getTimestamp();
+        if (!mRealtimeTimestamps) return timestamp;
+        return System.nanoTime() - (SystemClock.elapsedRealtimeNanos() - timestamp);
+    }
+
     @Override
     public void setHasFrameProcessors(final boolean hasFrameProcessors) {
         // Frame processing is set up partially when binding and partially when starting
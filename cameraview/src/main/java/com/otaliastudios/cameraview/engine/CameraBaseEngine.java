@@ -92,6 +92,9 @@ public abstract class CameraBaseEngine extends CameraEngine {
     private int mFrameProcessingMaxWidth; // in REF_VIEW like SizeSelectors
     private int mFrameProcessingMaxHeight; // in REF_VIEW like SizeSelectors
     private int mFrameProcessingPoolSize;
+    private boolean mFrameProcessingDirectBuffers;
+    private long mFrameProcessingFreezeBudget;
+    private boolean mFrameProcessingFreezeEvictOldest;
     private Overlay mOverlay;
 
     // Ops used for testing.
@@ -137,6 +140,8 @@ public abstract class CameraBaseEngine extends CameraEngine {
     public FrameManager getFrameManager() {
         if (mFrameManager == null) {
             mFrameManager = instantiateFrameManager(mFrameProcessingPoolSize);
+            mFrameManager.setFreezeBudget(mFrameProcessingFreezeBudget,
+                    mFrameProcessingFreezeEvictOldest);
         }
         return mFrameManager;
     }
@@ -321,6 +326,42 @@ public abstract class CameraBaseEngine extends CameraEngine {
         return mFrameProcessingPoolSize;
     }
 
+    @Override
+    public final void setFrameProcessingDirectBuffers(boolean directBuffers) {
+        mFrameProcessingDirectBuffers = directBuffers;
+    }
+
+    @Override
+    public final boolean getFrameProcessingDirectBuffers() {
+        return mFrameProcessingDirectBuffers;
+    }
+
+    @Override
+    public final void setFrameProcessingFreezeBudget(long bytes) {
+        mFrameProcessingFreezeBudget = bytes;
+        if (mFrameManager != null) {
+            mFrameManager.setFreezeBudget(bytes, mFrameProcessingFreezeEvictOldest);
+        }
+    }
+
+    @Override
+    public final long getFrameProcessingFreezeBudget() {
+        return mFrameProcessingFreezeBudget;
+    }
+
+    @Override
+    public final void setFrameProcessingFreezeEvictOldest(boolean evictOldest) {
+        mFrameProcessingFreezeEvictOldest = evictOldest;
+        if (mFrameManager != null) {
+            mFrameManager.setFreezeBudget(mFrameProcessingFreezeBudget, evictOldest);
+        }
+    }
+
+    @Override
+    public final boolean getFrameProcessingFreezeEvictOldest() {
+        return mFrameProcessingFreezeEvictOldest;
+    }
+
     @Override
     public final void setAutoFocusResetDelay(long delayMillis) {
         mAutoFocusResetDelayMillis = delayMillis;
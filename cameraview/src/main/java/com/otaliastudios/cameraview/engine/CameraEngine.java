@@ -125,6 +125,7 @@ public abstract class CameraEngine implements
         void dispatchOnExposureCorrectionChanged(float newValue, @NonNull float[] bounds,
                                                  @Nullable PointF[] fingers);
         void dispatchFrame(@NonNull Frame frame);
+        void dispatchFrameDropped();
         void dispatchError(CameraException exception);
         void dispatchOnVideoRecordingStart();
         void dispatchOnVideoRecordingEnd();
@@ -659,6 +660,15 @@ public abstract class CameraEngine implements
     public abstract void setFrameProcessingPoolSize(int poolSize);
     public abstract int getFrameProcessingPoolSize();
 
+    public abstract void setFrameProcessingDirectBuffers(boolean directBuffers);
+    public abstract boolean getFrameProcessingDirectBuffers();
+
+    public abstract void setFrameProcessingFreezeBudget(long bytes);
+    public abstract long getFrameProcessingFreezeBudget();
+
+    public abstract void setFrameProcessingFreezeEvictOldest(boolean evictOldest);
+    public abstract boolean getFrameProcessingFreezeEvictOldest();
+
     public abstract void setAutoFocusResetDelay(long delayMillis);
     public abstract long getAutoFocusResetDelay();
 
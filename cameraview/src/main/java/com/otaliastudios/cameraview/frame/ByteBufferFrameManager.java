@@ -5,10 +5,9 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.otaliastudios.cameraview.engine.offset.Angles;
+import com.otaliastudios.cameraview.internal.RingBuffer;
 import com.otaliastudios.cameraview.size.Size;
 
-import java.util.concurrent.LinkedBlockingQueue;
-
 /**
  * This class manages the allocation of byte buffers and {@link Frame} objects.
  * We are interested in recycling both of them, especially byte[] buffers which can create a lot
@@ -55,7 +54,7 @@ public class ByteBufferFrameManager extends FrameManager<byte[]> {
      */
     private final static int BUFFER_MODE_ENQUEUE = 1;
 
-    private LinkedBlockingQueue<byte[]> mBufferQueue;
+    private RingBuffer<byte[]> mBufferQueue;
     private BufferCallback mBufferCallback;
     private final int mBufferMode;
 
@@ -73,7 +72,7 @@ public class ByteBufferFrameManager extends FrameManager<byte[]> {
             mBufferCallback = callback;
             mBufferMode = BUFFER_MODE_DISPATCH;
         } else {
-            mBufferQueue = new LinkedBlockingQueue<>(poolSize);
+            mBufferQueue = new RingBuffer<>(poolSize);
             mBufferMode = BUFFER_MODE_ENQUEUE;
         }
     }
@@ -83,7 +82,8 @@ public class ByteBufferFrameManager extends FrameManager<byte[]> {
     public void setUp(int format, @NonNull Size size, @NonNull Angles angles) {
         super.setUp(format, size, angles);
         int bytes = getFrameBytes();
-        for (int i = 0; i < getPoolSize(); i++) {
+        int buffers = reserveFrameBuffers(getPoolSize(), bytes);
+        for (int i = 0; i < buffers; i++) {
             if (mBufferMode == BUFFER_MODE_DISPATCH) {
                 mBufferCallback.onBufferAvailable(new byte[bytes]);
             } else {
@@ -143,11 +143,16 @@ public class ByteBufferFrameManager extends FrameManager<byte[]> {
     @NonNull
     @Override
     protected byte[] onCloneFrameData(@NonNull byte[] data) {
-        byte[] clone = new byte[data.length];
+        byte[] clone = getFreezeBuffer(data.length);
         System.arraycopy(data, 0, clone, 0, data.length);
         return clone;
     }
 
+    @Override
+    protected void onFrozenFrameDataReleased(@NonNull byte[] data) {
+        onFreezeBufferReleased(data);
+    }
+
     /**
      * Releases all frames controlled by this manager and
      * clears the pool.
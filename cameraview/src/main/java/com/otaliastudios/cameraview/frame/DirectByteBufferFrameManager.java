@@ -0,0 +1,192 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.otaliastudios.cameraview.engine.offset.Angles;
+import com.otaliastudios.cameraview.internal.MemoryBudget;
+import com.otaliastudios.cameraview.internal.RingBuffer;
+import com.otaliastudios.cameraview.internal.SlabAllocator;
+import com.otaliastudios.cameraview.size.Size;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link FrameManager} whose frames hold direct (off-heap) {@link ByteBuffer}s,
+ * so that they can be passed to NIO channels or native code without further copies.
+ *
+ * Camera1 can only fill byte[] buffers, so this manager owns a small, fixed number of them
+ * ({@link #CAMERA_BUFFERS}) that are dispatched to the {@link ByteBufferFrameManager.BufferCallback}.
+ * When the camera fills one, {@link #getFrame(byte[], long)} copies it into a pooled direct
+ * buffer and gives the array back to the callback right away. This means that the heap
+ * footprint does not depend on the pool size or on how long frames are retained, and that
+ * nothing is allocated in the steady state.
+ *
+ * The direct buffers of {@link Frame#getData()} are positioned at 0, with a limit equal
+ * to {@link #getFrameBytes()}, and use the native byte order. They are leased from the
+ * {@link SlabAllocator}, so their capacity can be bigger than the frame, and they are
+ * reused across sessions, even if the frame size changes within the same size class.
+ *
+ * When the {@link MemoryBudget} is exceeded, fewer direct buffers are allocated, which
+ * shrinks the pool, and frames that do not fit can not be frozen.
+ */
+public class DirectByteBufferFrameManager extends FrameManager<ByteBuffer> {
+
+    /**
+     * The number of byte[] buffers handed to the camera: one being filled,
+     * and one ready for the next frame.
+     */
+    private final static int CAMERA_BUFFERS = 2;
+
+    private final ByteBufferFrameManager.BufferCallback mBufferCallback;
+    private final RingBuffer<ByteBuffer> mBufferQueue;
+    private final RingBuffer<ByteBuffer> mFreezeBufferQueue;
+
+    /**
+     * Construct a new frame manager.
+     * The construction must be followed by an {@link FrameManager#setUp(int, Size, Angles)} call
+     * as soon as the parameters are known.
+     *
+     * @param poolSize the size of the backing pool.
+     * @param callback a callback that receives the camera buffers
+     */
+    public DirectByteBufferFrameManager(int poolSize,
+                                        @NonNull ByteBufferFrameManager.BufferCallback callback) {
+        super(poolSize, ByteBuffer.class);
+        mBufferCallback = callback;
+        mBufferQueue = new RingBuffer<>(poolSize);
+        mFreezeBufferQueue = new RingBuffer<>(poolSize);
+    }
+
+    @Override
+    public void setUp(int format, @NonNull Size size, @NonNull Angles angles) {
+        super.setUp(format, size, angles);
+        int bytes = getFrameBytes();
+        // The first buffer is always allocated, so that frames keep flowing.
+        mBufferQueue.offer(SlabAllocator.get().lease(bytes).order(ByteOrder.nativeOrder()));
+        for (int i = 1; i < getPoolSize(); i++) {
+            ByteBuffer buffer = tryAllocate(bytes);
+            if (buffer == null) {
+                LOG.w("setUp: memory budget exceeded. Allocating", i,
+                        "direct buffers instead of", getPoolSize());
+                break;
+            }
+            mBufferQueue.offer(buffer);
+        }
+        int cameraBuffers = reserveFrameBuffers(CAMERA_BUFFERS, bytes);
+        for (int i = 0; i < cameraBuffers; i++) {
+            mBufferCallback.onBufferAvailable(new byte[bytes]);
+        }
+    }
+
+    @Nullable
+    private static ByteBuffer tryAllocate(int bytes) {
+        ByteBuffer buffer = SlabAllocator.get().tryLease(bytes);
+        return buffer == null ? null : buffer.order(ByteOrder.nativeOrder());
+    }
+
+    private static boolean fits(@NonNull ByteBuffer buffer, int bytes) {
+        return buffer.capacity() == SlabAllocator.sizeClass(bytes);
+    }
+
+    private static void drain(@NonNull RingBuffer<ByteBuffer> queue) {
+        ByteBuffer buffer;
+        while ((buffer = queue.poll()) != null) {
+            SlabAllocator.get().release(buffer);
+        }
+    }
+
+    /**
+     * Returns a new Frame for the given camera buffer. Data is copied into a pooled
+     * direct buffer, and the camera buffer is given back to the callback before returning,
+     * so it can be filled again while the frame is being processed.
+     *
+     * Returns null if no direct buffer is available, which happens when all frames
+     * are busy.
+     *
+     * @param data the camera buffer
+     * @param time timestamp
+     * @return a new frame, or null
+     */
+    @Nullable
+    public Frame getFrame(@NonNull byte[] data, long time) {
+        if (!isSetUp()) {
+            throw new IllegalStateException("Can't call getFrame() after releasing " +
+                    "or before setUp.");
+        }
+        int bytes = getFrameBytes();
+        if (data.length != bytes) {
+            // Buffer from an old setUp. Drop it, the camera has new ones.
+            return null;
+        }
+        ByteBuffer buffer = mBufferQueue.poll();
+        if (buffer != null) {
+            buffer.clear();
+            buffer.put(data, 0, bytes);
+            buffer.flip();
+        }
+        mBufferCallback.onBufferAvailable(data);
+        if (buffer == null) {
+            LOG.iValues("getFrame: NO BUFFER AVAILABLE. time:", time);
+            return null;
+        }
+        // If no frame is available, the buffer goes back to the queue.
+        return getFrame(buffer, time);
+    }
+
+    @Override
+    protected void onFrameDataReleased(@NonNull ByteBuffer data, boolean recycled) {
+        if (!isSetUp() || !fits(data, getFrameBytes()) || !mBufferQueue.offer(data)) {
+            SlabAllocator.get().release(data);
+        }
+    }
+
+    @NonNull
+    @Override
+    protected ByteBuffer onCloneFrameData(@NonNull ByteBuffer data) {
+        ByteBuffer source = data.duplicate();
+        source.rewind();
+        ByteBuffer clone = mFreezeBufferQueue.poll();
+        if (clone != null && !fits(clone, source.remaining())) {
+            SlabAllocator.get().release(clone);
+            clone = null;
+        }
+        if (clone == null) {
+            clone = tryAllocate(source.remaining());
+        }
+        if (clone == null) {
+            throw new IllegalStateException("Can't freeze() this frame: " + source.remaining()
+                    + " more bytes would exceed the memory budget. " + MemoryBudget.get());
+        }
+        clone.clear();
+        clone.put(source);
+        clone.flip();
+        return clone;
+    }
+
+    @Override
+    protected void onFrozenFrameDataReleased(@NonNull ByteBuffer data) {
+        if (!fits(data, getFrameBytes()) || !mFreezeBufferQueue.offer(data)) {
+            SlabAllocator.get().release(data);
+        }
+    }
+
+    @Override
+    protected void onTrimMemory() {
+        super.onTrimMemory();
+        drain(mFreezeBufferQueue);
+    }
+
+    /**
+     * Releases all frames controlled by this manager and
+     * clears the pool, giving direct buffers back to the {@link SlabAllocator}.
+     */
+    @Override
+    public void release() {
+        super.release();
+        drain(mBufferQueue);
+        drain(mFreezeBufferQueue);
+    }
+}
@@ -1,13 +1,17 @@
 package com.otaliastudios.cameraview.frame;
 
 import android.annotation.SuppressLint;
+import android.graphics.Rect;
 
 import com.otaliastudios.cameraview.CameraLogger;
 import com.otaliastudios.cameraview.controls.Engine;
+import com.otaliastudios.cameraview.engine.offset.Reference;
 import com.otaliastudios.cameraview.size.Size;
 
 import androidx.annotation.NonNull;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * A preview frame to be processed by {@link FrameProcessor}s.
  */
@@ -17,30 +21,40 @@ public class Frame {
     private final static CameraLogger LOG = CameraLogger.create(TAG);
 
     private final FrameManager mManager;
-    private final Class<?> mDataClass;
+    private Class<?> mDataClass;
+    private final AtomicInteger mRetainCount = new AtomicInteger(0);
+    private final LumaPyramid mPyramid;
+    private final FrameLatency mLatency = new FrameLatency();
 
     private Object mData = null;
     private long mTime = -1;
     private long mLastTime = -1;
+    private long mTimestamp = -1;
     private int mUserRotation = 0;
     private int mViewRotation = 0;
     private Size mSize = null;
     private int mFormat = -1;
+    private int mFrozenBytes = 0; // Non-zero for frozen frames
 
     Frame(@NonNull FrameManager manager) {
         mManager = manager;
         mDataClass = manager.getFrameDataClass();
+        mPyramid = new LumaPyramid(manager);
     }
 
-    void setContent(@NonNull Object data, long time, int userRotation, int viewRotation,
+    void setContent(@NonNull Object data, long time, long timestamp,
+                    int userRotation, int viewRotation,
                     @NonNull Size size, int format) {
         mData = data;
         mTime = time;
         mLastTime = time;
+        mTimestamp = timestamp;
+        mLatency.reset(timestamp, System.nanoTime());
         mUserRotation = userRotation;
         mViewRotation = viewRotation;
         mSize = size;
         mFormat = format;
+        mRetainCount.set(1);
     }
 
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
@@ -69,38 +83,236 @@ public class Frame {
      * This can be kept or safely passed to other threads.
      * Using freeze without clearing with {@link #release()} can result in memory leaks.
      *
+     * Freezing requires a full copy of the frame data. If you only need to keep this frame
+     * for a while, {@link #retain()} is much cheaper. Copies are made into pooled buffers,
+     * which are recycled when the frozen frame is released.
+     *
+     * Frames holding {@link android.media.Image}s in the
+     * {@link android.graphics.ImageFormat#YUV_420_888} format are frozen into
+     * {@link android.graphics.ImageFormat#NV21} byte arrays, so that the frozen frame does
+     * not keep the image open: {@link #getDataClass()} and {@link #getFormat()} of the frozen
+     * frame reflect this.
+     *
+     * If a freeze budget was set, this can throw an {@link IllegalStateException} when frozen
+     * frames already hold too much memory, or evict the oldest frozen frames to make room,
+     * depending on the budget configuration.
+     *
      * @return a frozen Frame
+     * @see FrameManager#setFreezeBudget(long, boolean)
      */
     @SuppressLint("NewApi")
     @NonNull
     public Frame freeze() {
         ensureHasContent();
+        int format = mManager.getFrozenFrameFormat(mFormat);
+        int bytes = FrameManager.computeFrameBytes(format, mSize);
+        mManager.onFrameFreezing(bytes);
         Frame other = new Frame(mManager);
-        //noinspection unchecked
-        Object data = mManager.cloneFrameData(getData());
-        other.setContent(data, mTime, mUserRotation, mViewRotation, mSize, mFormat);
+        Object data;
+        try {
+            //noinspection unchecked
+            data = mManager.freezeFrameData(getData(), mFormat, mSize);
+        } catch (RuntimeException e) {
+            mManager.onFrameFreezeFailed(bytes);
+            throw e;
+        }
+        other.setContent(data, mTime, mTimestamp, mUserRotation, mViewRotation, mSize, format);
+        other.mLatency.copy(mLatency);
+        other.mDataClass = mManager.getFrozenFrameDataClass();
+        other.mFrozenBytes = bytes;
+        mManager.onFrameFrozen(other);
         return other;
     }
 
     /**
-     * Disposes the contents of this frame. Can be useful for frozen frames
-     * that are not useful anymore.
+     * Acquires a new reference to this frame, so that its contents are not released
+     * until a matching {@link #release()} call. Unlike {@link #freeze()}, no data is copied:
+     * the frame keeps the camera buffer (or {@link android.media.Image}) for as long as
+     * there are holders, so it can be passed to other threads at no cost.
+     *
+     * Each retain() call must be balanced by a {@link #release()} call. Note that retained
+     * frames are not available to the camera engine, so holding them for too long will
+     * cause new frames to be dropped.
+     *
+     * @return this frame
+     */
+    @NonNull
+    public Frame retain() {
+        int count;
+        do {
+            count = mRetainCount.get();
+            if (count <= 0) {
+                ensureHasContent();
+                // Content is being disposed on another thread.
+                throw new IllegalStateException("You should not retain a released frame.");
+            }
+        } while (!mRetainCount.compareAndSet(count, count + 1));
+        return this;
+    }
+
+    /**
+     * Releases one reference to this frame. When the last reference is released,
+     * the frame contents are disposed and this instance goes back to the pool.
+     * Can be useful for frozen frames that are not useful anymore, and must be
+     * called once for each {@link #retain()} call.
      */
     public void release() {
         if (!hasContent()) return;
-        LOG.v("Frame with time", mTime, "is being released.");
+        int count = mRetainCount.decrementAndGet();
+        if (count > 0) {
+            LOG.vValues("Frame with time", mTime, "was released, but is still retained:", count);
+            return;
+        } else if (count < 0) {
+            LOG.w("Frame with time", mTime, "was released more times than retained.");
+            return;
+        }
+        dispose();
+    }
+
+    /**
+     * Releases this frozen frame so that its memory can be used by new frozen frames,
+     * unless it was retained: in that case, someone might be reading its data.
+     * @return true if evicted
+     */
+    boolean evict() {
+        if (!mRetainCount.compareAndSet(1, 0)) return false;
+        LOG.w("Frozen frame with time", mTime, "was evicted to respect the freeze budget.");
+        dispose();
+        return true;
+    }
+
+    private void dispose() {
+        mLatency.onReleased(System.nanoTime());
+        mPyramid.release();
         Object data = mData;
         mData = null;
         mUserRotation = 0;
         mViewRotation = 0;
         mTime = -1;
+        mTimestamp = -1;
         mSize = null;
         mFormat = -1;
         // After the manager is notified, this frame instance can be taken by
         // someone else, possibly from another thread. So this should be the
         // last call in this method. If we null data after, we can have issues.
-        //noinspection unchecked
-        mManager.onFrameReleased(this, data);
+        if (mFrozenBytes > 0) {
+            //noinspection unchecked
+            mManager.onFrozenFrameReleased(this, data, mFrozenBytes);
+        } else {
+            //noinspection unchecked
+            mManager.onFrameReleased(this, data);
+        }
+    }
+
+    /**
+     * Returns a view over the whole frame, in sensor orientation, without copying data.
+     * The view exposes the Y, U and V planes as buffers with their row and pixel strides,
+     * whether this frame holds a Camera1 array or a Camera2 {@link android.media.Image},
+     * so the same processing code can be used with both engines.
+     *
+     * The view is only valid as long as this frame is.
+     *
+     * @return a view
+     * @see FrameView
+     */
+    @NonNull
+    public FrameView view() {
+        ensureHasContent();
+        return view(new Rect(0, 0, mSize.getWidth(), mSize.getHeight()));
+    }
+
+    /**
+     * Returns a view over the given region of this frame, without copying data.
+     * The region is in sensor coordinates, that is, the same coordinates as
+     * {@link #getSize()} and {@link #getData()}.
+     *
+     * This is only supported for {@link android.graphics.ImageFormat#NV21} byte arrays or
+     * buffers, and {@link android.graphics.ImageFormat#YUV_420_888} images. The view is only
+     * valid as long as this frame is.
+     *
+     * @param rect the region of interest
+     * @return a view
+     * @see FrameView
+     */
+    @NonNull
+    public FrameView view(@NonNull Rect rect) {
+        return view(rect, Reference.SENSOR);
+    }
+
+    /**
+     * Returns a view over the given region of this frame, without copying data.
+     * The region is expressed in the given reference:
+     * - {@link Reference#SENSOR}: same coordinates as {@link #getSize()}
+     * - {@link Reference#OUTPUT}: coordinates of the frame as the user sees it, that is,
+     *   after applying {@link #getRotationToUser()}
+     * - {@link Reference#VIEW}: coordinates of the frame after applying
+     *   {@link #getRotationToView()}
+     *
+     * @param rect the region of interest
+     * @param reference the reference of rect
+     * @return a view
+     * @see FrameView
+     */
+    @NonNull
+    public FrameView view(@NonNull Rect rect, @NonNull Reference reference) {
+        return view(rect, reference, false);
+    }
+
+    /**
+     * Same as {@link #view(Rect, Reference)}, but the returned view only includes
+     * the luma (Y) plane. This is all that most detectors, like barcode or text
+     * scanners, need.
+     *
+     * @param rect the region of interest
+     * @param reference the reference of rect
+     * @return a luma view
+     * @see FrameView
+     */
+    @NonNull
+    public FrameView viewLuma(@NonNull Rect rect, @NonNull Reference reference) {
+        return view(rect, reference, true);
+    }
+
+    /**
+     * Returns a downsampled version of the luma plane of this frame, in sensor orientation.
+     * Level 0 is the full luma plane, and each following level halves both dimensions,
+     * with each pixel being the average of a 2x2 block of the previous level.
+     * The max level is 6.
+     *
+     * Levels are computed the first time they are requested, and then shared with all the
+     * processors receiving this frame, so coarse-to-fine processors do not repeat the same
+     * work. Level buffers are pooled and go back to the pool when the frame is released,
+     * so the returned view is only valid as long as this frame is.
+     *
+     * @param level the pyramid level
+     * @return a luma view
+     */
+    @NonNull
+    public FrameView getLumaLevel(int level) {
+        ensureHasContent();
+        return mPyramid.get(this, level);
+    }
+
+    @NonNull
+    private FrameView view(@NonNull Rect rect, @NonNull Reference reference, boolean lumaOnly) {
+        ensureHasContent();
+        return new FrameView(mData, mSize, mFormat, rect, getRotation(reference), lumaOnly);
+    }
+
+    /**
+     * Returns the clock-wise rotation that brings the data array to the given reference.
+     * @param reference one of {@link Reference#SENSOR}, {@link Reference#OUTPUT}
+     *                  or {@link Reference#VIEW}
+     * @return clock-wise rotation
+     */
+    int getRotation(@NonNull Reference reference) {
+        ensureHasContent();
+        switch (reference) {
+            case SENSOR: return 0;
+            case OUTPUT: return mUserRotation;
+            case VIEW: return mViewRotation;
+            default: throw new IllegalArgumentException("Unsupported reference: " + reference);
+        }
     }
 
     /**
@@ -117,8 +329,10 @@ public class Frame {
     /**
      * Returns the class returned by {@link #getData()}.
      * This class depends on the engine that produced this frame.
-     * - {@link Engine#CAMERA1} will produce byte[] arrays
-     * - {@link Engine#CAMERA2} will produce {@link android.media.Image}s
+     * - {@link Engine#CAMERA1} will produce byte[] arrays, or direct
+     *   {@link java.nio.ByteBuffer}s if direct buffers were requested
+     * - {@link Engine#CAMERA2} will produce {@link android.media.Image}s, which are
+     *   converted to byte[] arrays by {@link #freeze()}
      * @return the data class
      */
     @NonNull
@@ -137,6 +351,36 @@ public class Frame {
         return mTime;
     }
 
+    /**
+     * Returns the time at which this frame was captured, in nanoseconds, in the
+     * {@link System#nanoTime()} reference. Unlike {@link #getTime()}, this is monotonic and
+     * has nanosecond precision, so it should be used to measure intervals and latency.
+     *
+     * For {@link Engine#CAMERA2}, this is the sensor timestamp of the image, converted to
+     * the {@link System#nanoTime()} reference if needed. Camera1 does not expose the sensor
+     * timestamp, so {@link Engine#CAMERA1} uses the time at which the frame was received.
+     *
+     * @return the capture time
+     */
+    public long getTimestamp() {
+        ensureHasContent();
+        return mTimestamp;
+    }
+
+    /**
+     * Returns the stage timestamps of this frame, which can be used to break down
+     * latency from capture to the end of processing. The returned object belongs to
+     * this frame, and is only valid as long as this frame is.
+     *
+     * @return the frame latency
+     * @see FrameProcessingStats
+     */
+    @NonNull
+    public FrameLatency getLatency() {
+        ensureHasContent();
+        return mLatency;
+    }
+
     /**
      * @deprecated use {@link #getRotationToUser()} instead
      */
@@ -0,0 +1,155 @@
+package com.otaliastudios.cameraview.frame;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The stage timestamps of a {@link Frame}, as returned by {@link Frame#getLatency()}.
+ * All values are in the {@link System#nanoTime()} reference, so they can be compared to each
+ * other and to {@link Frame#getTimestamp()}. Stages that were not reached yet return -1.
+ *
+ * The stages are:
+ * - capture: when the sensor captured the frame, same as {@link Frame#getTimestamp()}
+ * - acquired: when the engine received the frame
+ * - dispatched: when the frame was dispatched to processors
+ * - started: when the first processor started processing the frame
+ * - processed: when each processor returned, in completion order
+ * - released: when the last reference to the frame was released
+ *
+ * Instances are pooled together with their frame, so recording is allocation-free. Values can
+ * be read by processors while the frame is valid, and are aggregated by
+ * {@link FrameProcessingStats} when the frame is released.
+ */
+public final class FrameLatency {
+
+    /**
+     * The max number of processor timestamps kept for each frame.
+     */
+    public final static int MAX_PROCESSORS = 8;
+
+    private volatile long mCaptureNanos = -1;
+    private volatile long mAcquiredNanos = -1;
+    private volatile long mDispatchedNanos = -1;
+    private volatile long mReleasedNanos = -1;
+    private final AtomicLong mStartedNanos = new AtomicLong(-1);
+    private final AtomicLong mLastProcessedNanos = new AtomicLong(-1);
+    private final AtomicLongArray mProcessedNanos = new AtomicLongArray(MAX_PROCESSORS);
+    private final AtomicInteger mProcessedCount = new AtomicInteger(0);
+    private volatile FrameProcessingStats mStats;
+
+    FrameLatency() {}
+
+    void reset(long captureNanos, long acquiredNanos) {
+        mCaptureNanos = captureNanos;
+        mAcquiredNanos = acquiredNanos;
+        mDispatchedNanos = -1;
+        mReleasedNanos = -1;
+        mStartedNanos.set(-1);
+        mLastProcessedNanos.set(-1);
+        mProcessedCount.set(0);
+        mStats = null;
+    }
+
+    void copy(@NonNull FrameLatency other) {
+        reset(other.mCaptureNanos, other.mAcquiredNanos);
+    }
+
+    void onDispatched(@Nullable FrameProcessingStats stats, long nanos) {
+        mDispatchedNanos = nanos;
+        mStats = stats;
+    }
+
+    void onStarted(long nanos) {
+        mStartedNanos.compareAndSet(-1, nanos);
+    }
+
+    void onProcessed(long nanos) {
+        int index = mProcessedCount.getAndIncrement();
+        if (index < MAX_PROCESSORS) mProcessedNanos.set(index, nanos);
+        long last;
+        do {
+            last = mLastProcessedNanos.get();
+        } while (nanos > last && !mLastProcessedNanos.compareAndSet(last, nanos));
+    }
+
+    void onReleased(long nanos) {
+        mReleasedNanos = nanos;
+        FrameProcessingStats stats = mStats;
+        mStats = null;
+        if (stats != null) stats.onFrameReleased(this);
+    }
+
+    /**
+     * Returns the time at which the sensor captured the frame.
+     * @return the capture time
+     */
+    public long getCaptureNanos() {
+        return mCaptureNanos;
+    }
+
+    /**
+     * Returns the time at which the engine received the frame.
+     * @return the acquisition time
+     */
+    public long getAcquiredNanos() {
+        return mAcquiredNanos;
+    }
+
+    /**
+     * Returns the time at which the frame was dispatched to processors.
+     * @return the dispatch time, or -1
+     */
+    public long getDispatchedNanos() {
+        return mDispatchedNanos;
+    }
+
+    /**
+     * Returns the time at which the first processor started processing the frame.
+     * @return the start time, or -1
+     */
+    public long getStartedNanos() {
+        return mStartedNanos.get();
+    }
+
+    /**
+     * Returns the number of processors that returned so far, up to {@link #MAX_PROCESSORS}.
+     * @return the processed count
+     */
+    public int getProcessedCount() {
+        return Math.min(MAX_PROCESSORS, mProcessedCount.get());
+    }
+
+    /**
+     * Returns the time at which a processor returned.
+     * @param index the completion index, less than {@link #getProcessedCount()}
+     * @return the end time
+     */
+    public long getProcessedNanos(int index) {
+        if (index < 0 || index >= getProcessedCount()) {
+            throw new IndexOutOfBoundsException("Index: " + index
+                    + ", count: " + getProcessedCount());
+        }
+        return mProcessedNanos.get(index);
+    }
+
+    /**
+     * Returns the time at which the last processor returned.
+     * @return the end time, or -1
+     */
+    public long getLastProcessedNanos() {
+        return mLastProcessedNanos.get();
+    }
+
+    /**
+     * Returns the time at which the frame was released. Since frames can not be accessed
+     * after release, this is only useful to {@link FrameProcessingStats}.
+     * @return the release time, or -1
+     */
+    public long getReleasedNanos() {
+        return mReleasedNanos;
+    }
+}
@@ -7,16 +7,27 @@ import com.otaliastudios.cameraview.CameraLogger;
 import com.otaliastudios.cameraview.engine.offset.Angles;
 import com.otaliastudios.cameraview.engine.offset.Axis;
 import com.otaliastudios.cameraview.engine.offset.Reference;
+import com.otaliastudios.cameraview.internal.MemoryBudget;
+import com.otaliastudios.cameraview.internal.RingBuffer;
 import com.otaliastudios.cameraview.size.Size;
 
+import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class manages the allocation of {@link Frame} objects.
  * The FrameManager keeps a {@link #mPoolSize} integer that defines the number of instances to keep.
+ * Recycled instances are kept in a preallocated {@link RingBuffer}, so that getting and releasing
+ * frames does not allocate or lock in the steady state.
  *
  * Main methods are:
  * - {@link #setUp(int, Size, Angles)}: to set up with size and allocate buffers
@@ -24,7 +35,17 @@ import java.util.concurrent.LinkedBlockingQueue;
  * - {@link #getFrame(Object, long)}: gets a new {@link Frame}.
  *
  * For frames to get back to the FrameManager pool, all you have to do
- * is call {@link Frame#release()} when done.
+ * is call {@link Frame#release()} when done. Frames that were retained through
+ * {@link Frame#retain()} will only get back to the pool after the last release.
+ *
+ * Frames created by {@link Frame#freeze()} do not belong to the pool, but their data is
+ * recycled when they are released. The total size of frozen frames can be limited with
+ * {@link #setFreezeBudget(long, boolean)}.
+ *
+ * Buffers are also accounted in the process-wide {@link MemoryBudget}: subclasses reserve
+ * their frame buffers through {@link #reserveFrameBuffers(int, int)}, which can shrink the
+ * pool, and freezing fails when the copy does not fit. While set up, the manager is registered
+ * with the budget, which can trim recycled buffers through {@link #onTrimMemory()}.
  */
 public abstract class FrameManager<T> {
 
@@ -36,7 +57,22 @@ public abstract class FrameManager<T> {
     private Size mFrameSize = null;
     private int mFrameFormat = -1;
     private final Class<T> mFrameDataClass;
-    private LinkedBlockingQueue<Frame> mFrameQueue;
+    private final RingBuffer<Frame> mFrameQueue;
+    private final ConcurrentMap<Integer, RingBuffer<byte[]>> mLumaBuffers
+            = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, RingBuffer<byte[]>> mFreezeBuffers
+            = new ConcurrentHashMap<>();
+    private final Queue<Frame> mFrozenFrames = new ConcurrentLinkedQueue<>();
+    private final AtomicLong mFrozenBytes = new AtomicLong(0);
+    private volatile long mFreezeBudget = 0;
+    private volatile boolean mFreezeEvictOldest = false;
+    private final AtomicLong mReservedBytes = new AtomicLong(0);
+    private final MemoryBudget.Component mBudgetComponent = new MemoryBudget.Component() {
+        @Override
+        public void trimMemory() {
+            onTrimMemory();
+        }
+    };
     private Angles mAngles;
 
 
@@ -50,7 +86,7 @@ public abstract class FrameManager<T> {
     protected FrameManager(int poolSize, @NonNull Class<T> dataClass) {
         mPoolSize = poolSize;
         mFrameDataClass = dataClass;
-        mFrameQueue = new LinkedBlockingQueue<>(mPoolSize);
+        mFrameQueue = new RingBuffer<>(mPoolSize);
     }
 
     /**
@@ -94,13 +130,64 @@ public abstract class FrameManager<T> {
         }
         mFrameSize = size;
         mFrameFormat = format;
-        int bitsPerPixel = ImageFormat.getBitsPerPixel(format);
-        long sizeInBits = size.getHeight() * size.getWidth() * bitsPerPixel;
-        mFrameBytes = (int) Math.ceil(sizeInBits / 8.0d);
+        mFrameBytes = computeFrameBytes(format, size);
         for (int i = 0; i < getPoolSize(); i++) {
             mFrameQueue.offer(new Frame(this));
         }
         mAngles = angles;
+        MemoryBudget.get().register(mBudgetComponent);
+    }
+
+    /**
+     * Reserves memory for up to the given number of frame buffers in the {@link MemoryBudget}.
+     * If they do not fit, this returns a smaller number, but never less than 1, so that frames
+     * keep flowing. Subclasses should allocate the returned number of buffers.
+     * Reservations are released by {@link #release()}.
+     *
+     * @param count the number of buffers
+     * @param bytes the size of each buffer
+     * @return the number of buffers that can be allocated
+     */
+    protected final int reserveFrameBuffers(int count, int bytes) {
+        MemoryBudget budget = MemoryBudget.get();
+        int reserved = 0;
+        while (reserved < count) {
+            if (reserved == 0) {
+                budget.reserve(bytes);
+            } else if (!budget.tryReserve(bytes)) {
+                break;
+            }
+            reserved++;
+        }
+        mReservedBytes.addAndGet((long) reserved * bytes);
+        if (reserved < count) {
+            LOG.w("reserveFrameBuffers: memory budget exceeded. Allocating", reserved,
+                    "buffers instead of", count);
+        }
+        return reserved;
+    }
+
+    /**
+     * Returns the size in bytes of a frame with the given format and size.
+     */
+    static int computeFrameBytes(int format, @NonNull Size size) {
+        int bitsPerPixel = getBitsPerPixel(format);
+        long sizeInBits = size.getHeight() * size.getWidth() * bitsPerPixel;
+        return (int) Math.ceil(sizeInBits / 8.0d);
+    }
+
+    /**
+     * Same as {@link ImageFormat#getBitsPerPixel(int)}, except that the formats used by the
+     * camera engines are resolved here, so that frames can be managed off-device.
+     */
+    private static int getBitsPerPixel(int format) {
+        switch (format) {
+            case ImageFormat.NV21:
+            case ImageFormat.YUV_420_888:
+                return 12;
+            default:
+                return ImageFormat.getBitsPerPixel(format);
+        }
     }
 
     /**
@@ -119,12 +206,53 @@ public abstract class FrameManager<T> {
      * - after {@link #setUp(int, Size, Angles)}, which sets the buffer size
      * - after the T data has been filled
      *
+     * The capture time of the frame is the current {@link System#nanoTime()}.
+     *
      * @param data data
      * @param time timestamp
      * @return a new frame
      */
     @Nullable
     public Frame getFrame(@NonNull T data, long time) {
+        return getFrame(data, time, System.nanoTime());
+    }
+
+    /**
+     * Same as {@link #getFrame(Object, long)}, but with the given capture time,
+     * as returned by {@link Frame#getTimestamp()}.
+     *
+     * @param data data
+     * @param time timestamp
+     * @param timestamp the capture time, in the {@link System#nanoTime()} reference
+     * @return a new frame
+     */
+    @Nullable
+    public Frame getFrame(@NonNull T data, long time, long timestamp) {
+        if (!isSetUp()) {
+            throw new IllegalStateException("Can't call getFrame() after releasing " +
+                    "or before setUp.");
+        }
+        int userRotation = mAngles.offset(Reference.SENSOR, Reference.OUTPUT,
+                Axis.RELATIVE_TO_SENSOR);
+        int viewRotation = mAngles.offset(Reference.SENSOR, Reference.VIEW,
+                Axis.RELATIVE_TO_SENSOR);
+        return getFrame(data, time, timestamp, userRotation, viewRotation);
+    }
+
+    /**
+     * Same as {@link #getFrame(Object, long, long)}, but with the given rotations instead of
+     * the ones computed from the {@link Angles}. Used to replay recorded frames.
+     *
+     * @param data data
+     * @param time timestamp
+     * @param timestamp the capture time, in the {@link System#nanoTime()} reference
+     * @param userRotation the rotation to user
+     * @param viewRotation the rotation to view
+     * @return a new frame
+     */
+    @Nullable
+    Frame getFrame(@NonNull T data, long time, long timestamp,
+                   int userRotation, int viewRotation) {
         if (!isSetUp()) {
             throw new IllegalStateException("Can't call getFrame() after releasing " +
                     "or before setUp.");
@@ -132,22 +260,20 @@ public abstract class FrameManager<T> {
 
         Frame frame = mFrameQueue.poll();
         if (frame != null) {
-            LOG.v("getFrame for time:", time, "RECYCLING.");
-            int userRotation = mAngles.offset(Reference.SENSOR, Reference.OUTPUT,
-                    Axis.RELATIVE_TO_SENSOR);
-            int viewRotation = mAngles.offset(Reference.SENSOR, Reference.VIEW,
-                    Axis.RELATIVE_TO_SENSOR);
-            frame.setContent(data, time, userRotation, viewRotation, mFrameSize, mFrameFormat);
+            // No logging here: varargs and boxing would allocate for every frame.
+            frame.setContent(data, time, timestamp, userRotation, viewRotation,
+                    mFrameSize, mFrameFormat);
             return frame;
         } else {
-            LOG.i("getFrame for time:", time, "NOT AVAILABLE.");
+            LOG.iValues("getFrame: NOT AVAILABLE. time:", time);
             onFrameDataReleased(data, false);
             return null;
         }
     }
 
     /**
-     * Called by child frames when they are released.
+     * Called by child frames when they are released, which happens when
+     * the last reference obtained through {@link Frame#retain()} is released.
      * @param frame the released frame
      */
     void onFrameReleased(@NonNull Frame frame, @NonNull T data) {
@@ -158,6 +284,231 @@ public abstract class FrameManager<T> {
         onFrameDataReleased(data, recycled);
     }
 
+    /**
+     * Returns a buffer for the given level of a {@link LumaPyramid}. Buffers are recycled
+     * through one ring per level, so that in the steady state no allocation happens.
+     * @param level the pyramid level
+     * @param bytes the buffer size
+     * @return a buffer
+     */
+    @NonNull
+    byte[] getLumaBuffer(int level, int bytes) {
+        RingBuffer<byte[]> buffers = mLumaBuffers.get(level);
+        byte[] buffer = buffers == null ? null : buffers.poll();
+        if (buffer == null || buffer.length != bytes) {
+            buffer = new byte[bytes];
+        }
+        return buffer;
+    }
+
+    /**
+     * Called by the {@link LumaPyramid} of child frames when they are released.
+     * @param level the pyramid level
+     * @param buffer the buffer
+     */
+    void onLumaBufferReleased(int level, @NonNull byte[] buffer) {
+        if (!isSetUp()) return;
+        getBufferRing(mLumaBuffers, level).offer(buffer);
+    }
+
+    /**
+     * Sets the max number of bytes that frozen frames can hold at any given time,
+     * or 0 for no limit, which is the default.
+     *
+     * When a {@link Frame#freeze()} call would exceed the budget, it either fails with an
+     * {@link IllegalStateException} or, if evictOldest is true, releases the oldest frozen
+     * frames until there is enough room. Evicted frames can not be accessed anymore.
+     * Frames that were retained through {@link Frame#retain()} are never evicted, so that
+     * their data is not reused while someone is reading it: if there are no other frames
+     * to evict, freezing fails.
+     *
+     * @param bytes the budget in bytes
+     * @param evictOldest whether to evict old frames instead of failing
+     */
+    public void setFreezeBudget(long bytes, boolean evictOldest) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Budget should be >= 0, got " + bytes);
+        }
+        mFreezeBudget = bytes;
+        mFreezeEvictOldest = evictOldest;
+    }
+
+    /**
+     * Returns the freeze budget in bytes, or 0 if there is no limit.
+     * @return the freeze budget
+     * @see #setFreezeBudget(long, boolean)
+     */
+    public long getFreezeBudget() {
+        return mFreezeBudget;
+    }
+
+    /**
+     * Returns whether old frozen frames are evicted when the budget is exceeded.
+     * @return true if evicting
+     * @see #setFreezeBudget(long, boolean)
+     */
+    public boolean getFreezeEvictOldest() {
+        return mFreezeEvictOldest;
+    }
+
+    /**
+     * Returns the number of bytes currently held by frozen frames.
+     * @return the frozen bytes
+     */
+    public long getFrozenBytes() {
+        return mFrozenBytes.get();
+    }
+
+    /**
+     * Called by {@link Frame#freeze()} before cloning data. Reserves the given number of bytes,
+     * evicting old frozen frames or throwing if this would exceed the budget.
+     * @param bytes the frozen frame size
+     */
+    void onFrameFreezing(int bytes) {
+        while (true) {
+            long budget = mFreezeBudget;
+            long current = mFrozenBytes.get();
+            if (budget == 0 || current + bytes <= budget) {
+                if (mFrozenBytes.compareAndSet(current, current + bytes)) return;
+                continue;
+            }
+            if (!mFreezeEvictOldest || bytes > budget || !evictOldestFrozenFrame()) {
+                throw new IllegalStateException("Can't freeze() this frame: frozen frames " +
+                        "hold " + current + " bytes, and " + bytes + " more would exceed " +
+                        "the budget of " + budget + " bytes. Please release frozen frames.");
+            }
+        }
+    }
+
+    /**
+     * Evicts the oldest frozen frame that was not retained.
+     * @return true if a frame was evicted
+     */
+    private boolean evictOldestFrozenFrame() {
+        for (Frame frame : mFrozenFrames) {
+            if (frame.evict()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Called by {@link Frame#freeze()} when the given bytes were reserved through
+     * {@link #onFrameFreezing(int)}, but the frame could not be frozen.
+     * @param bytes the frozen frame size
+     */
+    void onFrameFreezeFailed(int bytes) {
+        mFrozenBytes.addAndGet(-bytes);
+    }
+
+    /**
+     * Called by {@link Frame#freeze()} when a frame was frozen.
+     * @param frame the frozen frame
+     */
+    void onFrameFrozen(@NonNull Frame frame) {
+        mFrozenFrames.offer(frame);
+    }
+
+    /**
+     * Called by frozen frames when they are released or evicted.
+     * @param frame the released frame
+     * @param data the frame data
+     * @param bytes the frozen frame size
+     */
+    void onFrozenFrameReleased(@NonNull Frame frame, @NonNull Object data, int bytes) {
+        // Compare by identity: Frame.equals() only looks at the timestamp.
+        Iterator<Frame> iterator = mFrozenFrames.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == frame) {
+                iterator.remove();
+                break;
+            }
+        }
+        mFrozenBytes.addAndGet(-bytes);
+        if (isSetUp()) releaseFrozenFrameData(data);
+    }
+
+    /**
+     * Returns a buffer that frozen frames can use to hold a copy of the frame data.
+     * Buffers are recycled through one ring per size, so that freezing frames does not
+     * allocate in the steady state.
+     * @param bytes the buffer size
+     * @return a buffer
+     */
+    @NonNull
+    byte[] getFreezeBuffer(int bytes) {
+        RingBuffer<byte[]> buffers = mFreezeBuffers.get(bytes);
+        byte[] buffer = buffers == null ? null : buffers.poll();
+        if (buffer != null) return buffer;
+        if (!MemoryBudget.get().tryReserve(bytes)) {
+            throw new IllegalStateException("Can't freeze() this frame: " + bytes + " more " +
+                    "bytes would exceed the memory budget. " + MemoryBudget.get());
+        }
+        return new byte[bytes];
+    }
+
+    /**
+     * Gives back a buffer obtained through {@link #getFreezeBuffer(int)}.
+     * @param buffer the buffer
+     */
+    void onFreezeBufferReleased(@NonNull byte[] buffer) {
+        if (!isSetUp()) {
+            MemoryBudget.get().release(buffer.length);
+            return;
+        }
+        RingBuffer<byte[]> ring = getBufferRing(mFreezeBuffers, buffer.length);
+        if (!ring.offer(buffer)) {
+            MemoryBudget.get().release(buffer.length);
+        } else if (mFreezeBuffers.get(buffer.length) != ring) {
+            // The ring was removed by clearFreezeBuffers(), maybe after being drained.
+            // Take a buffer back so that its bytes are not lost with the ring.
+            byte[] stale = ring.poll();
+            if (stale != null) MemoryBudget.get().release(stale.length);
+        }
+    }
+
+    /**
+     * Returns the ring for the given key, creating it if needed. Buffers can be released
+     * from many threads at once, so if two rings are created, only one is kept and used
+     * by all of them: otherwise, buffers offered to the other ring would be lost.
+     */
+    @NonNull
+    private RingBuffer<byte[]> getBufferRing(
+            @NonNull ConcurrentMap<Integer, RingBuffer<byte[]>> rings, int key) {
+        RingBuffer<byte[]> ring = rings.get(key);
+        if (ring == null) {
+            RingBuffer<byte[]> newRing = new RingBuffer<>(getPoolSize());
+            ring = rings.putIfAbsent(key, newRing);
+            if (ring == null) ring = newRing;
+        }
+        return ring;
+    }
+
+    private void clearFreezeBuffers() {
+        // Remove each ring before draining it, so that buffers released meanwhile
+        // can tell that their ring is gone. See onFreezeBufferReleased().
+        for (Map.Entry<Integer, RingBuffer<byte[]>> entry : mFreezeBuffers.entrySet()) {
+            RingBuffer<byte[]> buffers = entry.getValue();
+            if (!mFreezeBuffers.remove(entry.getKey(), buffers)) continue;
+            byte[] buffer;
+            while ((buffer = buffers.poll()) != null) {
+                MemoryBudget.get().release(buffer.length);
+            }
+        }
+    }
+
+    /**
+     * Called by the {@link MemoryBudget}, possibly from another thread, when idle memory
+     * should be released, for example because the system is low on memory. By default,
+     * this drops the recycled buffers of frozen frames and luma pyramids. Frames
+     * and their buffers, which are needed for the preview, are not affected.
+     */
+    @CallSuper
+    protected void onTrimMemory() {
+        LOG.i("onTrimMemory: dropping recycled freeze and luma buffers.");
+        mLumaBuffers.clear();
+        clearFreezeBuffers();
+    }
+
     /**
      * Called when a Frame was released and its data is now available.
      * This might be called from old Frames that belong to an old 'setUp'
@@ -168,14 +519,61 @@ public abstract class FrameManager<T> {
      */
     protected abstract void onFrameDataReleased(@NonNull T data, boolean recycled);
 
+    /**
+     * Returns a frozen copy of the given data, to be used by {@link Frame#freeze()}.
+     * By default, this is a clone returned by {@link #onCloneFrameData(Object)}, but
+     * managers whose data can not be cloned can override this, together with
+     * {@link #getFrozenFrameDataClass()} and {@link #getFrozenFrameFormat(int)},
+     * to convert it to another class.
+     * @param data data
+     * @param format the frame format
+     * @param size the frame size
+     * @return the frozen data
+     */
     @NonNull
-    final T cloneFrameData(@NonNull T data) {
+    Object freezeFrameData(@NonNull T data, int format, @NonNull Size size) {
         return onCloneFrameData(data);
     }
 
+    /**
+     * Returns the class of the data returned by {@link #freezeFrameData(Object, int, Size)}.
+     * @return the frozen data class
+     */
+    @NonNull
+    Class<?> getFrozenFrameDataClass() {
+        return mFrameDataClass;
+    }
+
+    /**
+     * Returns the format of the data returned by {@link #freezeFrameData(Object, int, Size)}.
+     * @param format the frame format
+     * @return the frozen frame format
+     */
+    int getFrozenFrameFormat(int format) {
+        return format;
+    }
+
+    /**
+     * Recycles data returned by {@link #freezeFrameData(Object, int, Size)}.
+     * @param data the frozen data
+     */
+    void releaseFrozenFrameData(@NonNull Object data) {
+        //noinspection unchecked
+        onFrozenFrameDataReleased((T) data);
+    }
+
     @NonNull
     protected abstract T onCloneFrameData(@NonNull T data);
 
+    /**
+     * Called when a frozen Frame was released, so that the data obtained through
+     * {@link #onCloneFrameData(Object)} can be recycled for future clones.
+     * @param data data
+     */
+    protected void onFrozenFrameDataReleased(@NonNull T data) {
+        // Do nothing by default.
+    }
+
     /**
      * Releases all frames controlled by this manager and
      * clears the pool.
@@ -187,7 +585,11 @@ public abstract class FrameManager<T> {
         }
 
         LOG.i("release: Clearing the frame and buffer queue.");
+        MemoryBudget.get().unregister(mBudgetComponent);
         mFrameQueue.clear();
+        mLumaBuffers.clear();
+        clearFreezeBuffers();
+        MemoryBudget.get().release(mReservedBytes.getAndSet(0));
         mFrameBytes = -1;
         mFrameSize = null;
         mFrameFormat = -1;
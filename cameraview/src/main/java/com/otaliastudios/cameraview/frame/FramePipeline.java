@@ -0,0 +1,261 @@
+package com.otaliastudios.cameraview.frame;
+
+import com.otaliastudios.cameraview.CameraLogger;
+import com.otaliastudios.cameraview.CameraView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link FrameProcessor} that runs a chain of {@link FrameStage}s, each on its own thread.
+ * Stages are connected by bounded queues, so while a stage works on frame N, the previous
+ * stage can already work on frame N+1. This raises throughput on multi-core devices
+ * without raising the latency of each frame.
+ *
+ * Pipelines are created with {@link #builder(FrameStage)}:
+ * <pre>
+ * FramePipeline pipeline = FramePipeline.builder(convertStage) // Frame to Bitmap
+ *         .then(detectStage) // Bitmap to detections
+ *         .then(trackStage) // Detections to tracks
+ *         .then(renderStage) // Tracks to null
+ *         .build();
+ * cameraView.addFrameProcessor(pipeline);
+ * </pre>
+ *
+ * Each queue has a {@link FrameProcessingPolicy}. By default, the first stage only receives
+ * the latest frame, like {@link FrameProcessingPolicy#latestOnly()}, while the following
+ * stages block the previous one when they are busy, like
+ * {@link FrameProcessingPolicy#blockProducer(int)} with a capacity of 1.
+ * Items are processed in order, and stages are never called concurrently.
+ *
+ * Frames are retained until the first stage returns, and frames that are passed
+ * between stages are released after the stage that receives them. Outputs of other types
+ * that are dropped because of a policy are simply discarded.
+ */
+public final class FramePipeline implements FrameProcessor {
+
+    private final static String TAG = FramePipeline.class.getSimpleName();
+    private final static CameraLogger LOG = CameraLogger.create(TAG);
+    private final static AtomicInteger sCount = new AtomicInteger(1);
+
+    /**
+     * Starts building a pipeline whose first stage processes frames.
+     * Frames are passed to the first stage with {@link FrameProcessingPolicy#latestOnly()}.
+     *
+     * @param stage the first stage
+     * @param <O> the output type of the first stage
+     * @return a builder
+     */
+    @NonNull
+    public static <O> Builder<O> builder(@NonNull FrameStage<Frame, O> stage) {
+        return builder(stage, FrameProcessingPolicy.latestOnly());
+    }
+
+    /**
+     * Starts building a pipeline whose first stage processes frames, passed
+     * to the stage with the given policy.
+     *
+     * @param stage the first stage
+     * @param policy the policy of the frame queue
+     * @param <O> the output type of the first stage
+     * @return a builder
+     */
+    @NonNull
+    public static <O> Builder<O> builder(@NonNull FrameStage<Frame, O> stage,
+                                         @NonNull FrameProcessingPolicy policy) {
+        return new Builder<>(new ArrayList<Builder.Entry>(), stage, policy);
+    }
+
+    /**
+     * Builds a {@link FramePipeline}, one stage at a time.
+     *
+     * @param <I> the output type of the last stage, that is the input of the next one
+     */
+    public static final class Builder<I> {
+
+        private final static class Entry {
+            private final FrameStage<?, ?> stage;
+            private final FrameProcessingPolicy policy;
+
+            private Entry(@NonNull FrameStage<?, ?> stage, @NonNull FrameProcessingPolicy policy) {
+                this.stage = stage;
+                this.policy = policy;
+            }
+        }
+
+        private final List<Entry> mEntries;
+
+        private Builder(@NonNull List<Entry> entries,
+                        @NonNull FrameStage<?, ?> stage,
+                        @NonNull FrameProcessingPolicy policy) {
+            mEntries = new ArrayList<>(entries);
+            mEntries.add(new Entry(stage, policy));
+        }
+
+        /**
+         * Adds a stage that processes the output of the previous one. When this stage
+         * is busy, the previous one waits.
+         *
+         * @param stage the stage
+         * @param <O> the output type of the stage
+         * @return a builder
+         */
+        @NonNull
+        public <O> Builder<O> then(@NonNull FrameStage<? super I, O> stage) {
+            return then(stage, FrameProcessingPolicy.blockProducer(1));
+        }
+
+        /**
+         * Adds a stage that processes the output of the previous one, with the given
+         * policy for the queue of pending inputs.
+         *
+         * @param stage the stage
+         * @param policy the policy
+         * @param <O> the output type of the stage
+         * @return a builder
+         */
+        @NonNull
+        public <O> Builder<O> then(@NonNull FrameStage<? super I, O> stage,
+                                   @NonNull FrameProcessingPolicy policy) {
+            return new Builder<>(mEntries, stage, policy);
+        }
+
+        /**
+         * Creates the pipeline. Threads are started lazily, when the first frame comes.
+         * @return a new pipeline
+         */
+        @NonNull
+        public FramePipeline build() {
+            return new FramePipeline(mEntries);
+        }
+    }
+
+    private final Stage[] mStages;
+    private volatile boolean mReleased = false;
+
+    private FramePipeline(@NonNull List<Builder.Entry> entries) {
+        int id = sCount.getAndIncrement();
+        mStages = new Stage[entries.size()];
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Builder.Entry entry = entries.get(i);
+            Stage next = i == entries.size() - 1 ? null : mStages[i + 1];
+            //noinspection unchecked
+            mStages[i] = new Stage((FrameStage<Object, Object>) entry.stage, entry.policy, next,
+                    "FramePipeline #" + id + " stage " + i);
+        }
+    }
+
+    /**
+     * Passes the frame to the first stage. The frame is retained until the stage
+     * has processed it, so this returns immediately, unless the first stage was
+     * added with {@link FrameProcessingPolicy#blockProducer(int)}.
+     *
+     * @param frame the new frame
+     */
+    @Override
+    public void process(@NonNull Frame frame) {
+        if (mReleased) return;
+        frame.retain();
+        mStages[0].dispatch(frame);
+    }
+
+    /**
+     * Returns the number of stages.
+     * @return the stage count
+     */
+    public int getStageCount() {
+        return mStages.length;
+    }
+
+    /**
+     * Returns the histogram of the time spent in {@link FrameStage#process(Object)}
+     * by the given stage.
+     * @param index the stage index, in the order they were added
+     * @return the latency histogram
+     */
+    @NonNull
+    public LatencyHistogram getStageLatency(int index) {
+        return mStages[index].mLatency;
+    }
+
+    /**
+     * Returns the number of inputs that were dropped before reaching the given stage,
+     * because of its policy.
+     * @param index the stage index, in the order they were added
+     * @return the dropped inputs
+     */
+    public long getStageDroppedInputs(int index) {
+        return mStages[index].mDropped.get();
+    }
+
+    /**
+     * Releases this pipeline. Inputs being processed are completed, while pending inputs
+     * are dropped. Frames passed to {@link #process(Frame)} after this call are ignored.
+     * If the pipeline was added to a {@link CameraView}, it should be removed first.
+     */
+    public void release() {
+        mReleased = true;
+        for (Stage stage : mStages) {
+            stage.release();
+        }
+    }
+
+    /**
+     * A {@link FrameProcessorLane} that runs a single stage and passes
+     * its outputs to the next one.
+     */
+    private static final class Stage extends FrameProcessorLane<Object> {
+
+        private final FrameStage<Object, Object> mStage;
+        private final Stage mNext;
+        private final LatencyHistogram mLatency = new LatencyHistogram();
+        private final AtomicLong mDropped = new AtomicLong(0);
+
+        private Stage(@NonNull FrameStage<Object, Object> stage,
+                      @NonNull FrameProcessingPolicy policy,
+                      @Nullable Stage next,
+                      @NonNull String name) {
+            super(policy, name);
+            mStage = stage;
+            mNext = next;
+        }
+
+        @Override
+        void onProcess(@NonNull Object input) {
+            Object output = null;
+            long start = System.nanoTime();
+            try {
+                output = mStage.process(input);
+            } catch (Exception e) {
+                LOG.w("Frame stage crashed:", e);
+            } finally {
+                mLatency.record(System.nanoTime() - start);
+                onDiscard(input);
+            }
+            if (output != null) {
+                if (mNext != null) {
+                    mNext.dispatch(output);
+                } else {
+                    onDiscard(output);
+                }
+            }
+        }
+
+        @Override
+        void onDropped(@NonNull Object input) {
+            mDropped.incrementAndGet();
+        }
+
+        @Override
+        void onDiscard(@NonNull Object input) {
+            if (input instanceof Frame) {
+                ((Frame) input).release();
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.otaliastudios.cameraview.frame;
+
+import com.otaliastudios.cameraview.CameraView;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Defines what happens when frames are produced faster than a {@link FrameProcessor}
+ * can process them. Policies are passed to
+ * {@link CameraView#addFrameProcessor(FrameProcessor, FrameProcessingPolicy)}.
+ *
+ * Processors registered with a policy get their own queue of pending frames, whose
+ * capacity and overflow behavior is defined here. Use one of the static factory methods
+ * to create a policy:
+ * - {@link #latestOnly()}: only the freshest frame is kept, older ones are dropped
+ * - {@link #dropNewest()}: while a frame is pending, incoming frames are dropped
+ * - {@link #boundedQueue(int)}: up to N frames are kept, then incoming frames are dropped
+ * - {@link #blockProducer(int)}: up to N frames are kept, then the camera is blocked
+ *
+ * Note that pending frames are retained, so they are not available to the camera engine.
+ * Large queues should be tuned together with {@link CameraView#setFrameProcessingPoolSize(int)}.
+ */
+public final class FrameProcessingPolicy {
+
+    /**
+     * When the queue is full, the oldest pending frame is dropped.
+     */
+    final static int OVERFLOW_DROP_OLDEST = 0;
+
+    /**
+     * When the queue is full, the incoming frame is dropped.
+     */
+    final static int OVERFLOW_DROP_NEWEST = 1;
+
+    /**
+     * When the queue is full, the producer waits until there is space.
+     */
+    final static int OVERFLOW_BLOCK = 2;
+
+    final static FrameProcessingPolicy UNBOUNDED
+            = new FrameProcessingPolicy(Integer.MAX_VALUE, OVERFLOW_DROP_NEWEST);
+
+    /**
+     * Only the most recent frame is kept: when a new frame comes while another one is
+     * pending, the pending one is dropped. This ensures that the processor never
+     * processes stale frames, and is a good choice for detectors.
+     *
+     * @return a policy
+     */
+    @NonNull
+    public static FrameProcessingPolicy latestOnly() {
+        return new FrameProcessingPolicy(1, OVERFLOW_DROP_OLDEST);
+    }
+
+    /**
+     * At most one frame is kept: when a new frame comes while another one is pending,
+     * the new frame is dropped.
+     *
+     * @return a policy
+     */
+    @NonNull
+    public static FrameProcessingPolicy dropNewest() {
+        return new FrameProcessingPolicy(1, OVERFLOW_DROP_NEWEST);
+    }
+
+    /**
+     * Up to capacity frames are kept in a queue and processed in order.
+     * When the queue is full, incoming frames are dropped.
+     *
+     * @param capacity the queue capacity
+     * @return a policy
+     */
+    @NonNull
+    public static FrameProcessingPolicy boundedQueue(int capacity) {
+        return new FrameProcessingPolicy(capacity, OVERFLOW_DROP_NEWEST);
+    }
+
+    /**
+     * Up to capacity frames are kept in a queue and processed in order.
+     * When the queue is full, the camera thread is blocked until the processor
+     * catches up, so no frame is dropped for this processor. This will slow down
+     * the whole frame pipeline, so use with care.
+     *
+     * @param capacity the queue capacity
+     * @return a policy
+     */
+    @NonNull
+    public static FrameProcessingPolicy blockProducer(int capacity) {
+        return new FrameProcessingPolicy(capacity, OVERFLOW_BLOCK);
+    }
+
+    private final int mCapacity;
+    private final int mOverflow;
+
+    private FrameProcessingPolicy(int capacity, int overflow) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity should be at least 1, got " + capacity);
+        }
+        mCapacity = capacity;
+        mOverflow = overflow;
+    }
+
+    /**
+     * Returns the max number of pending frames.
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    int getOverflow() {
+        return mOverflow;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof FrameProcessingPolicy
+                && ((FrameProcessingPolicy) obj).mCapacity == mCapacity
+                && ((FrameProcessingPolicy) obj).mOverflow == mOverflow;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * mCapacity + mOverflow;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        String overflow;
+        switch (mOverflow) {
+            case OVERFLOW_DROP_OLDEST: overflow = "dropOldest"; break;
+            case OVERFLOW_DROP_NEWEST: overflow = "dropNewest"; break;
+            default: overflow = "block"; break;
+        }
+        return "FrameProcessingPolicy(capacity=" + mCapacity + ", overflow=" + overflow + ")";
+    }
+}
@@ -0,0 +1,90 @@
+package com.otaliastudios.cameraview.frame;
+
+import com.otaliastudios.cameraview.CameraView;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Records frame processing events into the {@link FrameProcessingStats} it owns.
+ * This is used by {@link CameraView} and {@link FrameProcessorLane}, so that the stats
+ * returned by {@link CameraView#getFrameProcessingStats()} can only be read.
+ */
+public final class FrameProcessingRecorder {
+
+    private final FrameProcessingStats mStats = new FrameProcessingStats();
+
+    /**
+     * Returns the stats this recorder writes into.
+     * @return the stats
+     */
+    @NonNull
+    public FrameProcessingStats getStats() {
+        return mStats;
+    }
+
+    /**
+     * Called when a new processor is registered.
+     * @param processor the processor
+     */
+    public void onProcessorAdded(@NonNull FrameProcessor processor) {
+        mStats.onProcessorAdded(processor);
+    }
+
+    /**
+     * Called when a processor is unregistered.
+     * @param processor the processor
+     */
+    public void onProcessorRemoved(@NonNull FrameProcessor processor) {
+        mStats.onProcessorRemoved(processor);
+    }
+
+    /**
+     * Called when the camera produces a new frame.
+     * @param dropped true if no {@link Frame} was available for it
+     */
+    public void onFrameInput(boolean dropped) {
+        mStats.onFrameInput(dropped);
+    }
+
+    /**
+     * Called when a frame is dispatched to processors.
+     * @param frame the frame
+     */
+    public void onFrameDispatched(@NonNull Frame frame) {
+        mStats.onFrameDispatched(frame);
+    }
+
+    /**
+     * Called when processors are about to process a frame.
+     * @param frame the frame
+     */
+    public void onFrameStarted(@NonNull Frame frame) {
+        mStats.onFrameStarted(frame);
+    }
+
+    /**
+     * Called when a frame enters a queue.
+     */
+    public void onFrameQueued() {
+        mStats.onFrameQueued();
+    }
+
+    /**
+     * Called when a frame leaves a queue, either to be processed or to be dropped.
+     */
+    public void onFrameDequeued() {
+        mStats.onFrameDequeued();
+    }
+
+    /**
+     * Called when a processor has processed a frame.
+     * @param frame the frame
+     * @param processor the processor
+     * @param nanos the time spent in {@link FrameProcessor#process(Frame)}
+     */
+    public void onFrameProcessed(@NonNull Frame frame,
+                                 @NonNull FrameProcessor processor,
+                                 long nanos) {
+        mStats.onFrameProcessed(frame, processor, nanos);
+    }
+}
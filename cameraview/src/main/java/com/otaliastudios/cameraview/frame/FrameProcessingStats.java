@@ -0,0 +1,395 @@
+package com.otaliastudios.cameraview.frame;
+
+import com.otaliastudios.cameraview.CameraView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live statistics about frame processing, as returned by
+ * {@link CameraView#getFrameProcessingStats()}. These can be used to understand why frames
+ * are being dropped and which {@link FrameProcessor} is slowing down the pipeline.
+ *
+ * Statistics are always collected. Recording only uses atomic counters and preallocated
+ * histograms, so it does not lock or allocate on the frame path, and values can be read
+ * at any time from any thread.
+ */
+public final class FrameProcessingStats {
+
+    private final static long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Statistics about a single {@link FrameProcessor}.
+     */
+    public final static class ProcessorStats {
+
+        private final LatencyHistogram mLatency = new LatencyHistogram();
+        private final AtomicLong mDroppedFrames = new AtomicLong(0);
+        private final Rate mRate = new Rate();
+
+        private ProcessorStats() {}
+
+        /**
+         * Returns the histogram of the time spent in {@link FrameProcessor#process(Frame)}.
+         * @return the latency histogram
+         */
+        @NonNull
+        public LatencyHistogram getLatency() {
+            return mLatency;
+        }
+
+        /**
+         * Returns the number of frames that were processed.
+         * @return processed frames
+         */
+        public long getProcessedFrames() {
+            return mLatency.getCount();
+        }
+
+        /**
+         * Returns the number of frames that this processor did not receive because
+         * of its {@link FrameProcessingPolicy}.
+         * @return dropped frames
+         */
+        public long getDroppedFrames() {
+            return mDroppedFrames.get();
+        }
+
+        /**
+         * Returns the rate at which this processor is processing frames, measured
+         * over the last second.
+         * @return frames per second
+         */
+        public float getFps() {
+            return mRate.get(System.nanoTime());
+        }
+
+        private void reset() {
+            mLatency.reset();
+            mDroppedFrames.set(0);
+            mRate.reset();
+        }
+    }
+
+    private final Rate mInputRate = new Rate();
+    private final AtomicLong mInputFrames = new AtomicLong(0);
+    private final AtomicLong mDroppedFrames = new AtomicLong(0);
+    private final AtomicInteger mQueueDepth = new AtomicInteger(0);
+    private final Map<FrameProcessor, ProcessorStats> mProcessors = new ConcurrentHashMap<>();
+    private final LatencyHistogram mCaptureLatency = new LatencyHistogram();
+    private final LatencyHistogram mDispatchLatency = new LatencyHistogram();
+    private final LatencyHistogram mQueueLatency = new LatencyHistogram();
+    private final LatencyHistogram mProcessingLatency = new LatencyHistogram();
+    private final LatencyHistogram mReleaseLatency = new LatencyHistogram();
+    private final LatencyHistogram mTotalLatency = new LatencyHistogram();
+
+    FrameProcessingStats() {}
+
+    /**
+     * Returns the number of frames produced by the camera while there were processors,
+     * including frames that were dropped because no {@link Frame} was available.
+     * @return input frames
+     */
+    public long getInputFrames() {
+        return mInputFrames.get();
+    }
+
+    /**
+     * Returns the rate at which the camera is producing frames, measured over the last second.
+     * @return frames per second
+     */
+    public float getInputFps() {
+        return mInputRate.get(System.nanoTime());
+    }
+
+    /**
+     * Returns the rate at which frames are processed by the slowest processor,
+     * measured over the last second. When processors keep up with the camera,
+     * this is close to {@link #getInputFps()}.
+     * @return frames per second
+     */
+    public float getProcessedFps() {
+        long now = System.nanoTime();
+        float fps = -1F;
+        for (ProcessorStats stats : mProcessors.values()) {
+            float rate = stats.mRate.get(now);
+            if (fps < 0F || rate < fps) fps = rate;
+        }
+        return Math.max(fps, 0F);
+    }
+
+    /**
+     * Returns the number of frames that were dropped because no {@link Frame} was available
+     * in the pool, which means that processors are holding all of them.
+     * This can be tuned with {@link CameraView#setFrameProcessingPoolSize(int)}.
+     * @return dropped frames
+     */
+    public long getDroppedFrames() {
+        return mDroppedFrames.get();
+    }
+
+    /**
+     * Returns the number of frames that are waiting to be processed, either in the
+     * frame processing executor or in the queues of processors that run on their own lane.
+     * @return queued frames
+     */
+    public int getQueueDepth() {
+        return Math.max(0, mQueueDepth.get());
+    }
+
+    /**
+     * Returns statistics about the given processor.
+     * @param processor a processor
+     * @return stats, or null if the processor is not registered
+     */
+    @Nullable
+    public ProcessorStats getProcessorStats(@NonNull FrameProcessor processor) {
+        return mProcessors.get(processor);
+    }
+
+    /**
+     * Returns the histogram of the time between capture and the moment the engine
+     * received the frame. See {@link FrameLatency}.
+     * @return the latency histogram
+     */
+    @NonNull
+    public LatencyHistogram getCaptureLatency() {
+        return mCaptureLatency;
+    }
+
+    /**
+     * Returns the histogram of the time between the moment the engine received the frame
+     * and its dispatch to processors. See {@link FrameLatency}.
+     * @return the latency histogram
+     */
+    @NonNull
+    public LatencyHistogram getDispatchLatency() {
+        return mDispatchLatency;
+    }
+
+    /**
+     * Returns the histogram of the time frames spent waiting for a thread, between dispatch
+     * and the start of the first processor. See {@link FrameLatency}.
+     * @return the latency histogram
+     */
+    @NonNull
+    public LatencyHistogram getQueueLatency() {
+        return mQueueLatency;
+    }
+
+    /**
+     * Returns the histogram of the time between the start of the first processor
+     * and the end of the last one. See {@link FrameLatency}.
+     * @return the latency histogram
+     */
+    @NonNull
+    public LatencyHistogram getProcessingLatency() {
+        return mProcessingLatency;
+    }
+
+    /**
+     * Returns the histogram of the time between the end of the last processor and the
+     * release of the frame, which is non-zero when processors retain frames.
+     * See {@link FrameLatency}.
+     * @return the latency histogram
+     */
+    @NonNull
+    public LatencyHistogram getReleaseLatency() {
+        return mReleaseLatency;
+    }
+
+    /**
+     * Returns the histogram of the time between capture and the release of the frame,
+     * that is, the end-to-end latency. See {@link FrameLatency}.
+     * @return the latency histogram
+     */
+    @NonNull
+    public LatencyHistogram getTotalLatency() {
+        return mTotalLatency;
+    }
+
+    /**
+     * Resets all counters and histograms.
+     * Queue depth is not affected, since it describes the current state.
+     */
+    public void reset() {
+        mInputRate.reset();
+        mInputFrames.set(0);
+        mDroppedFrames.set(0);
+        for (ProcessorStats stats : mProcessors.values()) {
+            stats.reset();
+        }
+        mCaptureLatency.reset();
+        mDispatchLatency.reset();
+        mQueueLatency.reset();
+        mProcessingLatency.reset();
+        mReleaseLatency.reset();
+        mTotalLatency.reset();
+    }
+
+    // Recording methods. These are called through FrameProcessingRecorder and FrameProcessorLane,
+    // so that apps can only read the stats.
+
+    /**
+     * Called when a new processor is registered.
+     * @param processor the processor
+     */
+    void onProcessorAdded(@NonNull FrameProcessor processor) {
+        if (!mProcessors.containsKey(processor)) {
+            mProcessors.put(processor, new ProcessorStats());
+        }
+    }
+
+    /**
+     * Called when a processor is unregistered.
+     * @param processor the processor
+     */
+    void onProcessorRemoved(@NonNull FrameProcessor processor) {
+        mProcessors.remove(processor);
+    }
+
+    /**
+     * Called when the camera produces a new frame.
+     * @param dropped true if no {@link Frame} was available for it
+     */
+    void onFrameInput(boolean dropped) {
+        mInputFrames.incrementAndGet();
+        if (dropped) mDroppedFrames.incrementAndGet();
+        mInputRate.mark(System.nanoTime());
+    }
+
+    /**
+     * Called when a frame is dispatched to processors. Its {@link FrameLatency}
+     * will be recorded into this object when the frame is released.
+     * @param frame the frame
+     */
+    void onFrameDispatched(@NonNull Frame frame) {
+        frame.getLatency().onDispatched(this, System.nanoTime());
+    }
+
+    /**
+     * Called when a processor is about to process a frame.
+     * @param frame the frame
+     */
+    void onFrameStarted(@NonNull Frame frame) {
+        frame.getLatency().onStarted(System.nanoTime());
+    }
+
+    /**
+     * Called when a frame enters a queue.
+     */
+    void onFrameQueued() {
+        mQueueDepth.incrementAndGet();
+    }
+
+    /**
+     * Called when a frame leaves a queue, either to be processed or to be dropped.
+     */
+    void onFrameDequeued() {
+        mQueueDepth.decrementAndGet();
+    }
+
+    /**
+     * Called when a processor has processed a frame.
+     * @param processor the processor
+     * @param nanos the time spent in {@link FrameProcessor#process(Frame)}
+     */
+    void onFrameProcessed(@NonNull FrameProcessor processor, long nanos) {
+        ProcessorStats stats = mProcessors.get(processor);
+        if (stats != null) {
+            stats.mLatency.record(nanos);
+            stats.mRate.mark(System.nanoTime());
+        }
+    }
+
+    /**
+     * Called when a processor has processed a frame. Same as
+     * {@link #onFrameProcessed(FrameProcessor, long)}, but also records the end of
+     * processing into the frame {@link FrameLatency}.
+     * @param frame the frame
+     * @param processor the processor
+     * @param nanos the time spent in {@link FrameProcessor#process(Frame)}
+     */
+    void onFrameProcessed(@NonNull Frame frame,
+                          @NonNull FrameProcessor processor,
+                          long nanos) {
+        frame.getLatency().onProcessed(System.nanoTime());
+        onFrameProcessed(processor, nanos);
+    }
+
+    /**
+     * Called by {@link FrameLatency} when a dispatched frame is released.
+     */
+    void onFrameReleased(@NonNull FrameLatency latency) {
+        long capture = latency.getCaptureNanos();
+        long acquired = latency.getAcquiredNanos();
+        long dispatched = latency.getDispatchedNanos();
+        long started = latency.getStartedNanos();
+        long processed = latency.getLastProcessedNanos();
+        long released = latency.getReleasedNanos();
+        mCaptureLatency.record(acquired - capture);
+        mDispatchLatency.record(dispatched - acquired);
+        if (started >= 0) mQueueLatency.record(started - dispatched);
+        if (started >= 0 && processed >= 0) {
+            mProcessingLatency.record(processed - started);
+            mReleaseLatency.record(released - processed);
+        }
+        mTotalLatency.record(released - capture);
+    }
+
+    /**
+     * Called when a frame was not passed to a processor because of its
+     * {@link FrameProcessingPolicy}.
+     * @param processor the processor
+     */
+    void onFrameDropped(@NonNull FrameProcessor processor) {
+        ProcessorStats stats = mProcessors.get(processor);
+        if (stats != null) {
+            stats.mDroppedFrames.incrementAndGet();
+        }
+    }
+
+    /**
+     * Measures an event rate over windows of {@link #RATE_WINDOW_NANOS},
+     * without locking or allocating.
+     */
+    private final static class Rate {
+
+        private final static long UNSET = Long.MIN_VALUE;
+
+        private final AtomicLong mWindowStart = new AtomicLong(UNSET);
+        private final AtomicInteger mWindowCount = new AtomicInteger(0);
+        private volatile float mRate = 0F;
+
+        private void mark(long now) {
+            mWindowCount.incrementAndGet();
+            long start = mWindowStart.get();
+            if (start == UNSET) {
+                mWindowStart.compareAndSet(UNSET, now);
+            } else if (now - start >= RATE_WINDOW_NANOS
+                    && mWindowStart.compareAndSet(start, now)) {
+                int count = mWindowCount.getAndSet(0);
+                mRate = count * (float) TimeUnit.SECONDS.toNanos(1) / (now - start);
+            }
+        }
+
+        private float get(long now) {
+            long start = mWindowStart.get();
+            // If no events came for a while, the last rate is stale.
+            if (start == UNSET || now - start > 2 * RATE_WINDOW_NANOS) return 0F;
+            return mRate;
+        }
+
+        private void reset() {
+            mWindowStart.set(UNSET);
+            mWindowCount.set(0);
+            mRate = 0F;
+        }
+    }
+}
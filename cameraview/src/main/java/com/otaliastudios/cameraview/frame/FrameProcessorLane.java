@@ -0,0 +1,322 @@
+package com.otaliastudios.cameraview.frame;
+
+import com.otaliastudios.cameraview.CameraLogger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A serial lane that processes items on its own thread, from a queue whose overflow
+ * is ruled by a {@link FrameProcessingPolicy}. Items are processed in order, and never
+ * concurrently.
+ *
+ * Lanes created with {@link #forProcessor(FrameProcessor)} run a single {@link FrameProcessor}.
+ * These are used when frames are dispatched in parallel: each processor receives the same
+ * {@link Frame} on its own lane, so that a slow processor does not delay the others.
+ * They are also used for processors that have a {@link FrameProcessingPolicy}, since the
+ * lane owns the queue of pending frames the policy applies to.
+ * Each dispatched frame is retained through {@link Frame#retain()} until the processor
+ * returns, so the frame goes back to the pool only when all lanes are done with it.
+ *
+ * {@link FramePipeline} also runs each of its stages on a lane, with items of any type.
+ *
+ * @param <T> the item type
+ */
+public abstract class FrameProcessorLane<T> {
+
+    private final static String TAG = FrameProcessorLane.class.getSimpleName();
+    private final static CameraLogger LOG = CameraLogger.create(TAG);
+    private final static AtomicInteger sCount = new AtomicInteger(1);
+    private final static long BLOCK_POLL_MILLIS = 20;
+
+    /**
+     * Creates a new lane for the given processor, with an unbounded queue.
+     * @param processor the processor
+     * @return a new lane
+     */
+    @NonNull
+    public static FrameProcessorLane<Frame> forProcessor(@NonNull FrameProcessor processor) {
+        return forProcessor(processor, FrameProcessingPolicy.UNBOUNDED);
+    }
+
+    /**
+     * Creates a new lane for the given processor and policy.
+     * @param processor the processor
+     * @param policy the policy
+     * @return a new lane
+     */
+    @NonNull
+    public static FrameProcessorLane<Frame> forProcessor(@NonNull FrameProcessor processor,
+                                                         @NonNull FrameProcessingPolicy policy) {
+        return forProcessor(processor, policy, null);
+    }
+
+    /**
+     * Creates a new lane for the given processor and policy, which records
+     * queue depth, drops and latency through the given recorder.
+     * @param processor the processor
+     * @param policy the policy, or null for an unbounded queue
+     * @param recorder the recorder, or null
+     * @return a new lane
+     */
+    @NonNull
+    public static FrameProcessorLane<Frame> forProcessor(
+            @NonNull FrameProcessor processor,
+            @Nullable FrameProcessingPolicy policy,
+            @Nullable FrameProcessingRecorder recorder) {
+        return new ProcessorLane(processor, policy,
+                recorder == null ? null : recorder.getStats(),
+                "FrameProcessorLane #" + sCount.getAndIncrement());
+    }
+
+    private final FrameProcessingPolicy mPolicy;
+    private final LinkedBlockingDeque<T> mQueue;
+    private final ThreadPoolExecutor mExecutor;
+    private final AtomicBoolean mDrainScheduled = new AtomicBoolean(false);
+    private volatile boolean mReleased = false;
+
+    private final Runnable mDrainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                T item;
+                while ((item = mQueue.pollFirst()) != null) {
+                    onDequeued(item);
+                    onProcess(item);
+                }
+            } finally {
+                // Also runs if onProcess() threw an Error, so the lane is not stuck.
+                mDrainScheduled.set(false);
+                // An item might have been queued after the last poll, but before the flag
+                // was cleared. In this case, nobody scheduled a new drain, so do it here.
+                if (!mQueue.isEmpty()) scheduleDrain();
+            }
+        }
+    };
+
+    FrameProcessorLane(@Nullable FrameProcessingPolicy policy, @NonNull final String name) {
+        if (policy == null) policy = FrameProcessingPolicy.UNBOUNDED;
+        mPolicy = policy;
+        mQueue = new LinkedBlockingDeque<>(policy.getCapacity());
+        mExecutor = new ThreadPoolExecutor(
+                1,
+                1,
+                4,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(@NonNull Runnable r) {
+                        return new Thread(r, name);
+                    }
+                }
+        );
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the policy used by this lane.
+     * @return the policy
+     */
+    @NonNull
+    public FrameProcessingPolicy getPolicy() {
+        return mPolicy;
+    }
+
+    /**
+     * Dispatches the given item to this lane. Frames are retained and will be
+     * released after the processor has processed them (or after they were dropped because
+     * of the lane policy), so callers are free to release their own reference as soon as
+     * this method returns.
+     *
+     * With {@link FrameProcessingPolicy#blockProducer(int)}, this method can block
+     * until there is space in the queue.
+     *
+     * @param item the item
+     */
+    public void dispatch(@NonNull T item) {
+        if (mReleased) {
+            onDiscard(item);
+            return;
+        }
+        if (!enqueue(item)) return;
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (mDrainScheduled.compareAndSet(false, true)) {
+            try {
+                mExecutor.execute(mDrainRunnable);
+            } catch (RejectedExecutionException e) {
+                LOG.w("dispatch:", "lane was released. Dropping items.");
+                clear();
+            }
+        }
+    }
+
+    private boolean enqueue(@NonNull T item) {
+        switch (mPolicy.getOverflow()) {
+            case FrameProcessingPolicy.OVERFLOW_DROP_OLDEST: {
+                while (!mQueue.offerLast(item)) {
+                    T oldest = mQueue.pollFirst();
+                    if (oldest != null) {
+                        LOG.v("dispatch:", "queue is full. Dropping oldest item.");
+                        onDequeued(oldest);
+                        drop(oldest);
+                    }
+                }
+                onQueued(item);
+                return true;
+            }
+            case FrameProcessingPolicy.OVERFLOW_DROP_NEWEST: {
+                if (!mQueue.offerLast(item)) {
+                    LOG.v("dispatch:", "queue is full. Dropping new item.");
+                    drop(item);
+                    return false;
+                }
+                onQueued(item);
+                return true;
+            }
+            default: {
+                try {
+                    while (!mQueue.offerLast(item, BLOCK_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (mReleased) {
+                            onDiscard(item);
+                            return false;
+                        }
+                    }
+                    onQueued(item);
+                    return true;
+                } catch (InterruptedException e) {
+                    LOG.w("dispatch:", "interrupted while waiting. Dropping item.");
+                    // Let the caller, usually the camera thread, see the interrupt.
+                    Thread.currentThread().interrupt();
+                    drop(item);
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void drop(@NonNull T item) {
+        onDropped(item);
+        onDiscard(item);
+    }
+
+    private void clear() {
+        T item;
+        while ((item = mQueue.pollFirst()) != null) {
+            onDequeued(item);
+            onDiscard(item);
+        }
+    }
+
+    /**
+     * Releases this lane. The item being processed, if any, will be released when done,
+     * while pending items are dropped. New items can not be dispatched anymore.
+     */
+    public void release() {
+        mReleased = true;
+        clear();
+        mExecutor.shutdown();
+    }
+
+    /**
+     * Processes the given item on the lane thread, then releases it.
+     * @param item the item
+     */
+    abstract void onProcess(@NonNull T item);
+
+    /**
+     * Releases an item that will not be processed.
+     * @param item the item
+     */
+    abstract void onDiscard(@NonNull T item);
+
+    /**
+     * Called when the item enters the queue.
+     * @param item the item
+     */
+    void onQueued(@NonNull T item) {}
+
+    /**
+     * Called when the item leaves the queue, to be processed or discarded.
+     * @param item the item
+     */
+    void onDequeued(@NonNull T item) {}
+
+    /**
+     * Called when the item is dropped because of the policy, before it is discarded.
+     * @param item the item
+     */
+    void onDropped(@NonNull T item) {}
+
+    /**
+     * Runs a {@link FrameProcessor}, recording into the optional stats.
+     */
+    private static final class ProcessorLane extends FrameProcessorLane<Frame> {
+
+        private final FrameProcessor mProcessor;
+        private final FrameProcessingStats mStats;
+
+        private ProcessorLane(@NonNull FrameProcessor processor,
+                              @Nullable FrameProcessingPolicy policy,
+                              @Nullable FrameProcessingStats stats,
+                              @NonNull String name) {
+            super(policy, name);
+            mProcessor = processor;
+            mStats = stats;
+        }
+
+        @Override
+        public void dispatch(@NonNull Frame frame) {
+            frame.retain();
+            super.dispatch(frame);
+        }
+
+        @Override
+        void onProcess(@NonNull Frame frame) {
+            if (mStats != null) mStats.onFrameStarted(frame);
+            long start = System.nanoTime();
+            try {
+                mProcessor.process(frame);
+            } catch (Exception e) {
+                LOG.w("Frame processor crashed:", e);
+            } finally {
+                if (mStats != null) {
+                    mStats.onFrameProcessed(frame, mProcessor, System.nanoTime() - start);
+                }
+                frame.release();
+            }
+        }
+
+        @Override
+        void onDiscard(@NonNull Frame frame) {
+            frame.release();
+        }
+
+        @Override
+        void onQueued(@NonNull Frame frame) {
+            if (mStats != null) mStats.onFrameQueued();
+        }
+
+        @Override
+        void onDequeued(@NonNull Frame frame) {
+            if (mStats != null) mStats.onFrameDequeued();
+        }
+
+        @Override
+        void onDropped(@NonNull Frame frame) {
+            if (mStats != null) mStats.onFrameDropped(mProcessor);
+        }
+    }
+}
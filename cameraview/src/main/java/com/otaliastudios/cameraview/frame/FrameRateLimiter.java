@@ -0,0 +1,78 @@
+package com.otaliastudios.cameraview.frame;
+
+/**
+ * Decides which frames should be passed to a {@link FrameProcessor} that only needs
+ * a given frame rate, based on {@link Frame#getTime()}.
+ *
+ * Accepted frames are spaced by the target interval, without drifting: if the camera runs at
+ * 30 fps and the target is 10 fps, exactly one frame out of three is accepted. To be robust
+ * against timestamp jitter, a frame is accepted if it is closer to the next slot than the
+ * following frame is expected to be.
+ *
+ * This class is not thread safe. It is meant to be called from the thread that dispatches
+ * frames, before they are queued, so that skipped frames cost nothing.
+ */
+public class FrameRateLimiter {
+
+    private final float mTargetFps;
+    private final double mInterval;
+    private double mInputInterval = 0D;
+    private long mLastTime = -1;
+    // Frame times are epoch milliseconds, which floats can't hold accurately,
+    // so the next slot is relative to the frame that started the current sequence.
+    private boolean mStarted = false;
+    private long mStartTime = 0;
+    private double mNextTime = 0D;
+
+    /**
+     * Creates a new limiter for the given rate.
+     * @param targetFps the target frame rate
+     */
+    public FrameRateLimiter(float targetFps) {
+        if (targetFps <= 0F) {
+            throw new IllegalArgumentException("Target fps should be positive, got "
+                    + targetFps);
+        }
+        mTargetFps = targetFps;
+        mInterval = 1000D / targetFps;
+    }
+
+    /**
+     * Returns the target frame rate.
+     * @return the target fps
+     */
+    public float getTargetFps() {
+        return mTargetFps;
+    }
+
+    /**
+     * Returns true if the frame with the given time should be processed.
+     * This must be called once for each frame, in order.
+     *
+     * @param time the frame time, as in {@link Frame#getTime()}
+     * @return true if accepted
+     */
+    public boolean accept(long time) {
+        // Estimate the input interval, ignoring gaps, e.g. when the preview was paused.
+        if (mLastTime >= 0 && time > mLastTime && time - mLastTime < mInterval) {
+            long delta = time - mLastTime;
+            mInputInterval = mInputInterval == 0D ? delta : 0.8D * mInputInterval + 0.2D * delta;
+        }
+        mLastTime = time;
+        if (mStarted && time >= mStartTime) {
+            double elapsed = time - mStartTime;
+            if (elapsed + mInputInterval / 2D < mNextTime) {
+                return false;
+            }
+            if (elapsed - mNextTime < mInterval) {
+                mNextTime += mInterval;
+                return true;
+            }
+        }
+        // First frame, or we have been far behind for some reason. Start over.
+        mStarted = true;
+        mStartTime = time;
+        mNextTime = mInterval;
+        return true;
+    }
+}
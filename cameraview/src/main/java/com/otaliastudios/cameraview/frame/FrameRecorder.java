@@ -0,0 +1,177 @@
+package com.otaliastudios.cameraview.frame;
+
+import android.graphics.ImageFormat;
+
+import com.otaliastudios.cameraview.CameraLogger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link FrameProcessor} that appends frames to a file, so that they can be fed again
+ * to other processors later, on any device or on a plain JVM, through {@link FrameReplayer}.
+ * This makes it possible to benchmark and regression-test processors without a camera.
+ *
+ * The file is written through memory-mapped regions, so that recording a frame is a
+ * plain memory copy. Each record holds the frame time and timestamp, size, rotations and data.
+ * Data is always stored as tightly packed {@link ImageFormat#NV21}: Camera1 arrays are
+ * copied as they are, while {@link ImageFormat#YUV_420_888} images are converted, removing
+ * any padding. Frames in other formats are skipped.
+ *
+ * The recorder must be closed when done, which trims the file to its actual size.
+ */
+public class FrameRecorder implements FrameProcessor, Closeable {
+
+    private final static String TAG = FrameRecorder.class.getSimpleName();
+    private final static CameraLogger LOG = CameraLogger.create(TAG);
+
+    final static int MAGIC = 0x43564652; // CVFR
+    final static int VERSION = 2;
+    final static int FILE_HEADER_BYTES = 8;
+    final static int RECORD_HEADER_BYTES = 40;
+    final static ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private final static long REGION_BYTES = 64 * 1024 * 1024;
+
+    private final RandomAccessFile mFile;
+    private final FileChannel mChannel;
+    private MappedByteBuffer mRegion;
+    private long mRegionStart;
+    private long mPosition;
+    private int mFrameCount;
+    private boolean mClosed;
+
+    /**
+     * Creates a new recorder that writes to the given file, overwriting it.
+     * @param file the output file
+     * @throws IOException if the file can not be opened
+     */
+    public FrameRecorder(@NonNull File file) throws IOException {
+        mFile = new RandomAccessFile(file, "rw");
+        mFile.setLength(0);
+        mChannel = mFile.getChannel();
+        ensureCapacity(FILE_HEADER_BYTES);
+        mRegion.putInt(MAGIC);
+        mRegion.putInt(VERSION);
+        mPosition = FILE_HEADER_BYTES;
+    }
+
+    /**
+     * Appends the given frame to the file.
+     * @param frame the frame
+     */
+    @WorkerThread
+    @Override
+    public synchronized void process(@NonNull Frame frame) {
+        if (mClosed) return;
+        int format = frame.getFormat();
+        if (format != ImageFormat.NV21 && format != ImageFormat.YUV_420_888) {
+            LOG.w("process:", "skipping frame with unsupported format", format);
+            return;
+        }
+        int width = frame.getSize().getWidth();
+        int height = frame.getSize().getHeight();
+        int bytes = width * height * 3 / 2;
+        try {
+            ensureCapacity(RECORD_HEADER_BYTES + bytes);
+        } catch (IOException e) {
+            LOG.e("process:", "could not grow the file.", e);
+            return;
+        }
+        mRegion.putLong(frame.getTime());
+        mRegion.putLong(frame.getTimestamp());
+        mRegion.putInt(width);
+        mRegion.putInt(height);
+        mRegion.putInt(ImageFormat.NV21);
+        mRegion.putInt(frame.getRotationToUser());
+        mRegion.putInt(frame.getRotationToView());
+        mRegion.putInt(bytes);
+        Object data = frame.getData();
+        if (data instanceof byte[]) {
+            mRegion.put((byte[]) data, 0, bytes);
+        } else if (data instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) data).duplicate();
+            buffer.rewind();
+            buffer.limit(bytes);
+            mRegion.put(buffer);
+        } else {
+            putNv21(frame.view(), mRegion);
+        }
+        mPosition += RECORD_HEADER_BYTES + bytes;
+        mFrameCount++;
+    }
+
+    /**
+     * Writes the planes of the given view as packed NV21.
+     */
+    private static void putNv21(@NonNull FrameView view, @NonNull ByteBuffer output) {
+        int width = view.getWidth();
+        int height = view.getHeight();
+        ByteBuffer luma = view.getPlane(0).duplicate();
+        int rowStride = view.getRowStride(0);
+        int pixelStride = view.getPixelStride(0);
+        for (int y = 0; y < height; y++) {
+            if (pixelStride == 1) {
+                luma.limit(y * rowStride + width);
+                luma.position(y * rowStride);
+                output.put(luma);
+            } else {
+                for (int x = 0; x < width; x++) {
+                    output.put(luma.get(y * rowStride + x * pixelStride));
+                }
+            }
+        }
+        ByteBuffer u = view.getPlane(1);
+        ByteBuffer v = view.getPlane(2);
+        for (int y = 0; y < view.getPlaneHeight(1); y++) {
+            int uBase = y * view.getRowStride(1);
+            int vBase = y * view.getRowStride(2);
+            for (int x = 0; x < view.getPlaneWidth(1); x++) {
+                output.put(v.get(vBase + x * view.getPixelStride(2)));
+                output.put(u.get(uBase + x * view.getPixelStride(1)));
+            }
+        }
+    }
+
+    /**
+     * Makes sure that the current region can hold the given number of bytes,
+     * mapping a new one at the current position if needed.
+     */
+    private void ensureCapacity(int bytes) throws IOException {
+        if (mRegion != null && mRegion.remaining() >= bytes) return;
+        mRegionStart = mPosition;
+        mRegion = mChannel.map(FileChannel.MapMode.READ_WRITE, mRegionStart,
+                Math.max(REGION_BYTES, bytes));
+        mRegion.order(ORDER);
+    }
+
+    /**
+     * Returns the number of frames recorded so far.
+     * @return the frame count
+     */
+    public synchronized int getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * Flushes data and closes the file. Frames received after this call are ignored.
+     * @throws IOException if the file could not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (mClosed) return;
+        mClosed = true;
+        mRegion.force();
+        mRegion = null;
+        mChannel.truncate(mPosition);
+        mFile.close();
+    }
+}
@@ -0,0 +1,117 @@
+package com.otaliastudios.cameraview.frame;
+
+import com.otaliastudios.cameraview.CameraLogger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Releases results that complete in any order, strictly in sequence order.
+ * Sequence numbers are claimed with {@link #claim()}, and results are passed to
+ * {@link #complete(long, Object)}. At most window sequences can be pending at any time,
+ * so memory is bounded.
+ *
+ * Results are delivered by the thread that completes the missing sequence, outside of any
+ * lock, and the callback is never called concurrently.
+ *
+ * @param <T> the result type
+ */
+final class FrameReorderBuffer<T> {
+
+    private final static String TAG = FrameReorderBuffer.class.getSimpleName();
+    private final static CameraLogger LOG = CameraLogger.create(TAG);
+
+    private final OrderedFrameProcessor.Callback<T> mCallback;
+    private final int mWindow;
+    private final Object[] mResults;
+    private final boolean[] mCompleted;
+    private final Object mLock = new Object();
+    private long mNextClaim = 0;
+    private long mNextDelivery = 0;
+    private boolean mDelivering = false;
+
+    FrameReorderBuffer(@NonNull OrderedFrameProcessor.Callback<T> callback, int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window should be at least 1, got " + window);
+        }
+        mCallback = callback;
+        mWindow = window;
+        mResults = new Object[window];
+        mCompleted = new boolean[window];
+    }
+
+    /**
+     * Claims the next sequence number, if the window has space.
+     * @return the sequence number, or -1 if the window is full
+     */
+    long claim() {
+        synchronized (mLock) {
+            if (mNextClaim - mNextDelivery >= mWindow) return -1;
+            return mNextClaim++;
+        }
+    }
+
+    /**
+     * Returns the number of sequences that were claimed, but not delivered yet.
+     * @return the pending count
+     */
+    int getPendingCount() {
+        synchronized (mLock) {
+            return (int) (mNextClaim - mNextDelivery);
+        }
+    }
+
+    /**
+     * Completes the given sequence. Null results are not delivered, but still let
+     * the following sequences through.
+     * @param sequence a claimed sequence
+     * @param result the result, or null
+     */
+    void complete(long sequence, @Nullable T result) {
+        synchronized (mLock) {
+            if (sequence < mNextDelivery || sequence >= mNextClaim) {
+                throw new IllegalArgumentException("Sequence " + sequence + " is not pending.");
+            }
+            int slot = (int) (sequence % mWindow);
+            mResults[slot] = result;
+            mCompleted[slot] = true;
+            if (mDelivering) return;
+            mDelivering = true;
+        }
+        boolean done = false;
+        try {
+            while (true) {
+                long next;
+                T nextResult;
+                synchronized (mLock) {
+                    int slot = (int) (mNextDelivery % mWindow);
+                    if (!mCompleted[slot]) {
+                        mDelivering = false;
+                        done = true;
+                        return;
+                    }
+                    //noinspection unchecked
+                    nextResult = (T) mResults[slot];
+                    mResults[slot] = null;
+                    mCompleted[slot] = false;
+                    next = mNextDelivery++;
+                }
+                if (nextResult != null) {
+                    try {
+                        mCallback.onFrameResult(next, nextResult);
+                    } catch (Exception e) {
+                        LOG.w("Frame result callback crashed:", e);
+                    }
+                }
+            }
+        } finally {
+            // The callback threw an Error. Let the next call deliver, or results would
+            // be stuck forever.
+            if (!done) {
+                synchronized (mLock) {
+                    mDelivering = false;
+                }
+            }
+        }
+    }
+}
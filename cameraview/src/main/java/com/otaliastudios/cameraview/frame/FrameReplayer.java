@@ -0,0 +1,220 @@
+package com.otaliastudios.cameraview.frame;
+
+import android.graphics.ImageFormat;
+
+import com.otaliastudios.cameraview.engine.offset.Angles;
+import com.otaliastudios.cameraview.size.Size;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds frames recorded by {@link FrameRecorder} to {@link FrameProcessor}s.
+ *
+ * Frames go through a {@link ByteBufferFrameManager}, like the ones of the Camera1 engine,
+ * so processors receive pooled {@link ImageFormat#NV21} frames with the recorded time,
+ * size and rotations. The recorded {@link Frame#getTimestamp()} is shifted to the
+ * {@link System#nanoTime()} reference of the replay, so intervals between frames are kept. The file is memory-mapped, so reading a frame is a plain memory copy
+ * and replay speed is only bound by the processors.
+ *
+ * Frames can be replayed at the recorded speed, or as fast as possible to measure throughput.
+ * This class does not depend on a camera, and can be used on a plain JVM.
+ */
+public class FrameReplayer implements Closeable {
+
+    private final static long MAX_REGION_BYTES = Integer.MAX_VALUE;
+
+    private final RandomAccessFile mFile;
+    private final List<MappedByteBuffer> mRegions = new ArrayList<>();
+    private int[] mRecordRegions;
+    private int[] mRecordOffsets;
+    private final int mPoolSize;
+
+    /**
+     * Opens the given file, with a pool of 2 frames.
+     * @param file a file written by {@link FrameRecorder}
+     * @throws IOException if the file can not be read or is not valid
+     */
+    public FrameReplayer(@NonNull File file) throws IOException {
+        this(file, 2);
+    }
+
+    /**
+     * Opens the given file.
+     * @param file a file written by {@link FrameRecorder}
+     * @param poolSize the frame pool size, like
+     *                 {@link com.otaliastudios.cameraview.CameraView#setFrameProcessingPoolSize(int)}
+     * @throws IOException if the file can not be read or is not valid
+     */
+    public FrameReplayer(@NonNull File file, int poolSize) throws IOException {
+        mPoolSize = poolSize;
+        mFile = new RandomAccessFile(file, "r");
+        try {
+            index(mFile.getChannel());
+        } catch (IOException e) {
+            mFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Scans record headers, mapping the file in regions that hold whole records.
+     */
+    private void index(@NonNull FileChannel channel) throws IOException {
+        long length = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(FrameRecorder.RECORD_HEADER_BYTES)
+                .order(FrameRecorder.ORDER);
+        if (read(channel, header, 0, FrameRecorder.FILE_HEADER_BYTES)
+                || header.getInt(0) != FrameRecorder.MAGIC) {
+            throw new IOException("Not a frame recording.");
+        }
+        if (header.getInt(4) != FrameRecorder.VERSION) {
+            throw new IOException("Unsupported version: " + header.getInt(4));
+        }
+        long position = FrameRecorder.FILE_HEADER_BYTES;
+        long regionStart = position;
+        List<Integer> regions = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        while (position < length) {
+            if (read(channel, header, position, FrameRecorder.RECORD_HEADER_BYTES)) {
+                throw new IOException("Truncated record at " + position);
+            }
+            long end = position + FrameRecorder.RECORD_HEADER_BYTES + header.getInt(36);
+            if (end > length) throw new IOException("Truncated record at " + position);
+            if (end - regionStart > MAX_REGION_BYTES) {
+                map(channel, regionStart, position);
+                regionStart = position;
+            }
+            regions.add(mRegions.size());
+            offsets.add((int) (position - regionStart));
+            position = end;
+        }
+        if (!offsets.isEmpty()) map(channel, regionStart, position);
+        mRecordRegions = new int[regions.size()];
+        mRecordOffsets = new int[offsets.size()];
+        for (int i = 0; i < mRecordOffsets.length; i++) {
+            mRecordRegions[i] = regions.get(i);
+            mRecordOffsets[i] = offsets.get(i);
+        }
+    }
+
+    /**
+     * Reads the given number of bytes at the given position.
+     * Returns true if the file ended before.
+     */
+    private static boolean read(@NonNull FileChannel channel, @NonNull ByteBuffer buffer,
+                                long position, int bytes) throws IOException {
+        buffer.clear();
+        buffer.limit(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) return true;
+        }
+        return false;
+    }
+
+    private void map(@NonNull FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        region.order(FrameRecorder.ORDER);
+        mRegions.add(region);
+    }
+
+    /**
+     * Returns the number of recorded frames.
+     * @return the frame count
+     */
+    public int getFrameCount() {
+        return mRecordOffsets.length;
+    }
+
+    /**
+     * Feeds all recorded frames to the given processors, on the calling thread.
+     * Each frame is passed to processors in order, and released after the last one returns,
+     * unless processors retained it. Frames that can't be served because all pool frames
+     * are retained are dropped, like the camera engines do.
+     * If a processor throws, the frame and the pool are released before the exception
+     * propagates.
+     *
+     * @param realTime true to respect the recorded timing, false to go as fast as possible
+     * @param processors the processors
+     * @return the number of frames that were processed
+     * @throws InterruptedException if interrupted while waiting in real time mode
+     */
+    @WorkerThread
+    public int replay(boolean realTime, @NonNull FrameProcessor... processors)
+            throws InterruptedException {
+        ByteBufferFrameManager manager = new ByteBufferFrameManager(mPoolSize, null);
+        Angles angles = new Angles();
+        Size size = null;
+        long firstTimestamp = 0;
+        long startNanos = 0;
+        int processed = 0;
+        try {
+            for (int i = 0; i < getFrameCount(); i++) {
+                ByteBuffer record = mRegions.get(mRecordRegions[i]).duplicate();
+                record.order(FrameRecorder.ORDER);
+                record.position(mRecordOffsets[i]);
+                long time = record.getLong();
+                long timestamp = record.getLong();
+                int width = record.getInt();
+                int height = record.getInt();
+                int format = record.getInt();
+                int userRotation = record.getInt();
+                int viewRotation = record.getInt();
+                int bytes = record.getInt();
+                if (size == null || size.getWidth() != width || size.getHeight() != height) {
+                    if (size != null) manager.release();
+                    size = new Size(width, height);
+                    manager.setUp(format, size, angles);
+                }
+                if (i == 0) {
+                    firstTimestamp = timestamp;
+                    startNanos = System.nanoTime();
+                }
+                // Rebase on the replay clock. The timestamp is monotonic, unlike the time.
+                timestamp = startNanos + (timestamp - firstTimestamp);
+                if (realTime) {
+                    long delay = timestamp - System.nanoTime();
+                    if (delay > 0) TimeUnit.NANOSECONDS.sleep(delay);
+                }
+                byte[] buffer = manager.getBuffer();
+                if (buffer == null) continue;
+                record.get(buffer, 0, bytes);
+                Frame frame = manager.getFrame(buffer, time, timestamp,
+                        userRotation, viewRotation);
+                if (frame == null) continue;
+                try {
+                    for (FrameProcessor processor : processors) {
+                        processor.process(frame);
+                    }
+                } finally {
+                    frame.release();
+                }
+                processed++;
+            }
+        } finally {
+            // Also runs if a processor threw, so the pool is not leaked.
+            if (size != null) manager.release();
+        }
+        return processed;
+    }
+
+    /**
+     * Closes the file. Mapped memory is released when the replayer is garbage collected.
+     * @throws IOException if the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        mFile.close();
+    }
+}
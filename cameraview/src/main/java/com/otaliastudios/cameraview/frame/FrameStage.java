@@ -0,0 +1,30 @@
+package com.otaliastudios.cameraview.frame;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+/**
+ * A single stage of a {@link FramePipeline}. Stages transform an input into an output,
+ * which is then passed to the next stage on its own thread.
+ *
+ * @param <I> the input type
+ * @param <O> the output type
+ */
+public interface FrameStage<I, O> {
+
+    /**
+     * Processes the given input. This is called on the stage thread, and a stage is never
+     * called concurrently.
+     *
+     * If the input is a {@link Frame}, it will be released when this method returns.
+     * To pass it to the next stage, retain or freeze it and return it: the next stage
+     * will release it in turn.
+     *
+     * @param input the input
+     * @return the output, or null to stop processing this input
+     */
+    @Nullable
+    @WorkerThread
+    O process(@NonNull I input);
+}
@@ -0,0 +1,237 @@
+package com.otaliastudios.cameraview.frame;
+
+import android.annotation.SuppressLint;
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.media.Image;
+
+import com.otaliastudios.cameraview.engine.offset.Reference;
+import com.otaliastudios.cameraview.size.Size;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A region of interest of a {@link Frame}, as returned by {@link Frame#view(Rect)}, or the
+ * whole frame, as returned by {@link Frame#view()}.
+ *
+ * The view does not copy any data. Each plane is exposed as a {@link ByteBuffer} that starts
+ * at the top-left pixel of the region, together with its row stride and pixel stride.
+ * So the luma value of pixel (x, y) of the region, in sensor orientation, is at
+ * index y * getRowStride(0) + x * getPixelStride(0) of getPlane(0).
+ *
+ * Planes are always in YUV order: Y, then U, then V, with chroma planes subsampled by 2 in
+ * both directions. Regions are aligned to even coordinates so that chroma planes line up.
+ * When the view was created with {@link Frame#viewLuma(Rect, Reference)}, only the Y plane
+ * is available.
+ *
+ * Since data is not copied, the view is only valid as long as the frame is: either during
+ * {@link FrameProcessor#process(Frame)}, or until the frame is released if it was retained.
+ */
+public final class FrameView {
+
+    private final Rect mRect;
+    private final int mRotation;
+    private final ByteBuffer[] mPlanes;
+    private final int[] mRowStrides;
+    private final int[] mPixelStrides;
+
+    @SuppressLint("NewApi")
+    FrameView(@NonNull Object data, @NonNull Size size, int format, @NonNull Rect rect,
+              int rotation, boolean lumaOnly) {
+        mRect = toSensorRect(rect, rotation, size.getWidth(), size.getHeight());
+        mRotation = rotation;
+        int planes = lumaOnly ? 1 : 3;
+        mPlanes = new ByteBuffer[planes];
+        mRowStrides = new int[planes];
+        mPixelStrides = new int[planes];
+        if (format == ImageFormat.NV21
+                && (data instanceof byte[] || data instanceof ByteBuffer)) {
+            ByteBuffer buffer = data instanceof byte[]
+                    ? ByteBuffer.wrap((byte[]) data)
+                    : (ByteBuffer) data;
+            int width = size.getWidth();
+            int chromaStart = width * size.getHeight();
+            int chromaOffset = chromaStart + (mRect.top / 2) * width + mRect.left;
+            setPlane(0, buffer, mRect.top * width + mRect.left, width, 1);
+            if (!lumaOnly) {
+                // NV21 stores interleaved V and U samples after the Y plane.
+                setPlane(1, buffer, chromaOffset + 1, width, 2);
+                setPlane(2, buffer, chromaOffset, width, 2);
+            }
+        } else if (format == ImageFormat.YUV_420_888 && data instanceof Image) {
+            Image.Plane[] imagePlanes = ((Image) data).getPlanes();
+            for (int i = 0; i < planes; i++) {
+                Image.Plane plane = imagePlanes[i];
+                int x = i == 0 ? mRect.left : mRect.left / 2;
+                int y = i == 0 ? mRect.top : mRect.top / 2;
+                int offset = y * plane.getRowStride() + x * plane.getPixelStride();
+                ByteBuffer buffer = plane.getBuffer().duplicate();
+                buffer.position(offset);
+                mPlanes[i] = buffer.slice();
+                mRowStrides[i] = plane.getRowStride();
+                mPixelStrides[i] = plane.getPixelStride();
+            }
+        } else {
+            throw new UnsupportedOperationException("Views are only supported for NV21 " +
+                    "byte arrays or buffers and YUV_420_888 images. Format: " + format);
+        }
+    }
+
+    /**
+     * Creates a luma-only view over a whole buffer, as used by {@link LumaPyramid}.
+     */
+    FrameView(@NonNull byte[] luma, int width, int height) {
+        mRect = new Rect(0, 0, width, height);
+        mRotation = 0;
+        mPlanes = new ByteBuffer[1];
+        mRowStrides = new int[1];
+        mPixelStrides = new int[1];
+        setPlane(0, ByteBuffer.wrap(luma), 0, width, 1);
+    }
+
+    private void setPlane(int plane, @NonNull ByteBuffer buffer, int offset,
+                          int rowStride, int pixelStride) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        mPlanes[plane] = duplicate.slice();
+        mRowStrides[plane] = rowStride;
+        mPixelStrides[plane] = pixelStride;
+    }
+
+    /**
+     * Maps the given rect from a reference rotated by the given clock-wise rotation
+     * back to sensor coordinates, clamps it to the frame and aligns it to even coordinates.
+     */
+    @VisibleForTesting
+    @NonNull
+    static Rect toSensorRect(@NonNull Rect rect, int rotation, int width, int height) {
+        Rect sensor;
+        switch (rotation) {
+            case 0: sensor = new Rect(rect); break;
+            case 90: sensor = new Rect(rect.top, height - rect.right,
+                    rect.bottom, height - rect.left); break;
+            case 180: sensor = new Rect(width - rect.right, height - rect.bottom,
+                    width - rect.left, height - rect.top); break;
+            case 270: sensor = new Rect(width - rect.bottom, rect.left,
+                    width - rect.top, rect.right); break;
+            default: throw new IllegalArgumentException("Invalid rotation: " + rotation);
+        }
+        sensor.left = Math.max(0, sensor.left) & ~1;
+        sensor.top = Math.max(0, sensor.top) & ~1;
+        sensor.right = Math.min(width, (sensor.right + 1) & ~1);
+        sensor.bottom = Math.min(height, (sensor.bottom + 1) & ~1);
+        if (sensor.width() <= 0 || sensor.height() <= 0) {
+            throw new IllegalArgumentException("Region " + rect + " is outside of the frame.");
+        }
+        return sensor;
+    }
+
+    /**
+     * Returns the region in sensor coordinates, that is, the same coordinates as
+     * {@link Frame#getSize()}. This can be slightly bigger than the requested region,
+     * because of chroma alignment.
+     * @return the region
+     */
+    @NonNull
+    public Rect getRect() {
+        return new Rect(mRect);
+    }
+
+    /**
+     * Returns the width of the region, in sensor orientation.
+     * @return the width
+     */
+    public int getWidth() {
+        return mRect.width();
+    }
+
+    /**
+     * Returns the height of the region, in sensor orientation.
+     * @return the height
+     */
+    public int getHeight() {
+        return mRect.height();
+    }
+
+    /**
+     * Returns the clock-wise rotation that should be applied to this region so that it
+     * matches the reference it was requested in.
+     * @return clock-wise rotation
+     */
+    public int getRotation() {
+        return mRotation;
+    }
+
+    /**
+     * Returns the number of planes: 3 (Y, U, V), or 1 if only luma was requested.
+     * @return the plane count
+     */
+    public int getPlaneCount() {
+        return mPlanes.length;
+    }
+
+    /**
+     * Returns the given plane, starting at the top-left pixel of the region.
+     * The returned buffer is a shared view: changing its position or limit is allowed,
+     * but changing its contents will change the frame.
+     * @param plane the plane index
+     * @return the plane buffer
+     */
+    @NonNull
+    public ByteBuffer getPlane(int plane) {
+        return mPlanes[plane];
+    }
+
+    /**
+     * Returns the distance in bytes between the start of two consecutive rows
+     * in the given plane.
+     * @param plane the plane index
+     * @return the row stride
+     */
+    public int getRowStride(int plane) {
+        return mRowStrides[plane];
+    }
+
+    /**
+     * Returns the distance in bytes between two consecutive pixels
+     * of the same row in the given plane.
+     * @param plane the plane index
+     * @return the pixel stride
+     */
+    public int getPixelStride(int plane) {
+        return mPixelStrides[plane];
+    }
+
+    /**
+     * Returns the width of the given plane, which is half the region width
+     * for chroma planes.
+     * @param plane the plane index
+     * @return the plane width
+     */
+    public int getPlaneWidth(int plane) {
+        return plane == 0 ? getWidth() : getWidth() / 2;
+    }
+
+    /**
+     * Returns the height of the given plane, which is half the region height
+     * for chroma planes.
+     * @param plane the plane index
+     * @return the plane height
+     */
+    public int getPlaneHeight(int plane) {
+        return plane == 0 ? getHeight() : getHeight() / 2;
+    }
+
+    /**
+     * Returns the luma value at the given position of the region, in sensor orientation.
+     * @param x the x coordinate, in [0, getWidth())
+     * @param y the y coordinate, in [0, getHeight())
+     * @return the luma value, in [0, 255]
+     */
+    public int getLuma(int x, int y) {
+        return mPlanes[0].get(y * mRowStrides[0] + x * mPixelStrides[0]) & 0xFF;
+    }
+}
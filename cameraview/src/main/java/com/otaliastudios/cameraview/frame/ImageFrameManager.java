@@ -1,11 +1,24 @@
 package com.otaliastudios.cameraview.frame;
 
+import android.graphics.ImageFormat;
 import android.media.Image;
 import android.os.Build;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.RequiresApi;
 
+import com.otaliastudios.cameraview.size.Size;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link FrameManager} for {@link Image}s.
+ *
+ * Images can not be cloned, so frames in the {@link ImageFormat#YUV_420_888} format are frozen
+ * by copying their planes into pooled {@link ImageFormat#NV21} byte arrays. The frozen frame
+ * does not hold the image, so its {@link android.media.ImageReader} slot is freed as soon
+ * as the original frame is released.
+ */
 @RequiresApi(Build.VERSION_CODES.KITKAT)
 public class ImageFrameManager extends FrameManager<Image> {
 
@@ -23,8 +36,80 @@ public class ImageFrameManager extends FrameManager<Image> {
     @NonNull
     @Override
     protected Image onCloneFrameData(@NonNull Image data) {
-        throw new RuntimeException("Cannot freeze() an Image Frame. " +
-                "Please consider using the frame synchronously in your process() method, " +
-                "which also gives better performance.");
+        throw new RuntimeException("Cannot clone an Image. " +
+                "Frames are frozen into NV21 byte arrays instead.");
+    }
+
+    @NonNull
+    @Override
+    Object freezeFrameData(@NonNull Image data, int format, @NonNull Size size) {
+        if (format != ImageFormat.YUV_420_888) {
+            throw new RuntimeException("Cannot freeze() an Image Frame with format " + format +
+                    ". Only YUV_420_888 is supported. Please consider using the frame " +
+                    "synchronously in your process() method, which also gives better performance.");
+        }
+        byte[] output = getFreezeBuffer(computeFrameBytes(ImageFormat.NV21, size));
+        toNv21(data, size, output);
+        return output;
+    }
+
+    @NonNull
+    @Override
+    Class<?> getFrozenFrameDataClass() {
+        return byte[].class;
+    }
+
+    @Override
+    int getFrozenFrameFormat(int format) {
+        return format == ImageFormat.YUV_420_888 ? ImageFormat.NV21 : format;
+    }
+
+    @Override
+    void releaseFrozenFrameData(@NonNull Object data) {
+        onFreezeBufferReleased((byte[]) data);
+    }
+
+    /**
+     * Copies a YUV_420_888 image into the given NV21 array, taking row and pixel
+     * strides into account.
+     */
+    static void toNv21(@NonNull Image image, @NonNull Size size, @NonNull byte[] output) {
+        int width = size.getWidth();
+        int height = size.getHeight();
+        Image.Plane[] planes = image.getPlanes();
+
+        // Luma: bulk copy each row when pixels are contiguous.
+        ByteBuffer y = planes[0].getBuffer().duplicate();
+        int yRowStride = planes[0].getRowStride();
+        int yPixelStride = planes[0].getPixelStride();
+        for (int row = 0; row < height; row++) {
+            int out = row * width;
+            if (yPixelStride == 1) {
+                y.position(row * yRowStride);
+                y.get(output, out, width);
+            } else {
+                int base = row * yRowStride;
+                for (int x = 0; x < width; x++) {
+                    output[out + x] = y.get(base + x * yPixelStride);
+                }
+            }
+        }
+
+        // Chroma: NV21 interleaves V and U samples.
+        ByteBuffer u = planes[1].getBuffer();
+        ByteBuffer v = planes[2].getBuffer();
+        int uRowStride = planes[1].getRowStride();
+        int uPixelStride = planes[1].getPixelStride();
+        int vRowStride = planes[2].getRowStride();
+        int vPixelStride = planes[2].getPixelStride();
+        int out = width * height;
+        for (int row = 0; row < height / 2; row++) {
+            int uBase = row * uRowStride;
+            int vBase = row * vRowStride;
+            for (int x = 0; x < width / 2; x++) {
+                output[out++] = v.get(vBase + x * vPixelStride);
+                output[out++] = u.get(uBase + x * uPixelStride);
+            }
+        }
     }
 }
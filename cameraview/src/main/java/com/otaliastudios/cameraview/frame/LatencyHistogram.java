@@ -0,0 +1,124 @@
+package com.otaliastudios.cameraview.frame;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies, as recorded by {@link FrameProcessingStats}.
+ *
+ * Values are stored in nanoseconds, in preallocated buckets: each power of two is split in
+ * four buckets, so that percentiles are accurate within 25%. Recording does not lock or
+ * allocate, and can happen from multiple threads while the histogram is being read.
+ */
+public final class LatencyHistogram {
+
+    private final static int SUB_BUCKETS_SHIFT = 2;
+    private final static int SUB_BUCKETS = 1 << SUB_BUCKETS_SHIFT;
+    private final static int BUCKETS = SUB_BUCKETS * 62;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong mCount = new AtomicLong(0);
+    private final AtomicLong mSum = new AtomicLong(0);
+    private final AtomicLong mMax = new AtomicLong(0);
+
+    LatencyHistogram() {}
+
+    /**
+     * Records a new value.
+     * @param nanos the latency in nanoseconds
+     */
+    void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        mBuckets.incrementAndGet(index(nanos));
+        mCount.incrementAndGet();
+        mSum.addAndGet(nanos);
+        long max;
+        do {
+            max = mMax.get();
+        } while (nanos > max && !mMax.compareAndSet(max, nanos));
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            mBuckets.set(i, 0);
+        }
+        mCount.set(0);
+        mSum.set(0);
+        mMax.set(0);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     * @return the count
+     */
+    public long getCount() {
+        return mCount.get();
+    }
+
+    /**
+     * Returns the average of recorded values, in the given unit.
+     * @param unit the time unit
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public long getMean(TimeUnit unit) {
+        long count = mCount.get();
+        if (count == 0) return 0;
+        return unit.convert(mSum.get() / count, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the highest recorded value, in the given unit.
+     * @param unit the time unit
+     * @return the max, or 0 if nothing was recorded
+     */
+    public long getMax(TimeUnit unit) {
+        return unit.convert(mMax.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns an upper bound for the given percentile of the recorded values, in the
+     * given unit. For instance, a percentile of 0.99F returns a latency that is higher than
+     * or equal to 99% of the recorded values.
+     *
+     * @param percentile a percentile, between 0 and 1
+     * @param unit the time unit
+     * @return the percentile, or 0 if nothing was recorded
+     */
+    public long getPercentile(float percentile, TimeUnit unit) {
+        if (percentile < 0F || percentile > 1F) {
+            throw new IllegalArgumentException("Percentile should be in [0, 1], got "
+                    + percentile);
+        }
+        long count = mCount.get();
+        if (count == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(percentile * count));
+        long max = mMax.get();
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += mBuckets.get(i);
+            if (seen >= target) {
+                return unit.convert(Math.min(upperBound(i), max), TimeUnit.NANOSECONDS);
+            }
+        }
+        return unit.convert(max, TimeUnit.NANOSECONDS);
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKETS_SHIFT;
+        int subBucket = (int) (value >> shift) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, SUB_BUCKETS * (shift + 1) + subBucket);
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
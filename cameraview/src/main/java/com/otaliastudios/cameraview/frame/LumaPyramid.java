@@ -0,0 +1,121 @@
+package com.otaliastudios.cameraview.frame;
+
+import android.graphics.Rect;
+
+import com.otaliastudios.cameraview.engine.offset.Reference;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Downsampled luma levels of a {@link Frame}, as returned by {@link Frame#getLumaLevel(int)}.
+ * Level N has both dimensions divided by 2^N, and each pixel is the average of the
+ * corresponding 2x2 block of level N-1.
+ *
+ * Levels are computed lazily, the first time they are requested, and each one is computed
+ * at most once per frame: processors receiving the same frame share the result.
+ * Buffers come from the {@link FrameManager} and go back to it when the frame is released.
+ */
+class LumaPyramid {
+
+    /**
+     * The max level that can be requested.
+     */
+    final static int MAX_LEVEL = 6;
+
+    private final FrameManager mManager;
+    private final byte[][] mLevels = new byte[MAX_LEVEL + 1][];
+    private final int[] mWidths = new int[MAX_LEVEL + 1];
+    private final int[] mHeights = new int[MAX_LEVEL + 1];
+    private int mComputedLevel = 0;
+
+    LumaPyramid(@NonNull FrameManager manager) {
+        mManager = manager;
+    }
+
+    /**
+     * Returns a luma view of the given level, computing it and all the levels
+     * before it if needed.
+     */
+    @NonNull
+    synchronized FrameView get(@NonNull Frame frame, int level) {
+        if (level < 0 || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Level should be in [0, " + MAX_LEVEL + "], got "
+                    + level);
+        }
+        int width = frame.getSize().getWidth();
+        int height = frame.getSize().getHeight();
+        if (level == 0) {
+            return frame.viewLuma(new Rect(0, 0, width, height), Reference.SENSOR);
+        }
+        if ((width >> level) == 0 || (height >> level) == 0) {
+            throw new IllegalArgumentException("Level " + level + " is too small for a "
+                    + width + "x" + height + " frame.");
+        }
+        if (mComputedLevel == 0) {
+            FrameView source = get(frame, 0);
+            downsample(source.getPlane(0), source.getRowStride(0), source.getPixelStride(0),
+                    width, height, 1);
+        }
+        for (int i = mComputedLevel + 1; i <= level; i++) {
+            downsample(ByteBuffer.wrap(mLevels[i - 1]), mWidths[i - 1], 1,
+                    mWidths[i - 1], mHeights[i - 1], i);
+        }
+        return new FrameView(mLevels[level], mWidths[level], mHeights[level]);
+    }
+
+    /**
+     * Computes the given level by averaging 2x2 blocks of the source.
+     */
+    private void downsample(@NonNull ByteBuffer source, int rowStride, int pixelStride,
+                            int sourceWidth, int sourceHeight, int level) {
+        int width = sourceWidth / 2;
+        int height = sourceHeight / 2;
+        byte[] output = mManager.getLumaBuffer(level, width * height);
+        if (source.hasArray() && pixelStride == 1) {
+            byte[] input = source.array();
+            int base = source.arrayOffset() + source.position();
+            for (int y = 0; y < height; y++) {
+                int row0 = base + 2 * y * rowStride;
+                int row1 = row0 + rowStride;
+                int out = y * width;
+                for (int x = 0; x < width; x++) {
+                    int sum = (input[row0 + 2 * x] & 0xFF) + (input[row0 + 2 * x + 1] & 0xFF)
+                            + (input[row1 + 2 * x] & 0xFF) + (input[row1 + 2 * x + 1] & 0xFF);
+                    output[out + x] = (byte) ((sum + 2) >> 2);
+                }
+            }
+        } else {
+            int base = source.position();
+            for (int y = 0; y < height; y++) {
+                int row0 = base + 2 * y * rowStride;
+                int row1 = row0 + rowStride;
+                int out = y * width;
+                for (int x = 0; x < width; x++) {
+                    int col0 = 2 * x * pixelStride;
+                    int col1 = col0 + pixelStride;
+                    int sum = (source.get(row0 + col0) & 0xFF) + (source.get(row0 + col1) & 0xFF)
+                            + (source.get(row1 + col0) & 0xFF) + (source.get(row1 + col1) & 0xFF);
+                    output[out + x] = (byte) ((sum + 2) >> 2);
+                }
+            }
+        }
+        mLevels[level] = output;
+        mWidths[level] = width;
+        mHeights[level] = height;
+        mComputedLevel = level;
+    }
+
+    /**
+     * Gives all buffers back to the manager.
+     * Called when the frame is released.
+     */
+    synchronized void release() {
+        for (int i = 1; i <= mComputedLevel; i++) {
+            mManager.onLumaBufferReleased(i, mLevels[i]);
+            mLevels[i] = null;
+        }
+        mComputedLevel = 0;
+    }
+}
@@ -0,0 +1,181 @@
+package com.otaliastudios.cameraview.frame;
+
+import com.otaliastudios.cameraview.CameraLogger;
+import com.otaliastudios.cameraview.CameraView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link FrameProcessor} that processes frames in parallel on its own threads, and
+ * delivers their results to a {@link Callback} strictly in the order frames were received.
+ *
+ * Each frame gets a sequence number when it is passed to {@link #process(Frame)}. Results
+ * that complete early are kept in a reorder buffer until all previous frames are done, so
+ * the callback can keep state, for example for tracking. At most window frames can be
+ * pending at any time: when the window is full, incoming frames are dropped, so that a slow
+ * frame can never make memory grow.
+ *
+ * Sequence numbers are claimed in the order {@link #process(Frame)} is called, which is
+ * capture order as long as {@link CameraView#setFrameProcessingExecutors(int)} is 1, or
+ * when the processor is registered with a {@link FrameProcessingPolicy}. Parallelism comes
+ * from the threads of this processor instead.
+ *
+ * Pending frames are retained, so the window should be tuned together with
+ * {@link CameraView#setFrameProcessingPoolSize(int)}.
+ *
+ * @param <T> the result type
+ */
+public final class OrderedFrameProcessor<T> implements FrameProcessor {
+
+    /**
+     * Receives the results of an {@link OrderedFrameProcessor}, in order.
+     *
+     * @param <T> the result type
+     */
+    public interface Callback<T> {
+
+        /**
+         * Called with the result of a frame. This is called on one of the processing
+         * threads, but never concurrently, and sequences are always increasing.
+         * Frames whose result is null are skipped.
+         *
+         * @param sequence the frame sequence number, starting at 0
+         * @param result the result
+         */
+        @WorkerThread
+        void onFrameResult(long sequence, @NonNull T result);
+    }
+
+    private final static String TAG = OrderedFrameProcessor.class.getSimpleName();
+    private final static CameraLogger LOG = CameraLogger.create(TAG);
+    private final static AtomicInteger sCount = new AtomicInteger(1);
+
+    private final FrameStage<Frame, T> mStage;
+    private final FrameReorderBuffer<T> mBuffer;
+    private final ThreadPoolExecutor mExecutor;
+    private final AtomicLong mDroppedFrames = new AtomicLong(0);
+
+    /**
+     * Creates a new processor with a window of twice the number of threads.
+     *
+     * @param stage computes the result of each frame, concurrently
+     * @param callback receives the results in order
+     * @param threads the number of processing threads
+     */
+    public OrderedFrameProcessor(@NonNull FrameStage<Frame, T> stage,
+                                 @NonNull Callback<T> callback,
+                                 int threads) {
+        this(stage, callback, threads, threads * 2);
+    }
+
+    /**
+     * Creates a new processor.
+     *
+     * @param stage computes the result of each frame, concurrently
+     * @param callback receives the results in order
+     * @param threads the number of processing threads
+     * @param window the max number of frames being processed or waiting for previous ones
+     */
+    public OrderedFrameProcessor(@NonNull FrameStage<Frame, T> stage,
+                                 @NonNull Callback<T> callback,
+                                 int threads,
+                                 int window) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads should be at least 1, got " + threads);
+        }
+        mStage = stage;
+        mBuffer = new FrameReorderBuffer<>(callback, window);
+        final String name = "OrderedFrameProcessor #" + sCount.getAndIncrement();
+        final AtomicInteger threadCount = new AtomicInteger(1);
+        mExecutor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                4,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(@NonNull Runnable r) {
+                        return new Thread(r, name + " thread " + threadCount.getAndIncrement());
+                    }
+                }
+        );
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Claims the next sequence number and passes the frame to the processing threads.
+     * The frame is retained until the stage has processed it, so this returns immediately.
+     *
+     * @param frame the new frame
+     */
+    @Override
+    public void process(@NonNull final Frame frame) {
+        final long sequence = mBuffer.claim();
+        if (sequence < 0) {
+            LOG.v("process:", "window is full. Dropping frame.");
+            mDroppedFrames.incrementAndGet();
+            return;
+        }
+        frame.retain();
+        try {
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    T result = null;
+                    try {
+                        result = mStage.process(frame);
+                    } catch (Exception e) {
+                        LOG.w("Frame stage crashed:", e);
+                    } finally {
+                        // Complete even if release() throws, or later frames would wait forever.
+                        try {
+                            frame.release();
+                        } finally {
+                            mBuffer.complete(sequence, result);
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.w("process:", "processor was released. Dropping frame.");
+            frame.release();
+            mDroppedFrames.incrementAndGet();
+            mBuffer.complete(sequence, null);
+        }
+    }
+
+    /**
+     * Returns the number of frames being processed or waiting for previous ones.
+     * @return the pending frames
+     */
+    public int getPendingFrames() {
+        return mBuffer.getPendingCount();
+    }
+
+    /**
+     * Returns the number of frames that were dropped because the window was full.
+     * @return the dropped frames
+     */
+    public long getDroppedFrames() {
+        return mDroppedFrames.get();
+    }
+
+    /**
+     * Releases this processor. Frames being processed are completed and delivered, while
+     * frames passed to {@link #process(Frame)} after this call are dropped.
+     * If the processor was added to a {@link CameraView}, it should be removed first.
+     */
+    public void release() {
+        mExecutor.shutdown();
+    }
+}
@@ -0,0 +1,267 @@
+package com.otaliastudios.cameraview.frame;
+
+import com.otaliastudios.cameraview.CameraLogger;
+import com.otaliastudios.cameraview.engine.offset.Reference;
+import com.otaliastudios.cameraview.internal.RingBuffer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Converts {@link Frame}s to ARGB_8888 pixels, for processors that need RGB data.
+ * {@link android.graphics.ImageFormat#NV21} byte arrays or buffers and
+ * {@link android.graphics.ImageFormat#YUV_420_888} images are supported.
+ *
+ * Output arrays are pooled: each {@link RgbFrame} should be released when done, so that
+ * its array can be reused. Work is split into row stripes that run in parallel, on a few
+ * threads owned by the converter and on the calling thread.
+ *
+ * Downscaling and rotation happen in the same pass, by picking the source pixel that
+ * matches each output pixel. The converter can be shared by multiple processors, and
+ * should be released when not needed anymore.
+ */
+public class RgbConverter {
+
+    private final static String TAG = RgbConverter.class.getSimpleName();
+    private final static CameraLogger LOG = CameraLogger.create(TAG);
+    private final static AtomicInteger sCount = new AtomicInteger(1);
+    private final static int POOL_SIZE = 3;
+    private final static int MIN_STRIPE_ROWS = 16;
+
+    private final int mStripes;
+    private final ThreadPoolExecutor mExecutor;
+    private final RingBuffer<int[]> mPixelsPool = new RingBuffer<>(POOL_SIZE);
+    private volatile boolean mReleased = false;
+
+    /**
+     * Creates a new converter that uses all available cores.
+     */
+    public RgbConverter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new converter that splits work in the given number of stripes.
+     * One of them runs on the calling thread, so a value of 1 means that no
+     * threads are used.
+     *
+     * @param stripes the number of stripes
+     */
+    public RgbConverter(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Need at least 1 stripe, got " + stripes);
+        }
+        mStripes = stripes;
+        final String name = "RgbConverter #" + sCount.getAndIncrement();
+        mExecutor = new ThreadPoolExecutor(
+                Math.max(1, stripes - 1),
+                Math.max(1, stripes - 1),
+                4,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger(1);
+                    @Override
+                    public Thread newThread(@NonNull Runnable r) {
+                        return new Thread(r, name + "-" + mCount.getAndIncrement());
+                    }
+                }
+        );
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Converts the given frame at full resolution, in sensor orientation.
+     * @param frame the frame
+     * @return the converted frame
+     */
+    @WorkerThread
+    @NonNull
+    public RgbFrame convert(@NonNull Frame frame) {
+        return convert(frame, 1, Reference.SENSOR);
+    }
+
+    /**
+     * Converts the given frame, downscaling it by the given factor and rotating it
+     * to the given reference. For example, passing {@link Reference#OUTPUT} returns
+     * pixels as the user sees them, without the need for a separate rotation step.
+     *
+     * This method blocks until conversion is done, so the frame can be released
+     * right after it returns.
+     *
+     * @param frame the frame
+     * @param downscale the downscale factor, 1 to keep the full resolution
+     * @param reference one of {@link Reference#SENSOR}, {@link Reference#OUTPUT}
+     *                  or {@link Reference#VIEW}
+     * @return the converted frame
+     */
+    @WorkerThread
+    @NonNull
+    public RgbFrame convert(@NonNull Frame frame, int downscale, @NonNull Reference reference) {
+        if (mReleased) {
+            throw new IllegalStateException("Can't call convert() after release().");
+        }
+        if (downscale < 1) {
+            throw new IllegalArgumentException("Downscale should be at least 1, got "
+                    + downscale);
+        }
+        int width = frame.getSize().getWidth();
+        int height = frame.getSize().getHeight();
+        int rotation = frame.getRotation(reference);
+        FrameView source = frame.view();
+        int scaledWidth = width / downscale;
+        int scaledHeight = height / downscale;
+        boolean flip = rotation == 90 || rotation == 270;
+        int outputWidth = flip ? scaledHeight : scaledWidth;
+        int outputHeight = flip ? scaledWidth : scaledHeight;
+        int[] pixels = getPixels(outputWidth * outputHeight);
+        Task task = new Task(source, pixels, scaledWidth, scaledHeight,
+                outputWidth, downscale, rotation);
+
+        int stripes = Math.max(1, Math.min(mStripes, outputHeight / MIN_STRIPE_ROWS));
+        if (stripes == 1) {
+            task.run(0, outputHeight);
+        } else {
+            CountDownLatch latch = new CountDownLatch(stripes - 1);
+            int rows = (outputHeight + stripes - 1) / stripes;
+            for (int i = 1; i < stripes; i++) {
+                int start = i * rows;
+                mExecutor.execute(new Stripe(task, start, Math.min(outputHeight, start + rows),
+                        latch));
+            }
+            task.run(0, rows);
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                LOG.w("convert:", "interrupted while waiting for stripes.");
+                Thread.currentThread().interrupt();
+            }
+        }
+        return new RgbFrame(this, pixels, outputWidth, outputHeight, rotation,
+                frame.getTime());
+    }
+
+    @NonNull
+    private int[] getPixels(int size) {
+        int[] pixels = mPixelsPool.poll();
+        if (pixels == null || pixels.length < size) {
+            pixels = new int[size];
+        }
+        return pixels;
+    }
+
+    void onPixelsReleased(@NonNull int[] pixels) {
+        if (!mReleased) mPixelsPool.offer(pixels);
+    }
+
+    /**
+     * Releases this converter, stopping its threads and clearing the pool.
+     * It can not be used anymore after this call.
+     */
+    public void release() {
+        mReleased = true;
+        mExecutor.shutdown();
+        mPixelsPool.clear();
+    }
+
+    private static class Stripe implements Runnable {
+        private final Task mTask;
+        private final int mStart;
+        private final int mEnd;
+        private final CountDownLatch mLatch;
+
+        private Stripe(@NonNull Task task, int start, int end, @NonNull CountDownLatch latch) {
+            mTask = task;
+            mStart = start;
+            mEnd = end;
+            mLatch = latch;
+        }
+
+        @Override
+        public void run() {
+            try {
+                mTask.run(mStart, mEnd);
+            } finally {
+                mLatch.countDown();
+            }
+        }
+    }
+
+    /**
+     * Converts rows of the output. Each output pixel is mapped back to the unrotated,
+     * downscaled frame and then to the source pixel.
+     */
+    private static class Task {
+        private final ByteBuffer mY, mU, mV;
+        private final int mYRowStride, mYPixelStride;
+        private final int mURowStride, mUPixelStride;
+        private final int mVRowStride, mVPixelStride;
+        private final int[] mPixels;
+        private final int mScaledWidth, mScaledHeight, mOutputWidth;
+        private final int mDownscale, mRotation;
+
+        private Task(@NonNull FrameView source, @NonNull int[] pixels,
+                     int scaledWidth, int scaledHeight, int outputWidth,
+                     int downscale, int rotation) {
+            mY = source.getPlane(0);
+            mU = source.getPlane(1);
+            mV = source.getPlane(2);
+            mYRowStride = source.getRowStride(0);
+            mYPixelStride = source.getPixelStride(0);
+            mURowStride = source.getRowStride(1);
+            mUPixelStride = source.getPixelStride(1);
+            mVRowStride = source.getRowStride(2);
+            mVPixelStride = source.getPixelStride(2);
+            mPixels = pixels;
+            mScaledWidth = scaledWidth;
+            mScaledHeight = scaledHeight;
+            mOutputWidth = outputWidth;
+            mDownscale = downscale;
+            mRotation = rotation;
+        }
+
+        private void run(int startRow, int endRow) {
+            for (int v = startRow; v < endRow; v++) {
+                int out = v * mOutputWidth;
+                for (int u = 0; u < mOutputWidth; u++) {
+                    int x, y;
+                    switch (mRotation) {
+                        case 90: x = v; y = mScaledHeight - 1 - u; break;
+                        case 180: x = mScaledWidth - 1 - u; y = mScaledHeight - 1 - v; break;
+                        case 270: x = mScaledWidth - 1 - v; y = u; break;
+                        default: x = u; y = v; break;
+                    }
+                    x *= mDownscale;
+                    y *= mDownscale;
+                    int luma = mY.get(y * mYRowStride + x * mYPixelStride) & 0xFF;
+                    int cx = x / 2;
+                    int cy = y / 2;
+                    int cb = (mU.get(cy * mURowStride + cx * mUPixelStride) & 0xFF) - 128;
+                    int cr = (mV.get(cy * mVRowStride + cx * mVPixelStride) & 0xFF) - 128;
+                    mPixels[out + u] = toArgb(luma, cb, cr);
+                }
+            }
+        }
+    }
+
+    /**
+     * Full range BT.601 conversion, in 10 bit fixed point.
+     */
+    static int toArgb(int luma, int cb, int cr) {
+        int r = luma + ((1436 * cr) >> 10);
+        int g = luma - ((352 * cb + 731 * cr) >> 10);
+        int b = luma + ((1815 * cb) >> 10);
+        r = r < 0 ? 0 : (r > 255 ? 255 : r);
+        g = g < 0 ? 0 : (g > 255 ? 255 : g);
+        b = b < 0 ? 0 : (b > 255 ? 255 : b);
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+}
@@ -0,0 +1,103 @@
+package com.otaliastudios.cameraview.frame;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+/**
+ * The output of {@link RgbConverter}: a frame in ARGB_8888 format, stored as an int array
+ * with one pixel per int, row after row.
+ *
+ * The pixels array is pooled. When done, call {@link #release()} so that it can be reused
+ * for the next conversion. The array should not be used after that.
+ */
+public final class RgbFrame {
+
+    private final RgbConverter mConverter;
+    private int[] mPixels;
+    private final int mWidth;
+    private final int mHeight;
+    private final int mRotation;
+    private final long mTime;
+
+    RgbFrame(@NonNull RgbConverter converter, @NonNull int[] pixels,
+             int width, int height, int rotation, long time) {
+        mConverter = converter;
+        mPixels = pixels;
+        mWidth = width;
+        mHeight = height;
+        mRotation = rotation;
+        mTime = time;
+    }
+
+    private void ensureNotReleased() {
+        if (mPixels == null) {
+            throw new IllegalStateException("This RgbFrame was released.");
+        }
+    }
+
+    /**
+     * Returns the ARGB_8888 pixels. The array can be bigger than width * height,
+     * since it is pooled: only the first width * height values are meaningful.
+     * @return the pixels
+     */
+    @NonNull
+    public int[] getPixels() {
+        ensureNotReleased();
+        return mPixels;
+    }
+
+    /**
+     * Returns the width, after downscaling and rotation.
+     * @return the width
+     */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * Returns the height, after downscaling and rotation.
+     * @return the height
+     */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Returns the clock-wise rotation that was applied to the frame data.
+     * @return clock-wise rotation
+     */
+    public int getRotation() {
+        return mRotation;
+    }
+
+    /**
+     * Returns the time of the source frame, as in {@link Frame#getTime()}.
+     * @return the time
+     */
+    public long getTime() {
+        return mTime;
+    }
+
+    /**
+     * Copies the pixels into the given bitmap, which must be mutable, in ARGB_8888
+     * format, and at least as big as this frame. Reusing the same bitmap for
+     * all frames avoids allocations.
+     * @param bitmap the bitmap
+     */
+    public void copyTo(@NonNull Bitmap bitmap) {
+        ensureNotReleased();
+        bitmap.setPixels(mPixels, 0, mWidth, 0, 0, mWidth, mHeight);
+    }
+
+    /**
+     * Gives the pixels array back to the converter pool.
+     * This frame should not be used after this call.
+     */
+    public void release() {
+        if (mPixels != null) {
+            mConverter.onPixelsReleased(mPixels);
+            mPixels = null;
+        }
+    }
+}
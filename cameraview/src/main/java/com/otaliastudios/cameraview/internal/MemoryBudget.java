@@ -0,0 +1,213 @@
+package com.otaliastudios.cameraview.internal;
+
+import android.content.ComponentCallbacks2;
+
+import androidx.annotation.NonNull;
+
+import com.otaliastudios.cameraview.CameraLogger;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A process-wide cap on the memory held by camera buffers: frame pools, frozen frames,
+ * encoder buffers and overlay surfaces. These are allocated by independent components,
+ * so without a shared budget, for example, 4K frame processing during a video recording
+ * can run low-end devices out of memory.
+ *
+ * Components call {@link #tryReserve(long)} before allocating optional memory, and shrink
+ * or refuse the allocation when it returns false. Memory that must be allocated anyway is
+ * accounted with {@link #reserve(long)}, so that it reduces what is left for the others.
+ * Both are balanced by {@link #release(long)} when the memory is freed. The budget counts
+ * idle memory as well, like pooled buffers, until it is given back.
+ *
+ * Components that keep idle memory can {@link #register(Component)} to be trimmed when a
+ * reservation would exceed the limit and when the system is low on memory, as reported
+ * through {@link #onTrimMemory(int)}. After trimming components, the free buffers of the
+ * {@link SlabAllocator} are trimmed too, since components give their direct buffers back
+ * to it.
+ *
+ * There is no limit by default, which means that reservations always succeed.
+ */
+public final class MemoryBudget {
+
+    private static final String TAG = MemoryBudget.class.getSimpleName();
+    private static final CameraLogger LOG = CameraLogger.create(TAG);
+
+    /**
+     * A component that keeps idle memory, which can be given back when needed.
+     */
+    public interface Component {
+
+        /**
+         * Releases idle memory, like recycled buffers, and the matching reservations.
+         * Memory that is currently in use should not be affected.
+         * This can be called from any thread.
+         */
+        void trimMemory();
+    }
+
+    private final static MemoryBudget sInstance = new MemoryBudget();
+
+    /**
+     * Returns the process-wide budget.
+     * @return the budget
+     */
+    @NonNull
+    public static MemoryBudget get() {
+        return sInstance;
+    }
+
+    private final AtomicLong mUsedBytes = new AtomicLong(0);
+    private final AtomicLong mRefusedCount = new AtomicLong(0);
+    private final AtomicLong mTrimCount = new AtomicLong(0);
+    private final CopyOnWriteArrayList<Component> mComponents = new CopyOnWriteArrayList<>();
+    private volatile long mLimit = 0;
+
+    MemoryBudget() { }
+
+    /**
+     * Sets the max number of bytes that camera buffers can hold at any given time,
+     * or 0 for no limit, which is the default. Memory that is already reserved is not
+     * affected, but new reservations will be refused until enough of it is released.
+     * @param bytes the limit in bytes
+     */
+    public void setLimit(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Limit should be >= 0, got " + bytes);
+        }
+        mLimit = bytes;
+    }
+
+    /**
+     * Returns the limit in bytes, or 0 if there is no limit.
+     * @return the limit
+     * @see #setLimit(long)
+     */
+    public long getLimit() {
+        return mLimit;
+    }
+
+    /**
+     * Returns the number of bytes that are currently reserved.
+     * @return the reserved bytes
+     */
+    public long getUsedBytes() {
+        return mUsedBytes.get();
+    }
+
+    /**
+     * Returns the number of bytes that can still be reserved,
+     * or {@link Long#MAX_VALUE} if there is no limit.
+     * @return the available bytes
+     */
+    public long getAvailableBytes() {
+        long limit = mLimit;
+        if (limit == 0) return Long.MAX_VALUE;
+        return Math.max(0, limit - mUsedBytes.get());
+    }
+
+    /**
+     * Returns the number of {@link #tryReserve(long)} calls that were refused.
+     * @return the refused count
+     */
+    public long getRefusedCount() {
+        return mRefusedCount.get();
+    }
+
+    /**
+     * Returns the number of times that registered components were trimmed.
+     * @return the trim count
+     */
+    public long getTrimCount() {
+        return mTrimCount.get();
+    }
+
+    /**
+     * Registers a component that keeps idle memory, so that it is trimmed when needed.
+     * Components must be unregistered when released.
+     * @param component the component
+     */
+    public void register(@NonNull Component component) {
+        mComponents.addIfAbsent(component);
+    }
+
+    /**
+     * Unregisters a component that was registered through {@link #register(Component)}.
+     * @param component the component
+     */
+    public void unregister(@NonNull Component component) {
+        mComponents.remove(component);
+    }
+
+    /**
+     * Reserves the given number of bytes, if they fit in the limit. If they don't,
+     * idle memory is trimmed and the reservation is attempted again.
+     * When this returns false, callers should not allocate.
+     * @param bytes the bytes to reserve
+     * @return true if reserved
+     */
+    public boolean tryReserve(long bytes) {
+        if (reserveIfFits(bytes)) return true;
+        LOG.i("tryReserve:", bytes, "bytes would exceed the limit. Trimming.", this);
+        trim();
+        if (reserveIfFits(bytes)) return true;
+        mRefusedCount.incrementAndGet();
+        LOG.w("tryReserve: refusing", bytes, "bytes.", this);
+        return false;
+    }
+
+    private boolean reserveIfFits(long bytes) {
+        while (true) {
+            long limit = mLimit;
+            long current = mUsedBytes.get();
+            if (limit != 0 && current + bytes > limit) return false;
+            if (mUsedBytes.compareAndSet(current, current + bytes)) return true;
+        }
+    }
+
+    /**
+     * Reserves the given number of bytes, even if this exceeds the limit.
+     * This should be used for memory that is allocated anyway.
+     * @param bytes the bytes to reserve
+     */
+    public void reserve(long bytes) {
+        mUsedBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Releases bytes reserved through {@link #tryReserve(long)} or {@link #reserve(long)}.
+     * @param bytes the bytes to release
+     */
+    public void release(long bytes) {
+        mUsedBytes.addAndGet(-bytes);
+    }
+
+    /**
+     * Should be called from {@link ComponentCallbacks2#onTrimMemory(int)}.
+     * From {@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_LOW} on, this drains the idle
+     * memory of registered components and of the {@link SlabAllocator}.
+     * @param level the trim level
+     */
+    public void onTrimMemory(int level) {
+        if (level < ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) return;
+        LOG.i("onTrimMemory: level", level, "trimming.", this);
+        trim();
+    }
+
+    private void trim() {
+        mTrimCount.incrementAndGet();
+        for (Component component : mComponents) {
+            component.trimMemory();
+        }
+        SlabAllocator.get().trim();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " - used:" + getUsedBytes()
+                + ", limit:" + getLimit() + ", components:" + mComponents.size()
+                + ", refused:" + getRefusedCount() + ", trims:" + getTrimCount();
+    }
+}
@@ -2,7 +2,8 @@ package com.otaliastudios.cameraview.internal;
 
 import com.otaliastudios.cameraview.CameraLogger;
 
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
@@ -10,6 +11,20 @@ import androidx.annotation.Nullable;
 
 /**
  * Base class for thread-safe pools of recycleable objects.
+ *
+ * Recycled items are kept in a {@link RingBuffer} and counts are atomic, so {@link #get()}
+ * and {@link #recycle(Object)} never take locks or allocate, except when the factory is called.
+ * This matters because pools are used on encoder hot paths, for every audio chunk and
+ * every encoded packet.
+ *
+ * The ring holds up to the max pool size, or up to {@link #MAX_RECYCLED_ITEMS} for larger
+ * pools: in this case, items recycled while the ring is full are not kept, and are no longer
+ * managed by the pool.
+ *
+ * The pool also counts hits (recycled items returned by {@link #get()}), misses (null
+ * returned by {@link #get()}), creations and the peak of active items, which can be
+ * used to tune the pool size.
+ *
  * @param <T> the object type
  */
 public class Pool<T> {
@@ -17,17 +32,30 @@ public class Pool<T> {
     private static final String TAG = Pool.class.getSimpleName();
     private static final CameraLogger LOG = CameraLogger.create(TAG);
 
-    private int maxPoolSize;
-    private int activeCount;
-    private LinkedBlockingQueue<T> queue;
-    private Factory<T> factory;
-    private final Object lock = new Object();
+    /**
+     * The max number of recycled items kept by pools whose max size is bigger than this,
+     * for example unbounded pools. This avoids preallocating huge rings.
+     */
+    public static final int MAX_RECYCLED_ITEMS = 256;
+
+    private final int maxPoolSize;
+    private final RingBuffer<T> recycled;
+    private final Factory<T> factory;
+    private final AtomicInteger count = new AtomicInteger(0);
+    private final AtomicInteger activeCount = new AtomicInteger(0);
+    private final AtomicInteger peakActiveCount = new AtomicInteger(0);
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+    private final AtomicLong creationCount = new AtomicLong(0);
 
     /**
      * Used to create new instances of objects when needed.
+     * The factory can return null to refuse the creation, for example when
+     * the {@link MemoryBudget} is exceeded, in which case {@link #get()} returns null.
      * @param <T> object type
      */
     public interface Factory<T> {
+        @Nullable
         T create();
     }
 
@@ -38,7 +66,7 @@ public class Pool<T> {
      */
     public Pool(int maxPoolSize, @NonNull Factory<T> factory) {
         this.maxPoolSize = maxPoolSize;
-        this.queue = new LinkedBlockingQueue<>(maxPoolSize);
+        this.recycled = new RingBuffer<>(Math.min(maxPoolSize, MAX_RECYCLED_ITEMS));
         this.factory = factory;
     }
 
@@ -49,37 +77,52 @@ public class Pool<T> {
      * @return whether the pool is empty
      */
     public boolean isEmpty() {
-        synchronized (lock) {
-            return count() >= maxPoolSize;
-        }
+        return activeCount.get() >= maxPoolSize;
     }
 
     /**
      * Returns a new item, from the recycled pool if possible (if there are recycled items),
      * or instantiating one through the factory (if we can respect the pool size).
-     * If these conditions are not met, this returns null.
+     * If these conditions are not met, or the factory refuses to create an item,
+     * this returns null.
      *
      * @return an item or null
      */
     @Nullable
     public T get() {
-        synchronized (lock) {
-            T item = queue.poll();
-            if (item != null) {
-                activeCount++; // poll decreases, this fixes
-                LOG.v("GET - Reusing recycled item.", this);
-                return item;
-            }
-
-            if (isEmpty()) {
+        T item = recycled.poll();
+        if (item != null) return onGet(item, hitCount);
+        while (true) {
+            int current = count.get();
+            if (current >= maxPoolSize) {
+                // An item might have been recycled after our poll.
+                item = recycled.poll();
+                if (item != null) return onGet(item, hitCount);
+                missCount.incrementAndGet();
                 LOG.v("GET - Returning null. Too much items requested.", this);
                 return null;
             }
-
-            activeCount++;
-            LOG.v("GET - Creating a new item.", this);
-            return factory.create();
+            if (count.compareAndSet(current, current + 1)) break;
+        }
+        T created = factory.create();
+        if (created == null) {
+            count.decrementAndGet();
+            missCount.incrementAndGet();
+            LOG.v("GET - Returning null. The factory refused to create an item.", this);
+            return null;
         }
+        return onGet(created, creationCount);
+    }
+
+    @NonNull
+    private T onGet(@NonNull T item, @NonNull AtomicLong counter) {
+        counter.incrementAndGet();
+        int active = activeCount.incrementAndGet();
+        int peak;
+        do {
+            peak = peakActiveCount.get();
+        } while (active > peak && !peakActiveCount.compareAndSet(peak, active));
+        return item;
     }
 
     /**
@@ -89,20 +132,24 @@ public class Pool<T> {
      * @param item used item
      */
     public void recycle(@NonNull T item) {
-        synchronized (lock) {
-            LOG.v("RECYCLE - Recycling item.", this);
-            if (--activeCount < 0) {
-                throw new IllegalStateException("Trying to recycle an item which makes " +
-                        "activeCount < 0. This means that this or some previous items being " +
-                        "recycled were not coming from this pool, or some item was recycled " +
-                        "more than once. " + this);
-            }
-            if (!queue.offer(item)) {
+        if (activeCount.decrementAndGet() < 0) {
+            activeCount.incrementAndGet();
+            throw new IllegalStateException("Trying to recycle an item which makes " +
+                    "activeCount < 0. This means that this or some previous items being " +
+                    "recycled were not coming from this pool, or some item was recycled " +
+                    "more than once. " + this);
+        }
+        if (!recycled.offer(item)) {
+            if (recycled.capacity() >= maxPoolSize) {
+                activeCount.incrementAndGet();
                 throw new IllegalStateException("Trying to recycle an item while the queue " +
                         "is full. This means that this or some previous items being recycled " +
                         "were not coming from this pool, or some item was recycled " +
                         "more than once. " + this);
             }
+            // The ring is capped below the pool size. Let this item go.
+            count.decrementAndGet();
+            onItemDiscarded(item);
         }
     }
 
@@ -111,22 +158,35 @@ public class Pool<T> {
      */
     @CallSuper
     public void clear() {
-        synchronized (lock) {
-            queue.clear();
+        T item;
+        while ((item = recycled.poll()) != null) {
+            count.decrementAndGet();
+            onItemDiscarded(item);
         }
     }
 
+    /**
+     * Called when a recycled item is no longer managed by this pool, either because
+     * of {@link #clear()} or because there was no room to keep it. Subclasses can
+     * release the item resources here.
+     *
+     * @param item the discarded item
+     */
+    protected void onItemDiscarded(@NonNull T item) {
+        // Do nothing by default.
+    }
+
     /**
      * Returns the count of all items managed by this pool. Includes
      * - active items: currently being used
      * - recycled items: used and recycled, available for second use
      *
+     * When other threads are using the pool, this is an estimate.
+     *
      * @return count
      */
     public final int count() {
-        synchronized (lock) {
-            return activeCount() + recycledCount();
-        }
+        return count.get();
     }
 
     /**
@@ -137,9 +197,7 @@ public class Pool<T> {
      */
     @SuppressWarnings("WeakerAccess")
     public final int activeCount() {
-        synchronized (lock) {
-            return activeCount;
-        }
+        return activeCount.get();
     }
 
     /**
@@ -151,14 +209,48 @@ public class Pool<T> {
      */
     @SuppressWarnings("WeakerAccess")
     public final int recycledCount() {
-        synchronized (lock) {
-            return queue.size();
-        }
+        return recycled.size();
+    }
+
+    /**
+     * Returns the number of {@link #get()} calls that returned a recycled item.
+     * @return hit count
+     */
+    public final long hitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of {@link #get()} calls that returned null,
+     * because the pool size was reached or the factory refused to create an item.
+     * @return miss count
+     */
+    public final long missCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of items created through the {@link Factory}.
+     * @return creation count
+     */
+    public final long creationCount() {
+        return creationCount.get();
+    }
+
+    /**
+     * Returns the max number of items that were active at the same time.
+     * @return peak active count
+     */
+    public final int peakActiveCount() {
+        return peakActiveCount.get();
     }
 
     @NonNull
     @Override
     public String toString() {
-        return getClass().getSimpleName() + " - count:" + count() + ", active:" + activeCount() + ", recycled:" + recycledCount();
+        return getClass().getSimpleName() + " - count:" + count() + ", active:" + activeCount()
+                + ", recycled:" + recycledCount() + ", hits:" + hitCount()
+                + ", misses:" + missCount() + ", creations:" + creationCount()
+                + ", peak:" + peakActiveCount();
     }
 }
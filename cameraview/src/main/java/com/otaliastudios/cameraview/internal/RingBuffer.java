@@ -0,0 +1,143 @@
+package com.otaliastudios.cameraview.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed-capacity, lock-free queue backed by preallocated arrays.
+ * Unlike {@link java.util.concurrent.LinkedBlockingQueue}, {@link #offer(Object)} and
+ * {@link #poll()} never take locks or allocate nodes, so this can be used on hot paths
+ * like the camera callback thread. Any number of threads can offer and poll concurrently.
+ *
+ * This is a bounded MPMC queue based on per-slot sequence numbers. Each slot stores a sequence
+ * which tells whether the slot is free for the producer at a given position (2 * position)
+ * or filled for the consumer at that position (2 * position + 1). This encoding also works
+ * for a capacity of 1, which is common in our frame pools.
+ * An offer only fails if the ring is full, and a poll only fails if it is empty, even if another
+ * thread is in the middle of an operation on the same slot.
+ *
+ * @param <T> the item type
+ */
+public class RingBuffer<T> {
+
+    private final int mCapacity;
+    private final AtomicReferenceArray<T> mItems;
+    private final AtomicLongArray mSequences;
+    private final AtomicLong mProducerPosition = new AtomicLong(0);
+    private final AtomicLong mConsumerPosition = new AtomicLong(0);
+
+    /**
+     * Creates a new ring with the given capacity.
+     * @param capacity the max number of items
+     */
+    public RingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity should be at least 1, got " + capacity);
+        }
+        mCapacity = capacity;
+        mItems = new AtomicReferenceArray<>(capacity);
+        mSequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            mSequences.set(i, 2L * i);
+        }
+    }
+
+    /**
+     * Returns the max number of items in this ring.
+     * @return the capacity
+     */
+    public final int capacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Adds an item to the tail of this ring, if there is space.
+     * @param item the item
+     * @return true if added, false if the ring was full
+     */
+    public boolean offer(@NonNull T item) {
+        long position = mProducerPosition.get();
+        int index;
+        while (true) {
+            index = (int) (position % mCapacity);
+            long difference = mSequences.get(index) - 2 * position;
+            if (difference == 0) {
+                if (mProducerPosition.compareAndSet(position, position + 1)) break;
+                position = mProducerPosition.get();
+            } else if (difference < 0) {
+                // The slot still holds the item of the previous lap. Either the ring is full,
+                // or a consumer is about to free this slot: in this case, wait for it,
+                // so that callers can rely on a false return value.
+                if (position - mConsumerPosition.get() >= mCapacity) return false;
+                Thread.yield();
+                position = mProducerPosition.get();
+            } else {
+                position = mProducerPosition.get();
+            }
+        }
+        mItems.set(index, item);
+        mSequences.set(index, 2 * position + 1);
+        return true;
+    }
+
+    /**
+     * Removes and returns the item at the head of this ring, if any.
+     * @return the item, or null if the ring was empty
+     */
+    @Nullable
+    public T poll() {
+        long position = mConsumerPosition.get();
+        int index;
+        while (true) {
+            index = (int) (position % mCapacity);
+            long difference = mSequences.get(index) - (2 * position + 1);
+            if (difference == 0) {
+                if (mConsumerPosition.compareAndSet(position, position + 1)) break;
+                position = mConsumerPosition.get();
+            } else if (difference < 0) {
+                // The slot was not filled yet. Either the ring is empty, or a producer
+                // is about to fill this slot: in this case, wait for it.
+                if (mProducerPosition.get() <= position) return null;
+                Thread.yield();
+                position = mConsumerPosition.get();
+            } else {
+                position = mConsumerPosition.get();
+            }
+        }
+        T item = mItems.get(index);
+        mItems.set(index, null);
+        mSequences.set(index, 2 * (position + mCapacity));
+        return item;
+    }
+
+    /**
+     * Returns the number of items in this ring. When other threads are
+     * offering or polling, this is an estimate.
+     * @return the size
+     */
+    public int size() {
+        long size = mProducerPosition.get() - mConsumerPosition.get();
+        return (int) Math.max(0, Math.min(mCapacity, size));
+    }
+
+    /**
+     * Whether this ring is empty. When other threads are
+     * offering or polling, this is an estimate.
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Removes all items from this ring.
+     */
+    public void clear() {
+        //noinspection StatementWithEmptyBody
+        while (poll() != null) {}
+    }
+}
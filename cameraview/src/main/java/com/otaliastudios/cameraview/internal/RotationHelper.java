@@ -7,6 +7,8 @@ import androidx.annotation.NonNull;
 /**
  * This will only be used on low APIs or when GL surface is not available.
  * This risks OOMs and was never a good tool.
+ *
+ * @deprecated use {@link YuvRotator} instead
  */
 @SuppressWarnings("DeprecatedIsStillUsed")
 @Deprecated
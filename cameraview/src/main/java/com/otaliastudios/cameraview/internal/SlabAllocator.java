@@ -0,0 +1,251 @@
+package com.otaliastudios.cameraview.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A process-wide allocator of direct {@link ByteBuffer}s, shared by encoders and
+ * frame managers, so that direct memory is reused across recording sessions and
+ * camera restarts instead of being allocated and collected each time.
+ *
+ * Requests are rounded up to power-of-two size classes, from {@link #MIN_SIZE_CLASS}
+ * to {@link #MAX_SIZE_CLASS}. Leased buffers have the capacity of their size class,
+ * a limit equal to the requested size, and the default big endian order, like
+ * {@link ByteBuffer#allocateDirect(int)}. Callers should rely on the limit rather
+ * than on the capacity, and set it again after {@link ByteBuffer#clear()}.
+ *
+ * Released buffers are kept in a {@link RingBuffer} per size class, up to
+ * {@link #MAX_FREE_BUFFERS} buffers or {@link #MAX_FREE_BYTES} bytes per class.
+ * Buffers that do not fit, or that are bigger than {@link #MAX_SIZE_CLASS}, are
+ * left to the garbage collector. Leasing and releasing do not lock.
+ *
+ * Live bytes (leased and not released yet) and free bytes are reported per size class.
+ * Buffers that are never released still count as live.
+ *
+ * Both live and free buffers of a size class are reserved in the {@link MemoryBudget},
+ * until they are left to the garbage collector. {@link #tryLease(int)} refuses to allocate
+ * new buffers when this would exceed the budget, while {@link #lease(int)} always succeeds.
+ */
+public final class SlabAllocator {
+
+    /**
+     * The smallest size class, in bytes.
+     */
+    public final static int MIN_SIZE_CLASS = 1 << 10;
+
+    /**
+     * The biggest size class, in bytes.
+     */
+    public final static int MAX_SIZE_CLASS = 1 << 26;
+
+    /**
+     * The max number of free buffers kept for each size class.
+     */
+    public final static int MAX_FREE_BUFFERS = 64;
+
+    /**
+     * The max number of free bytes kept for each size class.
+     */
+    public final static long MAX_FREE_BYTES = 1 << 24;
+
+    private final static int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE_CLASS);
+    private final static int CLASSES = Integer.numberOfTrailingZeros(MAX_SIZE_CLASS)
+            - MIN_SHIFT + 1;
+
+    private final static SlabAllocator sInstance = new SlabAllocator(MemoryBudget.get());
+
+    /**
+     * Returns the process-wide allocator.
+     * @return the allocator
+     */
+    @NonNull
+    public static SlabAllocator get() {
+        return sInstance;
+    }
+
+    /**
+     * Returns the size class for the given size, that is the
+     * smallest power of two that can hold it.
+     * @param bytes the requested size
+     * @return the size class, or -1 if bigger than {@link #MAX_SIZE_CLASS}
+     */
+    public static int sizeClass(int bytes) {
+        if (bytes > MAX_SIZE_CLASS) return -1;
+        if (bytes <= MIN_SIZE_CLASS) return MIN_SIZE_CLASS;
+        return Integer.highestOneBit(bytes - 1) << 1;
+    }
+
+    private static int index(int sizeClass) {
+        return Integer.numberOfTrailingZeros(sizeClass) - MIN_SHIFT;
+    }
+
+    private final RingBuffer<ByteBuffer>[] mFree;
+    private final AtomicLongArray mLiveBytes = new AtomicLongArray(CLASSES);
+    private final MemoryBudget mBudget;
+
+    SlabAllocator(@NonNull MemoryBudget budget) {
+        mBudget = budget;
+        //noinspection unchecked
+        mFree = new RingBuffer[CLASSES];
+        for (int i = 0; i < CLASSES; i++) {
+            long sizeClass = (long) MIN_SIZE_CLASS << i;
+            long buffers = Math.max(1, Math.min(MAX_FREE_BUFFERS, MAX_FREE_BYTES / sizeClass));
+            mFree[i] = new RingBuffer<>((int) buffers);
+        }
+    }
+
+    /**
+     * Leases a direct buffer that can hold the given size. The buffer is positioned at 0
+     * and its limit is the requested size, but its contents are undefined.
+     * New buffers are reserved in the {@link MemoryBudget} even if this exceeds its limit.
+     * @param bytes the requested size
+     * @return a direct buffer
+     */
+    @NonNull
+    public ByteBuffer lease(int bytes) {
+        //noinspection ConstantConditions
+        return lease(bytes, true);
+    }
+
+    /**
+     * Like {@link #lease(int)}, but returns null if there is no free buffer
+     * and allocating a new one would exceed the {@link MemoryBudget}.
+     * @param bytes the requested size
+     * @return a direct buffer, or null
+     */
+    @Nullable
+    public ByteBuffer tryLease(int bytes) {
+        return lease(bytes, false);
+    }
+
+    @Nullable
+    private ByteBuffer lease(int bytes, boolean force) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Size should be >= 0, got " + bytes);
+        }
+        int sizeClass = sizeClass(bytes);
+        if (sizeClass < 0) {
+            // Not managed, so not reserved either.
+            return force || mBudget.getAvailableBytes() >= bytes
+                    ? ByteBuffer.allocateDirect(bytes) : null;
+        }
+        int index = index(sizeClass);
+        ByteBuffer buffer = mFree[index].poll();
+        if (buffer == null) {
+            if (force) {
+                mBudget.reserve(sizeClass);
+            } else if (!mBudget.tryReserve(sizeClass)) {
+                return null;
+            }
+            buffer = ByteBuffer.allocateDirect(sizeClass);
+        }
+        mLiveBytes.addAndGet(index, sizeClass);
+        buffer.clear();
+        buffer.limit(bytes);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        return buffer;
+    }
+
+    /**
+     * Gives back a buffer obtained through {@link #lease(int)}. The buffer
+     * should not be used after this call, and should not be released twice.
+     * Buffers whose capacity is not a size class are ignored.
+     * @param buffer the buffer
+     */
+    public void release(@NonNull ByteBuffer buffer) {
+        int sizeClass = buffer.capacity();
+        if (!buffer.isDirect() || sizeClass < MIN_SIZE_CLASS || sizeClass > MAX_SIZE_CLASS
+                || Integer.bitCount(sizeClass) != 1) {
+            return;
+        }
+        int index = index(sizeClass);
+        mLiveBytes.addAndGet(index, -sizeClass);
+        if (!mFree[index].offer(buffer)) {
+            mBudget.release(sizeClass);
+        }
+    }
+
+    /**
+     * Releases all free buffers to the garbage collector, for example
+     * when the system is low on memory. Leased buffers are not affected.
+     */
+    public void trim() {
+        for (RingBuffer<ByteBuffer> free : mFree) {
+            ByteBuffer buffer;
+            while ((buffer = free.poll()) != null) {
+                mBudget.release(buffer.capacity());
+            }
+        }
+    }
+
+    /**
+     * Returns the bytes of the given size class that are currently leased.
+     * @param sizeClass a size class, as returned by {@link #sizeClass(int)}
+     * @return the live bytes
+     */
+    public long getLiveBytes(int sizeClass) {
+        return mLiveBytes.get(checkedIndex(sizeClass));
+    }
+
+    /**
+     * Returns the bytes of the given size class that are free for reuse.
+     * @param sizeClass a size class, as returned by {@link #sizeClass(int)}
+     * @return the free bytes
+     */
+    public long getFreeBytes(int sizeClass) {
+        return (long) mFree[checkedIndex(sizeClass)].size() * sizeClass;
+    }
+
+    /**
+     * Returns the bytes of all size classes that are currently leased.
+     * @return the live bytes
+     */
+    public long getLiveBytes() {
+        long bytes = 0;
+        for (int i = 0; i < CLASSES; i++) {
+            bytes += mLiveBytes.get(i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the bytes of all size classes that are free for reuse.
+     * @return the free bytes
+     */
+    public long getFreeBytes() {
+        long bytes = 0;
+        for (int i = 0; i < CLASSES; i++) {
+            bytes += (long) mFree[i].size() * (MIN_SIZE_CLASS << i);
+        }
+        return bytes;
+    }
+
+    private static int checkedIndex(int sizeClass) {
+        if (sizeClass < MIN_SIZE_CLASS || sizeClass > MAX_SIZE_CLASS
+                || Integer.bitCount(sizeClass) != 1) {
+            throw new IllegalArgumentException("Not a size class: " + sizeClass);
+        }
+        return index(sizeClass);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(getClass().getSimpleName());
+        builder.append(" - live:").append(getLiveBytes()).append(", free:").append(getFreeBytes());
+        for (int i = 0; i < CLASSES; i++) {
+            long live = mLiveBytes.get(i);
+            int free = mFree[i].size();
+            if (live == 0 && free == 0) continue;
+            builder.append(", ").append(MIN_SIZE_CLASS << i)
+                    .append(":{live:").append(live)
+                    .append(", free:").append((long) free * (MIN_SIZE_CLASS << i))
+                    .append("}");
+        }
+        return builder.toString();
+    }
+}
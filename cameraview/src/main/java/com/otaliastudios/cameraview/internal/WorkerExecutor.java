@@ -0,0 +1,219 @@
+package com.otaliastudios.cameraview.internal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.otaliastudios.cameraview.CameraLogger;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pools of background threads for work on picture results, like decoding,
+ * compressing and writing to file. There are two lanes:
+ * - {@link #cpu()}, for decoding and compressing, with one thread per core up to
+ *   {@link #MAX_CPU_THREADS}
+ * - {@link #io()}, for writing files, with {@link #IO_THREADS} threads
+ *
+ * so that, in burst use, decoding a result does not block writing the next one, as it
+ * happened with the single fallback {@link WorkerHandler}.
+ *
+ * Each lane queues up to {@link #QUEUE_CAPACITY} tasks. Tasks that do not fit are not
+ * dropped, because they usually end with a user callback: they run on the fallback
+ * {@link WorkerHandler} instead, serially, and are counted as overflowed.
+ *
+ * Lanes report their queue depth, its peak and task counts, which can be used to tell
+ * whether work is piling up. Idle threads are stopped after a few seconds.
+ */
+public final class WorkerExecutor implements Executor {
+
+    private final static String TAG = WorkerExecutor.class.getSimpleName();
+    private final static CameraLogger LOG = CameraLogger.create(TAG);
+
+    /**
+     * The max number of threads of the {@link #cpu()} lane.
+     */
+    public final static int MAX_CPU_THREADS = 4;
+
+    /**
+     * The number of threads of the {@link #io()} lane.
+     */
+    public final static int IO_THREADS = 2;
+
+    /**
+     * The max number of tasks that each lane can queue.
+     */
+    public final static int QUEUE_CAPACITY = 32;
+
+    private final static Executor FALLBACK = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            WorkerHandler.execute(command);
+        }
+    };
+
+    private static volatile WorkerExecutor sCpu;
+    private static volatile WorkerExecutor sIo;
+
+    /**
+     * Returns the lane for CPU bound work, like decoding or compressing pictures.
+     * @return the cpu lane
+     */
+    @NonNull
+    public static WorkerExecutor cpu() {
+        if (sCpu == null) {
+            synchronized (WorkerExecutor.class) {
+                if (sCpu == null) {
+                    int cores = Runtime.getRuntime().availableProcessors();
+                    int threads = Math.max(1, Math.min(MAX_CPU_THREADS, cores));
+                    sCpu = new WorkerExecutor("CameraViewCpu", threads, QUEUE_CAPACITY,
+                            FALLBACK);
+                }
+            }
+        }
+        return sCpu;
+    }
+
+    /**
+     * Returns the lane for I/O bound work, like writing pictures to file.
+     * @return the io lane
+     */
+    @NonNull
+    public static WorkerExecutor io() {
+        if (sIo == null) {
+            synchronized (WorkerExecutor.class) {
+                if (sIo == null) {
+                    sIo = new WorkerExecutor("CameraViewIo", IO_THREADS, QUEUE_CAPACITY,
+                            FALLBACK);
+                }
+            }
+        }
+        return sIo;
+    }
+
+    private final String mName;
+    private final ThreadPoolExecutor mExecutor;
+    private final Executor mFallback;
+    private final AtomicInteger mPeakQueueSize = new AtomicInteger(0);
+    private final AtomicLong mSubmittedCount = new AtomicLong(0);
+    private final AtomicLong mOverflowCount = new AtomicLong(0);
+
+    @VisibleForTesting
+    WorkerExecutor(@NonNull final String name, int threads, int capacity,
+                   @NonNull Executor fallback) {
+        mName = name;
+        mFallback = fallback;
+        mExecutor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                4,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(capacity),
+                new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger(1);
+                    @Override
+                    public Thread newThread(@NonNull Runnable r) {
+                        Thread thread = new Thread(r, name + " #" + mCount.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }
+        );
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs the given task on this lane or, if its queue is full,
+     * on the fallback {@link WorkerHandler}.
+     * @param command the task
+     */
+    @Override
+    public void execute(@NonNull Runnable command) {
+        mSubmittedCount.incrementAndGet();
+        try {
+            mExecutor.execute(command);
+        } catch (RejectedExecutionException e) {
+            mOverflowCount.incrementAndGet();
+            LOG.w("execute:", mName, "queue is full. Running on the fallback thread.");
+            mFallback.execute(command);
+            return;
+        }
+        int size = mExecutor.getQueue().size();
+        int peak;
+        do {
+            peak = mPeakQueueSize.get();
+        } while (size > peak && !mPeakQueueSize.compareAndSet(peak, size));
+    }
+
+    /**
+     * Returns the number of threads of this lane.
+     * @return the thread count
+     */
+    public int getThreadCount() {
+        return mExecutor.getMaximumPoolSize();
+    }
+
+    /**
+     * Returns the number of tasks that are waiting for a thread.
+     * @return the queue size
+     */
+    public int getQueueSize() {
+        return mExecutor.getQueue().size();
+    }
+
+    /**
+     * Returns the max number of tasks that were waiting for a thread at the same time.
+     * @return the peak queue size
+     */
+    public int getPeakQueueSize() {
+        return mPeakQueueSize.get();
+    }
+
+    /**
+     * Returns the number of tasks that are currently running.
+     * @return the active count
+     */
+    public int getActiveCount() {
+        return mExecutor.getActiveCount();
+    }
+
+    /**
+     * Returns the number of tasks passed to {@link #execute(Runnable)}.
+     * @return the submitted count
+     */
+    public long getSubmittedCount() {
+        return mSubmittedCount.get();
+    }
+
+    /**
+     * Returns the number of tasks that completed on this lane. This is an estimate.
+     * @return the completed count
+     */
+    public long getCompletedCount() {
+        return mExecutor.getCompletedTaskCount();
+    }
+
+    /**
+     * Returns the number of tasks that did not fit in the queue,
+     * and ran on the fallback thread instead.
+     * @return the overflow count
+     */
+    public long getOverflowCount() {
+        return mOverflowCount.get();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return TAG + "(" + mName + ") - threads:" + getThreadCount()
+                + ", active:" + getActiveCount() + ", queue:" + getQueueSize()
+                + ", peak:" + getPeakQueueSize() + ", submitted:" + getSubmittedCount()
+                + ", completed:" + getCompletedCount() + ", overflow:" + getOverflowCount();
+    }
+}
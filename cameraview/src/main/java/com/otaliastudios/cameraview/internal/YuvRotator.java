@@ -0,0 +1,202 @@
+package com.otaliastudios.cameraview.internal;
+
+import com.otaliastudios.cameraview.CameraLogger;
+import com.otaliastudios.cameraview.size.Size;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rotates NV21 images by multiples of 90 degrees.
+ *
+ * The luma plane is processed in square tiles, so that both reads and writes stay in cache,
+ * and the interleaved chroma plane is rotated as a plane of VU pairs, so that each chroma
+ * byte is written exactly once. Large images are split into row stripes that are rotated
+ * in parallel, with one stripe running on the calling thread.
+ *
+ * The output can be written into a caller-supplied buffer, so that it can be pooled.
+ */
+public class YuvRotator {
+
+    private final static String TAG = YuvRotator.class.getSimpleName();
+    private final static CameraLogger LOG = CameraLogger.create(TAG);
+    private final static int TILE = 32;
+    private final static int MIN_STRIPE_ROWS = 4 * TILE;
+    private final static int STRIPES = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    private static ThreadPoolExecutor sExecutor;
+
+    @NonNull
+    private synchronized static ThreadPoolExecutor getExecutor() {
+        if (sExecutor == null) {
+            int threads = Math.max(1, STRIPES - 1);
+            sExecutor = new ThreadPoolExecutor(
+                    threads,
+                    threads,
+                    4,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        private final AtomicInteger mCount = new AtomicInteger(1);
+                        @Override
+                        public Thread newThread(@NonNull Runnable r) {
+                            Thread thread = new Thread(r, TAG + " #"
+                                    + mCount.getAndIncrement());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    }
+            );
+            sExecutor.allowCoreThreadTimeOut(true);
+        }
+        return sExecutor;
+    }
+
+    /**
+     * Rotates the given NV21 image by the given clock-wise angle.
+     *
+     * If output is null, a new array is allocated, unless rotation is 0, in which case
+     * the input is returned. If output is not null, it must hold at least as many bytes as
+     * the input image, and it is returned.
+     *
+     * @param yuv the NV21 image
+     * @param size the image size, which must be even in both dimensions
+     * @param rotation clock-wise angle, one of 0, 90, 180, 270
+     * @param output an optional output buffer
+     * @return the rotated image
+     */
+    @NonNull
+    public static byte[] rotate(@NonNull final byte[] yuv,
+                                @NonNull Size size,
+                                int rotation,
+                                @Nullable byte[] output) {
+        return rotate(yuv, size, rotation, output, STRIPES);
+    }
+
+    @VisibleForTesting
+    @NonNull
+    static byte[] rotate(@NonNull final byte[] yuv,
+                         @NonNull Size size,
+                         int rotation,
+                         @Nullable byte[] output,
+                         int maxStripes) {
+        if (rotation % 90 != 0 || rotation < 0 || rotation > 270) {
+            throw new IllegalArgumentException("0 <= rotation < 360, rotation % 90 == 0");
+        }
+        final int width = size.getWidth();
+        final int height = size.getHeight();
+        if (width % 2 != 0 || height % 2 != 0) {
+            throw new IllegalArgumentException("NV21 size should be even, got " + size);
+        }
+        final int bytes = width * height * 3 / 2;
+        if (yuv.length < bytes) {
+            throw new IllegalArgumentException("Input is too small: " + yuv.length
+                    + " < " + bytes);
+        }
+        if (output != null && output.length < bytes) {
+            throw new IllegalArgumentException("Output is too small: " + output.length
+                    + " < " + bytes);
+        }
+        if (rotation == 0) {
+            if (output == null) return yuv;
+            System.arraycopy(yuv, 0, output, 0, bytes);
+            return output;
+        }
+        final byte[] out = output != null ? output : new byte[bytes];
+        int stripes = Math.max(1, Math.min(maxStripes, height / MIN_STRIPE_ROWS));
+        if (stripes == 1) {
+            rotateRows(yuv, out, width, height, rotation, 0, height);
+            return out;
+        }
+        // Stripes must be made of even rows, so that they own full chroma rows.
+        int rows = ((height + stripes - 1) / stripes + 1) & ~1;
+        final CountDownLatch latch = new CountDownLatch(stripes - 1);
+        ThreadPoolExecutor executor = getExecutor();
+        for (int i = 1; i < stripes; i++) {
+            final int start = Math.min(height, i * rows);
+            final int end = Math.min(height, start + rows);
+            final int r = rotation;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        rotateRows(yuv, out, width, height, r, start, end);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        rotateRows(yuv, out, width, height, rotation, 0, Math.min(height, rows));
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            LOG.w("rotate:", "interrupted while waiting for stripes.");
+            Thread.currentThread().interrupt();
+        }
+        return out;
+    }
+
+    /**
+     * Rotates source rows in [start, end) of both planes. Start and end must be even.
+     */
+    private static void rotateRows(@NonNull byte[] in, @NonNull byte[] out,
+                                   int width, int height, int rotation,
+                                   int start, int end) {
+        // Luma: each byte is a pixel.
+        rotatePlane(in, out, 0, width, height, rotation, start, end, false);
+        // Chroma: each VU pair is a pixel of a plane with half the size.
+        rotatePlane(in, out, width * height, width / 2, height / 2, rotation,
+                start / 2, end / 2, true);
+    }
+
+    /**
+     * Rotates the rows in [start, end) of a plane with the given size, starting at offset
+     * in both arrays. If pairs is true, each pixel is two bytes wide.
+     * The destination of source pixel (x, y) is base + x * dx + y * dy.
+     */
+    private static void rotatePlane(@NonNull byte[] in, @NonNull byte[] out, int offset,
+                                    int width, int height, int rotation,
+                                    int start, int end, boolean pairs) {
+        int base, dx, dy;
+        switch (rotation) {
+            case 90: base = height - 1; dx = height; dy = -1; break;
+            case 180: base = width * height - 1; dx = -1; dy = -width; break;
+            default: base = (width - 1) * height; dx = -height; dy = 1; break; // 270
+        }
+        for (int tileY = start; tileY < end; tileY += TILE) {
+            int tileEndY = Math.min(end, tileY + TILE);
+            for (int tileX = 0; tileX < width; tileX += TILE) {
+                int tileEndX = Math.min(width, tileX + TILE);
+                for (int y = tileY; y < tileEndY; y++) {
+                    int source = y * width + tileX;
+                    int destination = base + tileX * dx + y * dy;
+                    if (pairs) {
+                        for (int x = tileX; x < tileEndX; x++) {
+                            int s = offset + 2 * source;
+                            int d = offset + 2 * destination;
+                            out[d] = in[s];
+                            out[d + 1] = in[s + 1];
+                            source++;
+                            destination += dx;
+                        }
+                    } else {
+                        for (int x = tileX; x < tileEndX; x++) {
+                            out[offset + destination] = in[offset + source];
+                            source++;
+                            destination += dx;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -14,6 +14,7 @@ import androidx.annotation.VisibleForTesting;
 import com.otaliastudios.cameraview.CameraLogger;
 import com.otaliastudios.cameraview.internal.GlTextureDrawer;
 import com.otaliastudios.cameraview.internal.Issue514Workaround;
+import com.otaliastudios.cameraview.internal.MemoryBudget;
 import com.otaliastudios.cameraview.size.Size;
 
 import java.nio.Buffer;
@@ -45,9 +46,13 @@ public class OverlayDrawer {
     @VisibleForTesting GlTextureDrawer mTextureDrawer;
     private Issue514Workaround mIssue514Workaround;
     private final Object mIssue514WorkaroundLock = new Object();
+    private long mReservedBytes;
 
     public OverlayDrawer(@NonNull Overlay overlay, @NonNull Size size) {
         mOverlay = overlay;
+        // The surface is needed anyway, but it reduces what is left for other buffers.
+        mReservedBytes = (long) size.getWidth() * size.getHeight() * 4;
+        MemoryBudget.get().reserve(mReservedBytes);
         mTextureDrawer = new GlTextureDrawer();
         mSurfaceTexture = new SurfaceTexture(mTextureDrawer.getTexture().getId());
         mSurfaceTexture.setDefaultBufferSize(size.getWidth(), size.getHeight());
@@ -126,5 +131,7 @@ public class OverlayDrawer {
             mTextureDrawer.release();
             mTextureDrawer = null;
         }
+        MemoryBudget.get().release(mReservedBytes);
+        mReservedBytes = 0;
     }
 }
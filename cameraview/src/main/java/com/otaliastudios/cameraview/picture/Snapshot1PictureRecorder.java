@@ -8,8 +8,8 @@ import com.otaliastudios.cameraview.PictureResult;
 import com.otaliastudios.cameraview.engine.Camera1Engine;
 import com.otaliastudios.cameraview.engine.offset.Reference;
 import com.otaliastudios.cameraview.internal.CropHelper;
-import com.otaliastudios.cameraview.internal.RotationHelper;
-import com.otaliastudios.cameraview.internal.WorkerHandler;
+import com.otaliastudios.cameraview.internal.WorkerExecutor;
+import com.otaliastudios.cameraview.internal.YuvRotator;
 import com.otaliastudios.cameraview.size.AspectRatio;
 import com.otaliastudios.cameraview.size.Size;
 
@@ -56,13 +56,13 @@ public class Snapshot1PictureRecorder extends SnapshotPictureRecorder {
                     throw new IllegalStateException("Preview stream size " +
                             "should never be null here.");
                 }
-                WorkerHandler.execute(new Runnable() {
+                WorkerExecutor.cpu().execute(new Runnable() {
                     @Override
                     public void run() {
                         // Rotate the picture, because no one will write EXIF data,
                         // then crop if needed. In both cases, transform yuv to jpeg.
-                        //noinspection deprecation
-                        byte[] data = RotationHelper.rotate(yuv, previewStreamSize, sensorToOutput);
+                        byte[] data = YuvRotator.rotate(yuv, previewStreamSize, sensorToOutput,
+                                null);
                         YuvImage yuv = new YuvImage(data, mFormat, outputSize.getWidth(),
                                 outputSize.getHeight(), null);
 
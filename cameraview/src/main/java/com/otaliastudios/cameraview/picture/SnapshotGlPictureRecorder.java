@@ -14,7 +14,7 @@ import com.otaliastudios.cameraview.internal.GlTextureDrawer;
 import com.otaliastudios.cameraview.overlay.Overlay;
 import com.otaliastudios.cameraview.engine.offset.Reference;
 import com.otaliastudios.cameraview.internal.CropHelper;
-import com.otaliastudios.cameraview.internal.WorkerHandler;
+import com.otaliastudios.cameraview.internal.WorkerExecutor;
 import com.otaliastudios.cameraview.overlay.OverlayDrawer;
 import com.otaliastudios.cameraview.preview.RendererCameraPreview;
 import com.otaliastudios.cameraview.preview.RendererFrameCallback;
@@ -133,7 +133,7 @@ public class SnapshotGlPictureRecorder extends SnapshotPictureRecorder {
         // the textureId and the overlayTextureId, managed by the GlSurfaceView.
         // Next operations can then be performed on different threads using this handle.
         final EGLContext eglContext = EGL14.eglGetCurrentContext();
-        WorkerHandler.execute(new Runnable() {
+        WorkerExecutor.cpu().execute(new Runnable() {
             @Override
             public void run() {
                 takeFrame(surfaceTexture, rotation, scaleX, scaleY, eglContext);
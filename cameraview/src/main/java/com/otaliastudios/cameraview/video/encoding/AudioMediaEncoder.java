@@ -216,6 +216,7 @@ public class AudioMediaEncoder extends MediaEncoder {
                 return false;
             } else {
                 mCurrentBuffer.clear();
+                mCurrentBuffer.limit(mConfig.frameSize());
                 // When stereo, we read twice the data here and AudioRecord will fill the buffer
                 // with left and right bytes. https://stackoverflow.com/q/20594750/4288782
                 if (PERFORMANCE_DEBUG) {
@@ -331,6 +332,7 @@ public class AudioMediaEncoder extends MediaEncoder {
                     break;
                 }
                 noiseBuffer.clear();
+                noiseBuffer.limit(mConfig.frameSize());
                 mAudioNoise.fill(noiseBuffer);
                 noiseBuffer.rewind();
                 enqueue(noiseBuffer, gapStart, false);
@@ -374,7 +376,7 @@ public class AudioMediaEncoder extends MediaEncoder {
                             if (sendStart != null) {
                                 mDebugSendAvgDelay = ((mDebugSendAvgDelay * mDebugSendCount)
                                         + (sendEnd - sendStart)) / (++mDebugSendCount);
-                                LOG.v("send delay millis:", sendEnd - sendStart,
+                                LOG.vValues("send delay millis:", sendEnd - sendStart,
                                         "average:", mDebugSendAvgDelay);
                             } else {
                                 // This input buffer was already processed
@@ -431,7 +433,7 @@ public class AudioMediaEncoder extends MediaEncoder {
                 long executeEnd = System.nanoTime() / 1000000;
                 mDebugExecuteAvgDelay = ((mDebugExecuteAvgDelay * mDebugExecuteCount)
                         + (executeEnd - executeStart)) / (++mDebugExecuteCount);
-                LOG.v("execute delay millis:", executeEnd - executeStart,
+                LOG.vValues("execute delay millis:", executeEnd - executeStart,
                         "average:", mDebugExecuteAvgDelay);
             }
         }
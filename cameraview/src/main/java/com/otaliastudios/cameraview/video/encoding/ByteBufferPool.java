@@ -1,11 +1,21 @@
 package com.otaliastudios.cameraview.video.encoding;
 
+import com.otaliastudios.cameraview.internal.MemoryBudget;
 import com.otaliastudios.cameraview.internal.Pool;
+import com.otaliastudios.cameraview.internal.SlabAllocator;
+
+import androidx.annotation.NonNull;
 
 import java.nio.ByteBuffer;
 
 /**
  * A simple {@link Pool(int, Factory)} implementation for byte buffers.
+ * Buffers are leased from the {@link SlabAllocator}, so their capacity can be bigger
+ * than the buffer size: callers should set the limit after clearing them.
+ * Discarded buffers are given back to the allocator for the next session.
+ *
+ * New buffers are refused when the {@link MemoryBudget} is exceeded, in which case
+ * {@link #get()} returns null, as if the pool was empty.
  */
 class ByteBufferPool extends Pool<ByteBuffer> {
 
@@ -13,8 +23,13 @@ class ByteBufferPool extends Pool<ByteBuffer> {
         super(maxPoolSize, new Factory<ByteBuffer>() {
             @Override
             public ByteBuffer create() {
-                return ByteBuffer.allocateDirect(bufferSize);
+                return SlabAllocator.get().tryLease(bufferSize);
             }
         });
     }
+
+    @Override
+    protected void onItemDiscarded(@NonNull ByteBuffer item) {
+        SlabAllocator.get().release(item);
+    }
 }
@@ -235,11 +235,11 @@ public abstract class MediaEncoder {
                  new AtomicInteger(0));
         final AtomicInteger pendingEvents = mPendingEvents.get(event);
         pendingEvents.incrementAndGet();
-        LOG.v(mName, "Notify was called. Posting. pendingEvents:", pendingEvents.intValue());
+        LOG.vValues(mName, "Notify was called. Posting. pendingEvents:", pendingEvents.intValue());
         mWorker.post(new Runnable() {
             @Override
             public void run() {
-                LOG.v(mName, "Notify was called. Executing. pendingEvents:",
+                LOG.vValues(mName, "Notify was called. Executing. pendingEvents:",
                         pendingEvents.intValue());
                 onEvent(event, data);
                 pendingEvents.decrementAndGet();
@@ -372,7 +372,7 @@ public abstract class MediaEncoder {
      */
     @SuppressWarnings("WeakerAccess")
     protected void encodeInputBuffer(InputBuffer buffer) {
-        LOG.v(mName, "ENCODING - Buffer:", buffer.index,
+        LOG.vValues(mName, "ENCODING - Buffer:", buffer.index,
                 "Bytes:", buffer.length,
                 "Presentation:", buffer.timestamp);
         if (buffer.isEndOfStream) { // send EOS
@@ -407,7 +407,7 @@ public abstract class MediaEncoder {
         }
         while (true) {
             int encoderStatus = mMediaCodec.dequeueOutputBuffer(mBufferInfo, OUTPUT_TIMEOUT_US);
-            LOG.i(mName, "DRAINING - Got status:", encoderStatus);
+            LOG.iValues(mName, "DRAINING - Got status:", encoderStatus);
             if (encoderStatus == MediaCodec.INFO_TRY_AGAIN_LATER) {
                 // no output available yet
                 if (!drainAll) break; // out of while
@@ -460,7 +460,7 @@ public abstract class MediaEncoder {
                             + mLastTimeUs - mFirstTimeUs;
 
                     // Write.
-                    LOG.v(mName, "DRAINING - About to write(). Adjusted presentation:",
+                    LOG.vValues(mName, "DRAINING - About to write(). Adjusted presentation:",
                             mBufferInfo.presentationTimeUs);
                     OutputBuffer buffer = mOutputBufferPool.get();
                     //noinspection ConstantConditions
@@ -355,8 +355,7 @@ public class MediaEncoderEngine {
                                 + calendar.get(Calendar.MILLISECOND),
                         "count:", count);
             } else {
-                LOG.v("write:", "Writing into muxer -",
-                        "track:", buffer.trackIndex,
+                LOG.vValues("write: Writing into muxer - track:", buffer.trackIndex,
                         "presentation:", buffer.info.presentationTimeUs);
             }
             mMediaMuxer.writeSampleData(buffer.trackIndex, buffer.data, buffer.info);
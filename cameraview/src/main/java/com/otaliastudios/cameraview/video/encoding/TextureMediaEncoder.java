@@ -125,7 +125,7 @@ public class TextureMediaEncoder extends VideoMediaEncoder<TextureConfig> {
             // Always render the first few frames, or muxer fails.
             return true;
         } else if (getPendingEvents(FRAME_EVENT) > 2) {
-            LOG.i("shouldRenderFrame - Dropping, we already have too many pending events:",
+            LOG.iValues("shouldRenderFrame - Dropping, we already have too many pending events:",
                     getPendingEvents(FRAME_EVENT));
             return false;
         } else {
@@ -178,21 +178,17 @@ public class TextureMediaEncoder extends VideoMediaEncoder<TextureConfig> {
         }
 
         // First, drain any previous data.
-        LOG.i("onEvent -",
-                "frameNumber:", mFrameNumber,
+        LOG.iValues(Thread.currentThread().getName(),
+                "onEvent - draining. frameNumber:", mFrameNumber,
                 "timestampUs:", frame.timestampUs(),
-                "hasReachedMaxLength:", hasReachedMaxLength(),
-                "thread:", Thread.currentThread(),
-                "- draining.");
+                "hasReachedMaxLength:", hasReachedMaxLength() ? 1 : 0);
         drainOutput(false);
 
         // Then draw on the surface.
-        LOG.i("onEvent -",
-                "frameNumber:", mFrameNumber,
+        LOG.iValues(Thread.currentThread().getName(),
+                "onEvent - drawing. frameNumber:", mFrameNumber,
                 "timestampUs:", frame.timestampUs(),
-                "hasReachedMaxLength:", hasReachedMaxLength(),
-                "thread:", Thread.currentThread(),
-                "- drawing.");
+                "hasReachedMaxLength:", hasReachedMaxLength() ? 1 : 0);
 
         // 1. We must scale this matrix like GlCameraPreview does, because it might have some
         // cropping. Scaling takes place with respect to the (0, 0, 0) point, so we must apply
@@ -223,12 +219,10 @@ public class TextureMediaEncoder extends VideoMediaEncoder<TextureConfig> {
             Matrix.translateM(mConfig.overlayDrawer.getTransform(),
                     0, -0.5F, -0.5F, 0);
         }
-        LOG.i("onEvent -",
-                "frameNumber:", mFrameNumber,
+        LOG.iValues(Thread.currentThread().getName(),
+                "onEvent - gl rendering. frameNumber:", mFrameNumber,
                 "timestampUs:", frame.timestampUs(),
-                "hasReachedMaxLength:", hasReachedMaxLength(),
-                "thread:", Thread.currentThread(),
-                "- gl rendering.");
+                "hasReachedMaxLength:", hasReachedMaxLength() ? 1 : 0);
         mDrawer.setTextureTransform(transform);
         mDrawer.draw(frame.timestampUs());
         if (mConfig.hasOverlay()) {
@@ -237,12 +231,10 @@ public class TextureMediaEncoder extends VideoMediaEncoder<TextureConfig> {
         mWindow.setPresentationTime(frame.timestampNanos);
         mWindow.swapBuffers();
         mFramePool.recycle(frame);
-        LOG.i("onEvent -",
-                "frameNumber:", mFrameNumber,
+        LOG.iValues(Thread.currentThread().getName(),
+                "onEvent - gl rendered. frameNumber:", mFrameNumber,
                 "timestampUs:", frame.timestampUs(),
-                "hasReachedMaxLength:", hasReachedMaxLength(),
-                "thread:", Thread.currentThread(),
-                "- gl rendered.");
+                "hasReachedMaxLength:", hasReachedMaxLength() ? 1 : 0);
     }
 
     @Override
@@ -0,0 +1,40 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import android.graphics.ImageFormat;
+
+import androidx.annotation.NonNull;
+
+import com.otaliastudios.cameraview.size.Size;
+
+/**
+ * A {@link FrameManager} for tests, whose frames can hold any object of the given class.
+ * Data is not copied when frozen, and nothing happens when it is released.
+ * Frames can also be created outside of the pool with {@link #newFrame(Object, long)}.
+ */
+public class MockFrameManager<T> extends FrameManager<T> {
+
+    public MockFrameManager(int poolSize, @NonNull Class<T> dataClass) {
+        super(poolSize, dataClass);
+    }
+
+    @Override
+    protected void onFrameDataReleased(@NonNull T data, boolean recycled) { }
+
+    @NonNull
+    @Override
+    protected T onCloneFrameData(@NonNull T data) {
+        return data;
+    }
+
+    /**
+     * Creates a 10x10 NV21 frame that holds the given data, outside of the pool.
+     * It is still released through this manager.
+     */
+    @NonNull
+    public Frame newFrame(@NonNull T data, long time) {
+        Frame frame = new Frame(this);
+        frame.setContent(data, time, 0, 0, 0, new Size(10, 10), ImageFormat.NV21);
+        return frame;
+    }
+}
@@ -0,0 +1,152 @@
+package com.otaliastudios.cameraview;
+
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LogBufferTest {
+
+    private final List<String> messages = new ArrayList<>();
+    private final List<Integer> levels = new ArrayList<>();
+    private final List<Integer> tags = new ArrayList<>();
+
+    private final LogBuffer.Sink sink = new LogBuffer.Sink() {
+        @Override
+        public void onEntry(int level, int tag, @NonNull String message) {
+            levels.add(level);
+            tags.add(tag);
+            messages.add(message);
+        }
+    };
+
+    @Test
+    public void testFormat() {
+        StringBuilder builder = new StringBuilder();
+        assertEquals("a: 1", LogBuffer.format(builder, null, 1,
+                "a:", 1, null, 0, null, 0));
+        assertEquals("a: 1 b: -2 c: 3", LogBuffer.format(builder, null, 3,
+                "a:", 1, "b:", -2, "c:", 3));
+        assertEquals("name a: 1", LogBuffer.format(builder, "name", 1,
+                "a:", 1, "b:", 2, null, 0));
+    }
+
+    @Test
+    public void testDrain() {
+        LogBuffer buffer = new LogBuffer(4);
+        assertTrue(buffer.offer(1, 5, null, 1, "a:", 1, null, 0, null, 0));
+        assertTrue(buffer.offer(2, 6, "name", 2, "b:", 2, "c:", 3, null, 0));
+        assertEquals(2, buffer.size());
+        assertEquals(2, buffer.drain(sink));
+        assertEquals(0, buffer.size());
+        assertEquals(2, messages.size());
+        assertEquals("a: 1", messages.get(0));
+        assertEquals("name b: 2 c: 3", messages.get(1));
+        assertEquals(1, (int) levels.get(0));
+        assertEquals(2, (int) levels.get(1));
+        assertEquals(5, (int) tags.get(0));
+        assertEquals(6, (int) tags.get(1));
+        assertEquals(0, buffer.drain(sink));
+    }
+
+    @Test
+    public void testDrain_reentrant() {
+        final LogBuffer buffer = new LogBuffer(4);
+        LogBuffer.Sink reentrant = new LogBuffer.Sink() {
+            @Override
+            public void onEntry(int level, int tag, @NonNull String message) {
+                sink.onEntry(level, tag, message);
+                if (messages.size() == 1) {
+                    // A logger that logs, or drains, while being drained.
+                    buffer.offer(0, 0, null, 1, "b:", 2, null, 0, null, 0);
+                    assertEquals(0, buffer.drain(sink));
+                }
+            }
+        };
+        buffer.offer(0, 0, null, 1, "a:", 1, null, 0, null, 0);
+        assertEquals(2, buffer.drain(reentrant));
+        assertEquals("a: 1", messages.get(0));
+        assertEquals("b: 2", messages.get(1));
+    }
+
+    @Test
+    public void testDrain_doesNotBlock() throws Exception {
+        final LogBuffer buffer = new LogBuffer(4);
+        final CountDownLatch draining = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        final LogBuffer.Sink blocking = new LogBuffer.Sink() {
+            @Override
+            public void onEntry(int level, int tag, @NonNull String message) {
+                draining.countDown();
+                try { unblock.await(); } catch (InterruptedException ignore) {}
+            }
+        };
+        buffer.offer(0, 0, null, 1, "a:", 1, null, 0, null, 0);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                buffer.drain(blocking);
+            }
+        });
+        thread.start();
+        assertTrue(draining.await(1, TimeUnit.SECONDS));
+        // Another thread is inside the sink, so this returns right away.
+        assertEquals(0, buffer.drain(sink));
+        unblock.countDown();
+        thread.join();
+    }
+
+    @Test
+    public void testFull() {
+        LogBuffer buffer = new LogBuffer(2);
+        assertTrue(buffer.offer(0, 0, null, 1, "a:", 1, null, 0, null, 0));
+        assertTrue(buffer.offer(0, 0, null, 1, "a:", 2, null, 0, null, 0));
+        assertFalse(buffer.offer(0, 0, null, 1, "a:", 3, null, 0, null, 0));
+        assertEquals(1, buffer.getDroppedCount());
+        buffer.drain(sink);
+        // Slots can be reused after draining.
+        assertTrue(buffer.offer(0, 0, null, 1, "a:", 4, null, 0, null, 0));
+        buffer.drain(sink);
+        assertEquals(3, messages.size());
+        assertEquals("a: 4", messages.get(2));
+    }
+
+    @Test
+    public void testConcurrency() throws Exception {
+        final int threads = 4;
+        final int entries = 1000;
+        final LogBuffer buffer = new LogBuffer(threads * entries);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int tag = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < entries; i++) {
+                        buffer.offer(0, tag, null, 1, "i:", i, null, 0, null, 0);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        assertEquals(threads * entries, buffer.drain(sink));
+        assertEquals(0, buffer.getDroppedCount());
+        // Entries of each thread keep their order.
+        int[] next = new int[threads];
+        for (int i = 0; i < messages.size(); i++) {
+            int tag = tags.get(i);
+            assertEquals("i: " + next[tag], messages.get(i));
+            next[tag]++;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import android.graphics.ImageFormat;
+
+import androidx.annotation.NonNull;
+
+import com.otaliastudios.cameraview.engine.offset.Angles;
+import com.otaliastudios.cameraview.size.Size;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Microbenchmark for the {@link FrameManager} pool. After warm up, getting and releasing
+ * frames should not allocate anything, since both the frames and the byte buffers
+ * are recycled through preallocated rings.
+ */
+public class FrameManagerAllocationTest {
+
+    private final static int WARMUP = 50000;
+    private final static int ITERATIONS = 100000;
+
+    @Test
+    public void testGetFrame_noAllocations() {
+        final FrameManager<String> manager = new MockFrameManager<>(2, String.class);
+        manager.setUp(ImageFormat.NV21, new Size(50, 50), new Angles());
+        final String data = "data";
+        assertAllocations(0, new Runnable() {
+            @Override
+            public void run() {
+                Frame frame = manager.getFrame(data, 0);
+                assertNotNull(frame);
+                frame.release();
+            }
+        });
+    }
+
+    @Test
+    public void testByteBufferGetFrame_noAllocations() {
+        final ByteBufferFrameManager manager = new ByteBufferFrameManager(2, null);
+        manager.setUp(ImageFormat.NV21, new Size(50, 50), new Angles());
+        assertAllocations(0, new Runnable() {
+            @Override
+            public void run() {
+                byte[] buffer = manager.getBuffer();
+                assertNotNull(buffer);
+                Frame frame = manager.getFrame(buffer, 0);
+                assertNotNull(frame);
+                frame.release();
+            }
+        });
+    }
+
+    @Test
+    public void testDirectByteBufferGetFrame_noAllocations() {
+        final byte[][] cameraBuffer = new byte[1][];
+        final DirectByteBufferFrameManager manager = new DirectByteBufferFrameManager(2,
+                new ByteBufferFrameManager.BufferCallback() {
+                    @Override
+                    public void onBufferAvailable(@NonNull byte[] buffer) {
+                        cameraBuffer[0] = buffer;
+                    }
+                });
+        manager.setUp(ImageFormat.NV21, new Size(50, 50), new Angles());
+        assertAllocations(0, new Runnable() {
+            @Override
+            public void run() {
+                Frame frame = manager.getFrame(cameraBuffer[0], 0);
+                assertNotNull(frame);
+                frame.release();
+            }
+        });
+    }
+
+    private void assertAllocations(long expected, @NonNull Runnable cycle) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(sunBean.isThreadAllocatedMemorySupported());
+        sunBean.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP; i++) cycle.run();
+        // The bean itself might allocate on the first call.
+        sunBean.getThreadAllocatedBytes(thread);
+        long before = sunBean.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ITERATIONS; i++) cycle.run();
+        long after = sunBean.getThreadAllocatedBytes(thread);
+        long baseline = sunBean.getThreadAllocatedBytes(thread) - after;
+        assertEquals(expected, Math.max(0, after - before - baseline) / ITERATIONS);
+    }
+}
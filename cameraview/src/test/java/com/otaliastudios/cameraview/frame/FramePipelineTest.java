@@ -0,0 +1,222 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class FramePipelineTest {
+
+    private MockFrameManager<String> manager;
+    private FramePipeline pipeline;
+
+    @Before
+    public void setUp() {
+        manager = spy(new MockFrameManager<>(1, String.class));
+    }
+
+    @After
+    public void tearDown() {
+        if (pipeline != null) pipeline.release();
+        pipeline = null;
+        manager = null;
+    }
+
+    private void process(String data, long time) {
+        Frame frame = manager.newFrame(data, time);
+        pipeline.process(frame);
+        frame.release();
+    }
+
+    private final FrameStage<Frame, String> readStage = new FrameStage<Frame, String>() {
+        @Override
+        public String process(@NonNull Frame input) {
+            return (String) input.getData();
+        }
+    };
+
+    @Test
+    public void testStages() throws Exception {
+        final List<String> results = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch done = new CountDownLatch(3);
+        pipeline = FramePipeline.builder(readStage, FrameProcessingPolicy.blockProducer(3))
+                .then(new FrameStage<String, Integer>() {
+                    @Override
+                    public Integer process(@NonNull String input) {
+                        return input.length();
+                    }
+                })
+                .then(new FrameStage<Integer, Void>() {
+                    @Nullable
+                    @Override
+                    public Void process(@NonNull Integer input) {
+                        results.add("length " + input);
+                        done.countDown();
+                        return null;
+                    }
+                })
+                .build();
+        assertEquals(3, pipeline.getStageCount());
+        process("a", 1);
+        process("bb", 2);
+        process("ccc", 3);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("length 1", "length 2", "length 3"), results);
+        // The last stage latency is recorded after it returns, so it might not be there yet.
+        for (int i = 0; i < 2; i++) {
+            assertEquals(3, pipeline.getStageLatency(i).getCount());
+            assertEquals(0, pipeline.getStageDroppedInputs(i));
+        }
+    }
+
+    @Test
+    public void testStages_releaseFrameAfterFirstStage() throws Exception {
+        final CountDownLatch unblock = new CountDownLatch(1);
+        pipeline = FramePipeline.builder(readStage)
+                .then(new FrameStage<String, Void>() {
+                    @Override
+                    public Void process(@NonNull String input) {
+                        try { unblock.await(); } catch (InterruptedException ignore) {}
+                        return null;
+                    }
+                })
+                .build();
+        Frame frame = manager.newFrame("foo", 1);
+        pipeline.process(frame);
+        frame.release();
+        // The second stage is blocked, but the frame is released anyway.
+        verify(manager, timeout(1000)).onFrameReleased(frame, "foo");
+        unblock.countDown();
+    }
+
+    @Test
+    public void testStages_overlap() throws Exception {
+        // The second stage blocks on the first frame, while the first stage
+        // keeps processing the second frame.
+        final CountDownLatch secondStarted = new CountDownLatch(1);
+        final CountDownLatch firstConverted = new CountDownLatch(2);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        pipeline = FramePipeline.builder(new FrameStage<Frame, String>() {
+            @Override
+            public String process(@NonNull Frame input) {
+                firstConverted.countDown();
+                return (String) input.getData();
+            }
+        }, FrameProcessingPolicy.blockProducer(2)).then(new FrameStage<String, Void>() {
+            @Override
+            public Void process(@NonNull String input) {
+                secondStarted.countDown();
+                try { unblock.await(); } catch (InterruptedException ignore) {}
+                return null;
+            }
+        }).build();
+        process("a", 1);
+        assertTrue(secondStarted.await(1, TimeUnit.SECONDS));
+        process("b", 2);
+        assertTrue(firstConverted.await(1, TimeUnit.SECONDS));
+        unblock.countDown();
+    }
+
+    @Test
+    public void testStages_latestOnly() throws Exception {
+        final List<String> results = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        pipeline = FramePipeline.builder(new FrameStage<Frame, Void>() {
+            @Override
+            public Void process(@NonNull Frame input) {
+                results.add((String) input.getData());
+                started.countDown();
+                try { unblock.await(); } catch (InterruptedException ignore) {}
+                return null;
+            }
+        }).build();
+        process("first", 0);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        process("a", 1);
+        process("b", 2);
+        process("c", 3);
+        unblock.countDown();
+        verify(manager, timeout(1000)).onFrameReleased(any(Frame.class), eq("c"));
+        assertEquals(Arrays.asList("first", "c"), results);
+        assertEquals(2, pipeline.getStageDroppedInputs(0));
+        verify(manager).onFrameReleased(any(Frame.class), eq("a"));
+        verify(manager).onFrameReleased(any(Frame.class), eq("b"));
+    }
+
+    @Test
+    public void testStages_frameOutputIsReleased() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        pipeline = FramePipeline.builder(new FrameStage<Frame, Frame>() {
+            @Override
+            public Frame process(@NonNull Frame input) {
+                return input.retain();
+            }
+        }).then(new FrameStage<Frame, Void>() {
+            @Override
+            public Void process(@NonNull Frame input) {
+                assertEquals("foo", input.getData());
+                done.countDown();
+                return null;
+            }
+        }).build();
+        Frame frame = manager.newFrame("foo", 1);
+        pipeline.process(frame);
+        frame.release();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        verify(manager, timeout(1000)).onFrameReleased(frame, "foo");
+    }
+
+    @Test
+    public void testStages_crash() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        pipeline = FramePipeline.builder(new FrameStage<Frame, String>() {
+            @Override
+            public String process(@NonNull Frame input) {
+                if (input.getTime() == 1) throw new RuntimeException("crash");
+                return (String) input.getData();
+            }
+        }).then(new FrameStage<String, Void>() {
+            @Override
+            public Void process(@NonNull String input) {
+                done.countDown();
+                return null;
+            }
+        }).build();
+        Frame frame = manager.newFrame("foo", 1);
+        pipeline.process(frame);
+        frame.release();
+        verify(manager, timeout(1000)).onFrameReleased(frame, "foo");
+        process("bar", 2);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRelease() {
+        pipeline = FramePipeline.builder(readStage).build();
+        pipeline.release();
+        Frame frame = manager.newFrame("foo", 1);
+        pipeline.process(frame);
+        frame.release();
+        verify(manager, timeout(1000)).onFrameReleased(frame, "foo");
+        assertEquals(0, pipeline.getStageLatency(0).getCount());
+    }
+}
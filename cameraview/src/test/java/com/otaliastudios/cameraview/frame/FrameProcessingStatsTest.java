@@ -0,0 +1,152 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import android.graphics.ImageFormat;
+
+import androidx.annotation.NonNull;
+
+import com.otaliastudios.cameraview.size.Size;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class FrameProcessingStatsTest {
+
+    private FrameProcessingStats stats;
+    private FrameProcessor processor;
+
+    @Before
+    public void setUp() {
+        stats = new FrameProcessingStats();
+        processor = new FrameProcessor() {
+            @Override
+            public void process(@NonNull Frame frame) { }
+        };
+    }
+
+    @Test
+    public void testProcessors() {
+        assertNull(stats.getProcessorStats(processor));
+        stats.onProcessorAdded(processor);
+        FrameProcessingStats.ProcessorStats processorStats = stats.getProcessorStats(processor);
+        assertNotNull(processorStats);
+        stats.onFrameProcessed(processor, TimeUnit.MILLISECONDS.toNanos(10));
+        stats.onFrameDropped(processor);
+        assertEquals(1, processorStats.getProcessedFrames());
+        assertEquals(1, processorStats.getDroppedFrames());
+        assertEquals(10, processorStats.getLatency().getMax(TimeUnit.MILLISECONDS));
+        stats.onProcessorRemoved(processor);
+        assertNull(stats.getProcessorStats(processor));
+        // Does not crash.
+        stats.onFrameProcessed(processor, 0);
+    }
+
+    @Test
+    public void testInputAndDrops() {
+        stats.onFrameInput(false);
+        stats.onFrameInput(true);
+        stats.onFrameInput(false);
+        assertEquals(3, stats.getInputFrames());
+        assertEquals(1, stats.getDroppedFrames());
+        stats.reset();
+        assertEquals(0, stats.getInputFrames());
+        assertEquals(0, stats.getDroppedFrames());
+    }
+
+    @Test
+    public void testQueueDepth() {
+        stats.onFrameQueued();
+        stats.onFrameQueued();
+        assertEquals(2, stats.getQueueDepth());
+        stats.onFrameDequeued();
+        stats.onFrameDequeued();
+        assertEquals(0, stats.getQueueDepth());
+    }
+
+    @Test
+    public void testFps() throws Exception {
+        stats.onProcessorAdded(processor);
+        assertEquals(0F, stats.getInputFps(), 0F);
+        assertEquals(0F, stats.getProcessedFps(), 0F);
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1200);
+        while (System.nanoTime() < end) {
+            stats.onFrameInput(false);
+            stats.onFrameProcessed(processor, 0);
+            Thread.sleep(10);
+        }
+        float input = stats.getInputFps();
+        float processed = stats.getProcessedFps();
+        assertTrue(input > 20F && input <= 110F);
+        assertTrue(processed > 20F && processed <= 110F);
+    }
+
+    @Test
+    public void testLatency() {
+        Frame frame = new Frame(mock(FrameManager.class));
+        long capture = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5);
+        frame.setContent("foo", 1000, capture, 0, 0, new Size(10, 10), ImageFormat.NV21);
+        FrameLatency latency = frame.getLatency();
+        assertEquals(capture, latency.getCaptureNanos());
+        assertTrue(latency.getAcquiredNanos() >= capture);
+        assertEquals(-1, latency.getDispatchedNanos());
+        assertEquals(-1, latency.getStartedNanos());
+        assertEquals(0, latency.getProcessedCount());
+
+        stats.onFrameDispatched(frame);
+        stats.onFrameStarted(frame);
+        stats.onFrameProcessed(frame, processor, 0);
+        stats.onFrameProcessed(frame, processor, 0);
+        assertTrue(latency.getDispatchedNanos() >= latency.getAcquiredNanos());
+        assertTrue(latency.getStartedNanos() >= latency.getDispatchedNanos());
+        assertEquals(2, latency.getProcessedCount());
+        assertTrue(latency.getProcessedNanos(0) >= latency.getStartedNanos());
+        assertTrue(latency.getProcessedNanos(1) >= latency.getProcessedNanos(0));
+        assertEquals(latency.getProcessedNanos(1), latency.getLastProcessedNanos());
+        try {
+            latency.getProcessedNanos(2);
+            fail("Expected an exception.");
+        } catch (IndexOutOfBoundsException ignore) {}
+        assertEquals(0, stats.getTotalLatency().getCount());
+
+        frame.release();
+        assertEquals(1, stats.getCaptureLatency().getCount());
+        assertEquals(1, stats.getDispatchLatency().getCount());
+        assertEquals(1, stats.getQueueLatency().getCount());
+        assertEquals(1, stats.getProcessingLatency().getCount());
+        assertEquals(1, stats.getReleaseLatency().getCount());
+        assertEquals(1, stats.getTotalLatency().getCount());
+        assertTrue(stats.getTotalLatency().getMax(TimeUnit.MILLISECONDS) >= 5);
+        stats.reset();
+        assertEquals(0, stats.getTotalLatency().getCount());
+    }
+
+    @Test
+    public void testLatency_notProcessed() {
+        Frame frame = new Frame(mock(FrameManager.class));
+        frame.setContent("foo", 1000, System.nanoTime(), 0, 0, new Size(10, 10),
+                ImageFormat.NV21);
+        stats.onFrameDispatched(frame);
+        frame.release();
+        assertEquals(1, stats.getTotalLatency().getCount());
+        assertEquals(0, stats.getQueueLatency().getCount());
+        assertEquals(0, stats.getProcessingLatency().getCount());
+    }
+
+    @Test
+    public void testLatency_notDispatched() {
+        Frame frame = new Frame(mock(FrameManager.class));
+        frame.setContent("foo", 1000, System.nanoTime(), 0, 0, new Size(10, 10),
+                ImageFormat.NV21);
+        frame.release();
+        assertEquals(0, stats.getTotalLatency().getCount());
+    }
+}
@@ -0,0 +1,258 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class FrameProcessorLaneTest {
+
+    private MockFrameManager<String> manager;
+    private FrameProcessor busyProcessor;
+
+    @Before
+    public void setUp() {
+        manager = spy(new MockFrameManager<>(1, String.class));
+    }
+
+    @After
+    public void tearDown() {
+        manager = null;
+    }
+
+    @Test
+    public void testDispatch_releasesAfterAllLanes() throws Exception {
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        FrameProcessor blocking = new FrameProcessor() {
+            @Override
+            public void process(@NonNull Frame frame) {
+                started.countDown();
+                try { unblock.await(); } catch (InterruptedException ignore) {}
+            }
+        };
+        FrameProcessorLane<Frame> lane1 = FrameProcessorLane.forProcessor(blocking);
+        FrameProcessorLane<Frame> lane2 = FrameProcessorLane.forProcessor(blocking);
+
+        Frame frame = manager.newFrame("foo", 1000);
+        lane1.dispatch(frame);
+        lane2.dispatch(frame);
+        frame.release();
+
+        // Both processors run at the same time, and the frame is still alive.
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        verify(manager, never()).onFrameReleased(any(Frame.class), anyString());
+
+        unblock.countDown();
+        verify(manager, timeout(1000)).onFrameReleased(frame, "foo");
+        lane1.release();
+        lane2.release();
+    }
+
+    @Test
+    public void testDispatch_afterRelease() {
+        FrameProcessorLane<Frame> lane = FrameProcessorLane.forProcessor(new FrameProcessor() {
+            @Override
+            public void process(@NonNull Frame frame) { }
+        });
+        lane.release();
+
+        Frame frame = manager.newFrame("foo", 1000);
+        lane.dispatch(frame);
+        frame.release();
+        verify(manager, timeout(1000)).onFrameReleased(frame, "foo");
+    }
+
+    @Test
+    public void testDispatch_error() throws Exception {
+        final CountDownLatch processed = new CountDownLatch(1);
+        FrameProcessorLane<Frame> lane = FrameProcessorLane.forProcessor(new FrameProcessor() {
+            @Override
+            public void process(@NonNull Frame frame) {
+                if (frame.getTime() == 1) throw new AssertionError("Processor failed.");
+                processed.countDown();
+            }
+        });
+        Frame first = manager.newFrame("a", 1);
+        lane.dispatch(first);
+        first.release();
+        Frame second = manager.newFrame("b", 2);
+        lane.dispatch(second);
+        second.release();
+        // The failed frame must not block the lane.
+        assertTrue(processed.await(1, TimeUnit.SECONDS));
+        verify(manager, timeout(1000)).onFrameReleased(first, "a");
+        lane.release();
+    }
+
+    /**
+     * Blocks the lane with a first frame, then dispatches the others while the processor
+     * is busy. Returns the data of the frames that were processed, in order.
+     */
+    private List<String> dispatchWhileBusy(@NonNull FrameProcessingPolicy policy,
+                                           @NonNull String... data) throws Exception {
+        return dispatchWhileBusy(policy, null, data);
+    }
+
+    private List<String> dispatchWhileBusy(@NonNull FrameProcessingPolicy policy,
+                                           @Nullable FrameProcessingRecorder recorder,
+                                           @NonNull String... data) throws Exception {
+        final List<String> processed = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        FrameProcessor processor = new FrameProcessor() {
+            @Override
+            public void process(@NonNull Frame frame) {
+                processed.add((String) frame.getData());
+                started.countDown();
+                try { unblock.await(); } catch (InterruptedException ignore) {}
+            }
+        };
+        busyProcessor = processor;
+        if (recorder != null) recorder.onProcessorAdded(processor);
+        FrameProcessorLane<Frame> lane = FrameProcessorLane.forProcessor(processor, policy,
+                recorder);
+        Frame first = manager.newFrame("first", 0);
+        lane.dispatch(first);
+        first.release();
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i < data.length; i++) {
+            Frame frame = manager.newFrame(data[i], i + 1);
+            lane.dispatch(frame);
+            frame.release();
+        }
+        unblock.countDown();
+        // Wait for the lane to be idle.
+        verify(manager, timeout(1000)).onFrameReleased(first, "first");
+        Thread.sleep(200);
+        lane.release();
+        return new ArrayList<>(processed);
+    }
+
+    @Test
+    public void testPolicy_latestOnly() throws Exception {
+        List<String> processed = dispatchWhileBusy(FrameProcessingPolicy.latestOnly(),
+                "a", "b", "c");
+        assertEquals(Arrays.asList("first", "c"), processed);
+    }
+
+    @Test
+    public void testPolicy_dropNewest() throws Exception {
+        List<String> processed = dispatchWhileBusy(FrameProcessingPolicy.dropNewest(),
+                "a", "b", "c");
+        assertEquals(Arrays.asList("first", "a"), processed);
+    }
+
+    @Test
+    public void testPolicy_boundedQueue() throws Exception {
+        List<String> processed = dispatchWhileBusy(FrameProcessingPolicy.boundedQueue(2),
+                "a", "b", "c");
+        assertEquals(Arrays.asList("first", "a", "b"), processed);
+    }
+
+    @Test
+    public void testPolicy_droppedFramesAreReleased() throws Exception {
+        dispatchWhileBusy(FrameProcessingPolicy.latestOnly(), "a", "b");
+        verify(manager, timeout(1000)).onFrameReleased(any(Frame.class), eq("a"));
+    }
+
+    @Test
+    public void testStats() throws Exception {
+        FrameProcessingRecorder recorder = new FrameProcessingRecorder();
+        FrameProcessingStats stats = recorder.getStats();
+        dispatchWhileBusy(FrameProcessingPolicy.boundedQueue(1), recorder, "a", "b", "c");
+        assertEquals(0, stats.getQueueDepth());
+        FrameProcessingStats.ProcessorStats processorStats
+                = stats.getProcessorStats(busyProcessor);
+        assertEquals(2, processorStats.getProcessedFrames());
+        assertEquals(2, processorStats.getDroppedFrames());
+    }
+
+    @Test
+    public void testPolicy_blockProducer() throws Exception {
+        final CountDownLatch unblock = new CountDownLatch(1);
+        FrameProcessor processor = new FrameProcessor() {
+            @Override
+            public void process(@NonNull Frame frame) {
+                try { unblock.await(); } catch (InterruptedException ignore) {}
+            }
+        };
+        final FrameProcessorLane<Frame> lane = FrameProcessorLane.forProcessor(processor,
+                FrameProcessingPolicy.blockProducer(1));
+        // One frame being processed, one pending. The third should block.
+        lane.dispatch(manager.newFrame("a", 1));
+        Thread.sleep(100);
+        lane.dispatch(manager.newFrame("b", 2));
+        final CountDownLatch dispatched = new CountDownLatch(1);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lane.dispatch(manager.newFrame("c", 3));
+                dispatched.countDown();
+            }
+        }).start();
+        assertFalse(dispatched.await(200, TimeUnit.MILLISECONDS));
+        unblock.countDown();
+        assertTrue(dispatched.await(1, TimeUnit.SECONDS));
+        lane.release();
+    }
+
+    @Test
+    public void testPolicy_blockProducer_interrupted() throws Exception {
+        final CountDownLatch unblock = new CountDownLatch(1);
+        FrameProcessor processor = new FrameProcessor() {
+            @Override
+            public void process(@NonNull Frame frame) {
+                try { unblock.await(); } catch (InterruptedException ignore) {}
+            }
+        };
+        final FrameProcessorLane<Frame> lane = FrameProcessorLane.forProcessor(processor,
+                FrameProcessingPolicy.blockProducer(1));
+        lane.dispatch(manager.newFrame("a", 1));
+        Thread.sleep(100);
+        lane.dispatch(manager.newFrame("b", 2));
+        final AtomicBoolean interrupted = new AtomicBoolean(false);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lane.dispatch(manager.newFrame("c", 3));
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        thread.start();
+        Thread.sleep(100);
+        thread.interrupt();
+        thread.join(1000);
+        // The frame is dropped, but the interrupt is not lost.
+        assertTrue(interrupted.get());
+        unblock.countDown();
+        lane.release();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPolicy_invalidCapacity() {
+        FrameProcessingPolicy.boundedQueue(0);
+    }
+}
@@ -0,0 +1,84 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FrameRateLimiterTest {
+
+    /**
+     * Feeds the limiter with frames at the given rate, with some jitter,
+     * and returns the number of accepted frames.
+     */
+    private int accepted(FrameRateLimiter limiter, float inputFps, int frames) {
+        return accepted(limiter, 0, inputFps, frames);
+    }
+
+    private int accepted(FrameRateLimiter limiter, long start, float inputFps, int frames) {
+        int accepted = 0;
+        float interval = 1000F / inputFps;
+        for (int i = 0; i < frames; i++) {
+            long jitter = (i % 3) - 1;
+            if (limiter.accept(start + (long) (i * interval) + jitter)) accepted++;
+        }
+        return accepted;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFps() {
+        new FrameRateLimiter(0F);
+    }
+
+    @Test
+    public void testFirstFrameIsAccepted() {
+        FrameRateLimiter limiter = new FrameRateLimiter(1F);
+        assertTrue(limiter.accept(1000));
+    }
+
+    @Test
+    public void testDivisor() {
+        // 30 fps to 10 fps: one frame out of three.
+        assertEquals(100, accepted(new FrameRateLimiter(10F), 30F, 300));
+    }
+
+    @Test
+    public void testNonDivisor() {
+        // 30 fps to 20 fps: two frames out of three.
+        int accepted = accepted(new FrameRateLimiter(20F), 30F, 300);
+        assertTrue(Math.abs(accepted - 200) <= 2);
+    }
+
+    @Test
+    public void testLowRate() {
+        // 30 fps to 5 fps.
+        int accepted = accepted(new FrameRateLimiter(5F), 30F, 300);
+        assertTrue(Math.abs(accepted - 50) <= 1);
+    }
+
+    @Test
+    public void testEpochTimes() {
+        // Real frame times are epoch milliseconds.
+        long start = System.currentTimeMillis();
+        assertEquals(100, accepted(new FrameRateLimiter(10F), start, 30F, 300));
+        int accepted = accepted(new FrameRateLimiter(20F), start, 30F, 300);
+        assertTrue(Math.abs(accepted - 200) <= 2);
+    }
+
+    @Test
+    public void testHigherThanInput() {
+        assertEquals(300, accepted(new FrameRateLimiter(60F), 30F, 300));
+    }
+
+    @Test
+    public void testRestartsAfterGap() {
+        FrameRateLimiter limiter = new FrameRateLimiter(10F);
+        assertTrue(limiter.accept(0));
+        // Camera was paused for a while.
+        assertTrue(limiter.accept(5000));
+        assertEquals(false, limiter.accept(5033));
+        assertEquals(false, limiter.accept(5066));
+        assertTrue(limiter.accept(5100));
+    }
+}
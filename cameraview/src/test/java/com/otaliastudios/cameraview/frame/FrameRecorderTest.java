@@ -0,0 +1,181 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import android.graphics.ImageFormat;
+
+import androidx.annotation.NonNull;
+
+import com.otaliastudios.cameraview.engine.offset.Angles;
+import com.otaliastudios.cameraview.size.Size;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Records and replays NV21 frames. This runs on a plain JVM, like {@link FrameReplayer}
+ * is meant to. Recording {@link android.media.Image}s is tested in androidTest.
+ */
+public class FrameRecorderTest {
+
+    private final static int WIDTH = 8;
+    private final static int HEIGHT = 4;
+    private final static int BYTES = WIDTH * HEIGHT * 3 / 2;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("frames", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    /**
+     * Records the frames received by process(), copying their NV21 data.
+     */
+    private static class Collector implements FrameProcessor {
+        private final List<byte[]> data = new ArrayList<>();
+        private final List<long[]> info = new ArrayList<>();
+        private final List<Long> timestamps = new ArrayList<>();
+
+        @Override
+        public void process(@NonNull Frame frame) {
+            byte[] array = frame.getData();
+            byte[] copy = new byte[BYTES];
+            System.arraycopy(array, 0, copy, 0, BYTES);
+            data.add(copy);
+            info.add(new long[]{ frame.getTime(), frame.getSize().getWidth(),
+                    frame.getSize().getHeight(), frame.getFormat(),
+                    frame.getRotationToUser(), frame.getRotationToView() });
+            timestamps.add(frame.getTimestamp());
+        }
+    }
+
+    @NonNull
+    private static byte[] nv21(int seed) {
+        byte[] data = new byte[BYTES];
+        for (int i = 0; i < BYTES; i++) data[i] = (byte) (seed + i);
+        return data;
+    }
+
+    @Test
+    public void testRecordAndReplay_nv21() throws Exception {
+        ByteBufferFrameManager manager = new ByteBufferFrameManager(1, null);
+        manager.setUp(ImageFormat.NV21, new Size(WIDTH, HEIGHT), new Angles());
+        FrameRecorder recorder = new FrameRecorder(file);
+        for (int i = 0; i < 3; i++) {
+            byte[] buffer = manager.getBuffer();
+            assertNotNull(buffer);
+            System.arraycopy(nv21(i), 0, buffer, 0, BYTES);
+            Frame frame = manager.getFrame(buffer, 1000 + i, 5000 + 33 * i, 90 * i, 90);
+            assertNotNull(frame);
+            recorder.process(frame);
+            frame.release();
+        }
+        assertEquals(3, recorder.getFrameCount());
+        recorder.close();
+        assertEquals(FrameRecorder.FILE_HEADER_BYTES
+                + 3 * (FrameRecorder.RECORD_HEADER_BYTES + BYTES), file.length());
+
+        FrameReplayer replayer = new FrameReplayer(file);
+        assertEquals(3, replayer.getFrameCount());
+        Collector collector = new Collector();
+        assertEquals(3, replayer.replay(false, collector));
+        replayer.close();
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(nv21(i), collector.data.get(i));
+            assertArrayEquals(new long[]{ 1000 + i, WIDTH, HEIGHT, ImageFormat.NV21, 90 * i, 90 },
+                    collector.info.get(i));
+            assertEquals(33 * i, collector.timestamps.get(i) - collector.timestamps.get(0));
+        }
+    }
+
+    @Test
+    public void testReplay_realTime() throws Exception {
+        ByteBufferFrameManager manager = new ByteBufferFrameManager(1, null);
+        manager.setUp(ImageFormat.NV21, new Size(WIDTH, HEIGHT), new Angles());
+        FrameRecorder recorder = new FrameRecorder(file);
+        for (int i = 0; i < 3; i++) {
+            byte[] buffer = manager.getBuffer();
+            assertNotNull(buffer);
+            // Pacing follows the timestamp, even if the wall clock went back.
+            Frame frame = manager.getFrame(buffer, 1000 - i, 50000000L * i, 0, 0);
+            assertNotNull(frame);
+            recorder.process(frame);
+            frame.release();
+        }
+        recorder.close();
+        FrameReplayer replayer = new FrameReplayer(file);
+        long start = System.nanoTime();
+        Collector collector = new Collector();
+        assertEquals(3, replayer.replay(true, collector));
+        long elapsed = (System.nanoTime() - start) / 1000000L;
+        replayer.close();
+        assertTrue("Elapsed: " + elapsed, elapsed >= 100);
+        for (int i = 0; i < 3; i++) {
+            long timestamp = collector.timestamps.get(i);
+            assertEquals(50000000L * i, timestamp - collector.timestamps.get(0));
+            assertTrue(timestamp >= start);
+        }
+    }
+
+    @Test
+    public void testReplay_processorThrows() throws Exception {
+        ByteBufferFrameManager manager = new ByteBufferFrameManager(1, null);
+        manager.setUp(ImageFormat.NV21, new Size(WIDTH, HEIGHT), new Angles());
+        FrameRecorder recorder = new FrameRecorder(file);
+        byte[] buffer = manager.getBuffer();
+        assertNotNull(buffer);
+        Frame recorded = manager.getFrame(buffer, 0);
+        assertNotNull(recorded);
+        recorder.process(recorded);
+        recorded.release();
+        recorder.close();
+
+        final List<Frame> frames = new ArrayList<>();
+        FrameReplayer replayer = new FrameReplayer(file);
+        try {
+            replayer.replay(false, new FrameProcessor() {
+                @Override
+                public void process(@NonNull Frame frame) {
+                    frames.add(frame);
+                    throw new IllegalStateException("Crash");
+                }
+            });
+            fail();
+        } catch (IllegalStateException ignore) {}
+        // The frame was released, and a new replay still works.
+        assertEquals(1, frames.size());
+        try {
+            frames.get(0).getData();
+            fail();
+        } catch (RuntimeException ignore) {}
+        assertEquals(1, replayer.replay(false, new Collector()));
+        replayer.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testReplay_invalidFile() throws Exception {
+        FileOutputStream stream = new FileOutputStream(file);
+        stream.write(new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+        stream.close();
+        new FrameReplayer(file);
+    }
+}
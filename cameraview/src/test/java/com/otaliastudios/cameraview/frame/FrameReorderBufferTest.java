@@ -0,0 +1,111 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FrameReorderBufferTest {
+
+    private List<String> results;
+    private FrameReorderBuffer<String> buffer;
+
+    @Before
+    public void setUp() {
+        results = Collections.synchronizedList(new ArrayList<String>());
+        buffer = new FrameReorderBuffer<>(new OrderedFrameProcessor.Callback<String>() {
+            @Override
+            public void onFrameResult(long sequence, @NonNull String result) {
+                results.add(sequence + ":" + result);
+            }
+        }, 3);
+    }
+
+    @Test
+    public void testInOrder() {
+        buffer.complete(buffer.claim(), "a");
+        buffer.complete(buffer.claim(), "b");
+        assertEquals(Arrays.asList("0:a", "1:b"), results);
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    @Test
+    public void testReorder() {
+        long s0 = buffer.claim();
+        long s1 = buffer.claim();
+        long s2 = buffer.claim();
+        buffer.complete(s2, "c");
+        buffer.complete(s1, "b");
+        assertTrue(results.isEmpty());
+        assertEquals(3, buffer.getPendingCount());
+        buffer.complete(s0, "a");
+        assertEquals(Arrays.asList("0:a", "1:b", "2:c"), results);
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    @Test
+    public void testNullResults() {
+        long s0 = buffer.claim();
+        long s1 = buffer.claim();
+        buffer.complete(s1, "b");
+        buffer.complete(s0, null);
+        assertEquals(Collections.singletonList("1:b"), results);
+    }
+
+    @Test
+    public void testWindow() {
+        long s0 = buffer.claim();
+        buffer.claim();
+        buffer.claim();
+        assertEquals(-1, buffer.claim());
+        buffer.complete(s0, "a");
+        assertEquals(3, buffer.claim());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testComplete_notClaimed() {
+        buffer.complete(0, "a");
+    }
+
+    @Test
+    public void testCallbackCrash() {
+        buffer = new FrameReorderBuffer<>(new OrderedFrameProcessor.Callback<String>() {
+            @Override
+            public void onFrameResult(long sequence, @NonNull String result) {
+                results.add(result);
+                throw new RuntimeException("crash");
+            }
+        }, 3);
+        buffer.complete(buffer.claim(), "a");
+        buffer.complete(buffer.claim(), "b");
+        assertEquals(Arrays.asList("a", "b"), results);
+    }
+
+    @Test
+    public void testCallbackError() {
+        buffer = new FrameReorderBuffer<>(new OrderedFrameProcessor.Callback<String>() {
+            @Override
+            public void onFrameResult(long sequence, @NonNull String result) {
+                results.add(result);
+                if (sequence == 0) throw new StackOverflowError("crash");
+            }
+        }, 3);
+        try {
+            buffer.complete(buffer.claim(), "a");
+            fail();
+        } catch (StackOverflowError ignore) {}
+        // The next result is still delivered.
+        buffer.complete(buffer.claim(), "b");
+        assertEquals(Arrays.asList("a", "b"), results);
+    }
+}
@@ -3,8 +3,6 @@ package com.otaliastudios.cameraview.frame;
 
 import android.graphics.ImageFormat;
 
-import androidx.annotation.NonNull;
-
 import com.otaliastudios.cameraview.size.Size;
 
 import org.junit.After;
@@ -13,7 +11,11 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -24,16 +26,7 @@ public class FrameTest {
 
     @Before
     public void setUp() {
-        manager = spy(new FrameManager<String>(1, String.class) {
-            @Override
-            protected void onFrameDataReleased(@NonNull String data, boolean recycled) { }
-
-            @NonNull
-            @Override
-            protected String onCloneFrameData(@NonNull String data) {
-                return data;
-            }
-        });
+        manager = spy(new MockFrameManager<>(1, String.class));
     }
 
     @After
@@ -41,24 +34,33 @@ public class FrameTest {
         manager = null;
     }
 
+    @Test
+    public void testTimestamp() {
+        Frame frame = new Frame(manager);
+        frame.setContent("foo", 1000, 5000, 90, 90, new Size(10, 10), ImageFormat.NV21);
+        assertEquals(5000, frame.getTimestamp());
+        assertEquals(5000, frame.getLatency().getCaptureNanos());
+        frame.release();
+    }
+
     @Test
     public void testEquals() {
         // Only time should count.
         Frame f1 = new Frame(manager);
         long time = 1000;
-        f1.setContent("foo", time, 90, 180, new Size(5, 5), ImageFormat.NV21);
+        f1.setContent("foo", time, 0, 90, 180, new Size(5, 5), ImageFormat.NV21);
         Frame f2 = new Frame(manager);
-        f2.setContent("bar", time, 0, 90, new Size(10, 10), ImageFormat.NV21);
+        f2.setContent("bar", time, 0, 0, 90, new Size(10, 10), ImageFormat.NV21);
         assertEquals(f1, f2);
 
-        f2.setContent("foo", time + 1, 0, 90, new Size(10, 10), ImageFormat.NV21);
+        f2.setContent("foo", time + 1, 0, 0, 90, new Size(10, 10), ImageFormat.NV21);
         assertNotEquals(f1, f2);
     }
 
     @Test
     public void testReleaseThrows() {
         final Frame frame = new Frame(manager);
-        frame.setContent("foo", 1000, 90, 90, new Size(10, 10), ImageFormat.NV21);
+        frame.setContent("foo", 1000, 0, 90, 90, new Size(10, 10), ImageFormat.NV21);
         frame.release();
         verify(manager, times(1)).onFrameReleased(frame, "foo");
 
@@ -87,7 +89,7 @@ public class FrameTest {
         int viewRotation = 90;
         Size size = new Size(10, 10);
         int format = ImageFormat.NV21;
-        frame.setContent(data, time, userRotation, viewRotation, size, format);
+        frame.setContent(data, time, 0, userRotation, viewRotation, size, format);
 
         Frame frozen = frame.freeze();
         assertEquals(data, frozen.getData());
@@ -97,7 +99,7 @@ public class FrameTest {
         assertEquals(size, frozen.getSize());
 
         // Mutate the first, ensure that frozen is not affected
-        frame.setContent("new data", 50, 180, 180, new Size(1, 1), ImageFormat.JPEG);
+        frame.setContent("new data", 50, 0, 180, 180, new Size(1, 1), ImageFormat.JPEG);
         assertEquals(data, frozen.getData());
         assertEquals(time, frozen.getTime());
         assertEquals(userRotation, frozen.getRotationToUser());
@@ -106,4 +108,44 @@ public class FrameTest {
         assertEquals(format, frozen.getFormat());
     }
 
+    @Test
+    public void testRetain() {
+        Frame frame = new Frame(manager);
+        frame.setContent("foo", 1000, 0, 90, 90, new Size(10, 10), ImageFormat.NV21);
+        assertSame(frame, frame.retain());
+        assertSame(frame, frame.retain());
+
+        // Only the last release should go back to the manager.
+        frame.release();
+        frame.release();
+        verify(manager, never()).onFrameReleased(any(Frame.class), anyString());
+        assertEquals("foo", frame.getData());
+        frame.release();
+        verify(manager, times(1)).onFrameReleased(frame, "foo");
+
+        // Further releases are ignored.
+        frame.release();
+        verify(manager, times(1)).onFrameReleased(frame, "foo");
+    }
+
+    @Test
+    public void testRetain_afterRelease() {
+        final Frame frame = new Frame(manager);
+        frame.setContent("foo", 1000, 0, 90, 90, new Size(10, 10), ImageFormat.NV21);
+        frame.release();
+        assertThrows(new Runnable() { public void run() { frame.retain(); }});
+    }
+
+    @Test
+    public void testRetain_resetOnRecycle() {
+        Frame frame = new Frame(manager);
+        frame.setContent("foo", 1000, 0, 90, 90, new Size(10, 10), ImageFormat.NV21);
+        frame.retain();
+        frame.release();
+        frame.release();
+        // Recycled frames start with a single reference.
+        frame.setContent("bar", 2000, 0, 90, 90, new Size(10, 10), ImageFormat.NV21);
+        frame.release();
+        verify(manager, times(1)).onFrameReleased(frame, "bar");
+    }
 }
@@ -0,0 +1,66 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMean(TimeUnit.NANOSECONDS));
+        assertEquals(0, histogram.getMax(TimeUnit.NANOSECONDS));
+        assertEquals(0, histogram.getPercentile(0.5F, TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(2);
+        histogram.record(3);
+        assertEquals(4, histogram.getCount());
+        assertEquals(1, histogram.getPercentile(0.5F, TimeUnit.NANOSECONDS));
+        assertEquals(3, histogram.getPercentile(1F, TimeUnit.NANOSECONDS));
+        assertEquals(3, histogram.getMax(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(50, histogram.getMean(TimeUnit.MILLISECONDS));
+        assertEquals(100, histogram.getMax(TimeUnit.MILLISECONDS));
+        assertEquals(100, histogram.getPercentile(1F, TimeUnit.MILLISECONDS));
+        // Percentiles are upper bounds, accurate within 25%.
+        long p50 = histogram.getPercentile(0.5F, TimeUnit.MILLISECONDS);
+        assertTrue(p50 >= 50 && p50 <= 63);
+        long p90 = histogram.getPercentile(0.9F, TimeUnit.MILLISECONDS);
+        assertTrue(p90 >= 90 && p90 <= 100);
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax(TimeUnit.NANOSECONDS));
+        assertEquals(0, histogram.getPercentile(1F, TimeUnit.NANOSECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        new LatencyHistogram().getPercentile(2F, TimeUnit.NANOSECONDS);
+    }
+}
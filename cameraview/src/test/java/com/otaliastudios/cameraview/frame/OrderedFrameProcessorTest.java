@@ -0,0 +1,163 @@
+package com.otaliastudios.cameraview.frame;
+
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class OrderedFrameProcessorTest {
+
+    private MockFrameManager<String> manager;
+    private OrderedFrameProcessor<String> processor;
+    private final List<String> results = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() {
+        manager = spy(new MockFrameManager<>(1, String.class));
+    }
+
+    @After
+    public void tearDown() {
+        if (processor != null) processor.release();
+        processor = null;
+        manager = null;
+        results.clear();
+    }
+
+    private Frame process(String data, long time) {
+        Frame frame = manager.newFrame(data, time);
+        processor.process(frame);
+        frame.release();
+        return frame;
+    }
+
+    @Test
+    public void testOrder() throws Exception {
+        final int count = 20;
+        final CountDownLatch done = new CountDownLatch(count);
+        processor = new OrderedFrameProcessor<>(new FrameStage<Frame, String>() {
+            @Override
+            public String process(@NonNull Frame input) {
+                // Older frames take longer, so they complete out of order.
+                long sleep = ((count - input.getTime()) % 5) * 3;
+                try { Thread.sleep(sleep); } catch (InterruptedException ignore) {}
+                return (String) input.getData();
+            }
+        }, new OrderedFrameProcessor.Callback<String>() {
+            @Override
+            public void onFrameResult(long sequence, @NonNull String result) {
+                results.add(result);
+                done.countDown();
+            }
+        }, 4, count);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            process("frame" + i, i);
+            expected.add("frame" + i);
+        }
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(expected, results);
+        assertEquals(0, processor.getPendingFrames());
+        assertEquals(0, processor.getDroppedFrames());
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        processor = new OrderedFrameProcessor<>(new FrameStage<Frame, String>() {
+            @Override
+            public String process(@NonNull Frame input) {
+                started.countDown();
+                try { unblock.await(); } catch (InterruptedException ignore) {}
+                return null;
+            }
+        }, new OrderedFrameProcessor.Callback<String>() {
+            @Override
+            public void onFrameResult(long sequence, @NonNull String result) { }
+        }, 2);
+        process("a", 1);
+        process("b", 2);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        unblock.countDown();
+    }
+
+    @Test
+    public void testWindow() throws Exception {
+        final CountDownLatch unblock = new CountDownLatch(1);
+        processor = new OrderedFrameProcessor<>(new FrameStage<Frame, String>() {
+            @Override
+            public String process(@NonNull Frame input) {
+                try { unblock.await(); } catch (InterruptedException ignore) {}
+                return (String) input.getData();
+            }
+        }, new OrderedFrameProcessor.Callback<String>() {
+            @Override
+            public void onFrameResult(long sequence, @NonNull String result) {
+                results.add(result);
+            }
+        }, 1, 2);
+        process("a", 1);
+        process("b", 2);
+        Frame dropped = process("c", 3);
+        // Dropped frames are not retained.
+        verify(manager, timeout(1000)).onFrameReleased(dropped, "c");
+        assertEquals(1, processor.getDroppedFrames());
+        assertEquals(2, processor.getPendingFrames());
+        unblock.countDown();
+        Thread.sleep(200);
+        assertEquals(0, processor.getPendingFrames());
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    public void testError() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        processor = new OrderedFrameProcessor<>(new FrameStage<Frame, String>() {
+            @Override
+            public String process(@NonNull Frame input) {
+                if (input.getTime() == 1) throw new AssertionError("Stage failed.");
+                return (String) input.getData();
+            }
+        }, new OrderedFrameProcessor.Callback<String>() {
+            @Override
+            public void onFrameResult(long sequence, @NonNull String result) {
+                results.add(result);
+                done.countDown();
+            }
+        }, 1, 2);
+        process("a", 1);
+        process("b", 2);
+        // The failed frame must not block the next one.
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("b"), results);
+        assertEquals(0, processor.getPendingFrames());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreads() {
+        new OrderedFrameProcessor<>(new FrameStage<Frame, String>() {
+            @Override
+            public String process(@NonNull Frame input) {
+                return null;
+            }
+        }, new OrderedFrameProcessor.Callback<String>() {
+            @Override
+            public void onFrameResult(long sequence, @NonNull String result) { }
+        }, 0);
+    }
+}
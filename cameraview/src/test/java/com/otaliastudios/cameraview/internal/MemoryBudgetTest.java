@@ -0,0 +1,116 @@
+package com.otaliastudios.cameraview.internal;
+
+
+import android.content.ComponentCallbacks2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryBudgetTest {
+
+    private MemoryBudget budget;
+
+    @Before
+    public void setUp() {
+        budget = new MemoryBudget();
+    }
+
+    @Test
+    public void testNoLimit() {
+        assertEquals(0, budget.getLimit());
+        assertTrue(budget.tryReserve(Integer.MAX_VALUE));
+        assertEquals(Integer.MAX_VALUE, budget.getUsedBytes());
+        assertEquals(Long.MAX_VALUE, budget.getAvailableBytes());
+    }
+
+    @Test
+    public void testTryReserve() {
+        budget.setLimit(100);
+        assertTrue(budget.tryReserve(60));
+        assertEquals(40, budget.getAvailableBytes());
+        assertFalse(budget.tryReserve(50));
+        assertEquals(1, budget.getRefusedCount());
+        assertEquals(60, budget.getUsedBytes());
+        budget.release(60);
+        assertTrue(budget.tryReserve(50));
+        assertEquals(50, budget.getUsedBytes());
+    }
+
+    @Test
+    public void testReserve_exceedsLimit() {
+        budget.setLimit(100);
+        budget.reserve(150);
+        assertEquals(150, budget.getUsedBytes());
+        assertEquals(0, budget.getAvailableBytes());
+        assertFalse(budget.tryReserve(1));
+    }
+
+    @Test
+    public void testTryReserve_trimsComponents() {
+        budget.setLimit(100);
+        budget.reserve(80);
+        budget.register(new MemoryBudget.Component() {
+            @Override
+            public void trimMemory() {
+                budget.release(50);
+            }
+        });
+        assertTrue(budget.tryReserve(50));
+        assertEquals(80, budget.getUsedBytes());
+        assertEquals(1, budget.getTrimCount());
+        assertEquals(0, budget.getRefusedCount());
+    }
+
+    @Test
+    public void testUnregister() {
+        final int[] trims = new int[1];
+        MemoryBudget.Component component = new MemoryBudget.Component() {
+            @Override
+            public void trimMemory() {
+                trims[0]++;
+            }
+        };
+        budget.register(component);
+        budget.register(component);
+        budget.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertEquals(1, trims[0]);
+        budget.unregister(component);
+        budget.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertEquals(1, trims[0]);
+    }
+
+    @Test
+    public void testOnTrimMemory_levels() {
+        final int[] trims = new int[1];
+        budget.register(new MemoryBudget.Component() {
+            @Override
+            public void trimMemory() {
+                trims[0]++;
+            }
+        });
+        budget.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertEquals(0, trims[0]);
+        budget.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertEquals(1, trims[0]);
+        budget.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        assertEquals(2, trims[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetLimit_negative() {
+        budget.setLimit(-1);
+    }
+
+    @Test
+    public void testToString() {
+        budget.setLimit(1024);
+        budget.reserve(10);
+        String string = budget.toString();
+        assertTrue(string.contains("used:10"));
+        assertTrue(string.contains("limit:1024"));
+    }
+}
@@ -9,6 +9,8 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static junit.framework.Assert.assertNotNull;
 import static org.junit.Assert.assertEquals;
@@ -167,4 +169,101 @@ public class PoolTest {
         assertEquals(item, newItem);
         assertEquals(1, instances);
     }
+
+    @Test
+    public void testStats() {
+        Item item1 = pool.get();
+        Item item2 = pool.get();
+        assertNotNull(item1);
+        assertNotNull(item2);
+        pool.recycle(item1);
+        pool.recycle(item2);
+        pool.get();
+        assertEquals(2, pool.creationCount());
+        assertEquals(1, pool.hitCount());
+        assertEquals(0, pool.missCount());
+        assertEquals(2, pool.peakActiveCount());
+        for (int i = 0; i < MAX_SIZE; i++) {
+            pool.get();
+        }
+        assertEquals(1, pool.missCount());
+        assertEquals(MAX_SIZE, pool.peakActiveCount());
+    }
+
+    @Test
+    public void testGet_factoryRefuses() {
+        final boolean[] refuse = new boolean[1];
+        pool = new Pool<>(MAX_SIZE, new Pool.Factory<Item>() {
+            @Override
+            public Item create() {
+                return refuse[0] ? null : new Item();
+            }
+        });
+        refuse[0] = true;
+        assertNull(pool.get());
+        assertEquals(0, pool.count());
+        assertEquals(0, pool.activeCount());
+        assertEquals(1, pool.missCount());
+        assertEquals(0, pool.creationCount());
+        refuse[0] = false;
+        assertNotNull(pool.get());
+        assertEquals(1, pool.count());
+    }
+
+    @Test
+    public void testRecycle_largePool() {
+        pool = new Pool<>(Integer.MAX_VALUE, new Pool.Factory<Item>() {
+            @Override
+            public Item create() {
+                return new Item();
+            }
+        });
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < Pool.MAX_RECYCLED_ITEMS + 10; i++) {
+            items.add(pool.get());
+        }
+        for (Item item : items) {
+            pool.recycle(item);
+        }
+        // Items that do not fit are not managed anymore.
+        assertEquals(Pool.MAX_RECYCLED_ITEMS, pool.recycledCount());
+        assertEquals(Pool.MAX_RECYCLED_ITEMS, pool.count());
+        assertEquals(0, pool.activeCount());
+    }
+
+    @Test
+    public void testConcurrency() throws Exception {
+        final AtomicInteger created = new AtomicInteger(0);
+        final Pool<Item> pool = new Pool<>(4, new Pool.Factory<Item>() {
+            @Override
+            public Item create() {
+                created.incrementAndGet();
+                return new Item();
+            }
+        });
+        final int threads = 8;
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicInteger errors = new AtomicInteger(0);
+        for (int t = 0; t < threads; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        Item item = pool.get();
+                        if (item == null) continue;
+                        if (pool.activeCount() > 4) errors.incrementAndGet();
+                        pool.recycle(item);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        assertEquals(0, errors.get());
+        assertTrue(created.get() <= 4);
+        assertEquals(0, pool.activeCount());
+        assertEquals(created.get(), pool.count());
+        assertEquals(created.get(), pool.recycledCount());
+        assertTrue(pool.peakActiveCount() <= 4);
+    }
 }
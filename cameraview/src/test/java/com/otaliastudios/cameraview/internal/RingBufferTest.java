@@ -0,0 +1,111 @@
+package com.otaliastudios.cameraview.internal;
+
+
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new RingBuffer<Object>(0);
+    }
+
+    @Test
+    public void testCapacityOne() {
+        RingBuffer<Object> ring = new RingBuffer<>(1);
+        Object o1 = new Object();
+        Object o2 = new Object();
+        assertNull(ring.poll());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(ring.offer(o1));
+            assertFalse(ring.offer(o2));
+            assertEquals(1, ring.size());
+            assertSame(o1, ring.poll());
+            assertNull(ring.poll());
+            assertTrue(ring.isEmpty());
+        }
+    }
+
+    @Test
+    public void testFifo() {
+        RingBuffer<Integer> ring = new RingBuffer<>(3);
+        for (int lap = 0; lap < 5; lap++) {
+            assertTrue(ring.offer(1));
+            assertTrue(ring.offer(2));
+            assertTrue(ring.offer(3));
+            assertFalse(ring.offer(4));
+            assertEquals(3, ring.size());
+            assertEquals(1, (int) ring.poll());
+            assertTrue(ring.offer(5));
+            assertEquals(2, (int) ring.poll());
+            assertEquals(3, (int) ring.poll());
+            assertEquals(5, (int) ring.poll());
+            assertNull(ring.poll());
+        }
+    }
+
+    @Test
+    public void testClear() {
+        RingBuffer<Object> ring = new RingBuffer<>(4);
+        ring.offer(new Object());
+        ring.offer(new Object());
+        ring.clear();
+        assertTrue(ring.isEmpty());
+        assertNull(ring.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(new Object()));
+        }
+        assertFalse(ring.offer(new Object()));
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        // Items are moved between threads through the ring, like frames going
+        // back and forth between the camera thread and processors. None should be lost.
+        final int capacity = 4;
+        final int threads = 4;
+        final int iterations = 20000;
+        final RingBuffer<Object> ring = new RingBuffer<>(capacity);
+        final Set<Object> items = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < capacity; i++) {
+            Object item = new Object();
+            items.add(item);
+            ring.offer(item);
+        }
+        final AtomicInteger failures = new AtomicInteger(0);
+        final CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < iterations; i++) {
+                        Object item = ring.poll();
+                        if (item == null) continue;
+                        if (!items.contains(item) || !ring.offer(item)) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        assertEquals(0, failures.get());
+        assertEquals(capacity, ring.size());
+        for (int i = 0; i < capacity; i++) {
+            assertTrue(items.remove(ring.poll()));
+        }
+        assertNull(ring.poll());
+    }
+}
@@ -0,0 +1,143 @@
+package com.otaliastudios.cameraview.internal;
+
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SlabAllocatorTest {
+
+    private MemoryBudget budget;
+    private SlabAllocator allocator;
+
+    @Before
+    public void setUp() {
+        budget = new MemoryBudget();
+        allocator = new SlabAllocator(budget);
+    }
+
+    @Test
+    public void testSizeClass() {
+        assertEquals(SlabAllocator.MIN_SIZE_CLASS, SlabAllocator.sizeClass(0));
+        assertEquals(SlabAllocator.MIN_SIZE_CLASS, SlabAllocator.sizeClass(1));
+        assertEquals(SlabAllocator.MIN_SIZE_CLASS, SlabAllocator.sizeClass(1024));
+        assertEquals(2048, SlabAllocator.sizeClass(1025));
+        assertEquals(4096, SlabAllocator.sizeClass(4096));
+        assertEquals(SlabAllocator.MAX_SIZE_CLASS,
+                SlabAllocator.sizeClass(SlabAllocator.MAX_SIZE_CLASS));
+        assertEquals(-1, SlabAllocator.sizeClass(SlabAllocator.MAX_SIZE_CLASS + 1));
+    }
+
+    @Test
+    public void testLease() {
+        ByteBuffer buffer = allocator.lease(3000);
+        assertTrue(buffer.isDirect());
+        assertEquals(4096, buffer.capacity());
+        assertEquals(0, buffer.position());
+        assertEquals(3000, buffer.limit());
+        assertEquals(ByteOrder.BIG_ENDIAN, buffer.order());
+        assertEquals(4096, allocator.getLiveBytes(4096));
+        assertEquals(4096, allocator.getLiveBytes());
+        assertEquals(0, allocator.getFreeBytes());
+    }
+
+    @Test
+    public void testRelease() {
+        ByteBuffer buffer = allocator.lease(3000);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(100);
+        allocator.release(buffer);
+        assertEquals(0, allocator.getLiveBytes(4096));
+        assertEquals(4096, allocator.getFreeBytes(4096));
+
+        // Same size class, different size.
+        ByteBuffer reused = allocator.lease(2500);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(2500, reused.limit());
+        assertEquals(ByteOrder.BIG_ENDIAN, reused.order());
+        assertEquals(0, allocator.getFreeBytes());
+
+        // Different size class.
+        allocator.release(reused);
+        assertNotSame(buffer, allocator.lease(5000));
+    }
+
+    @Test
+    public void testRelease_foreignBuffers() {
+        allocator.release(ByteBuffer.allocate(4096));
+        allocator.release(ByteBuffer.allocateDirect(3000));
+        assertEquals(0, allocator.getFreeBytes());
+        assertEquals(0, allocator.getLiveBytes());
+    }
+
+    @Test
+    public void testRelease_maxFreeBuffers() {
+        ByteBuffer[] buffers = new ByteBuffer[SlabAllocator.MAX_FREE_BUFFERS + 1];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = allocator.lease(1024);
+        }
+        for (ByteBuffer buffer : buffers) {
+            allocator.release(buffer);
+        }
+        assertEquals(0, allocator.getLiveBytes());
+        assertEquals(SlabAllocator.MAX_FREE_BUFFERS * 1024L, allocator.getFreeBytes(1024));
+    }
+
+    @Test
+    public void testTrim() {
+        allocator.release(allocator.lease(1024));
+        allocator.release(allocator.lease(8192));
+        assertEquals(1024 + 8192, allocator.getFreeBytes());
+        allocator.trim();
+        assertEquals(0, allocator.getFreeBytes());
+    }
+
+    @Test
+    public void testBudget() {
+        ByteBuffer buffer = allocator.lease(3000);
+        assertEquals(4096, budget.getUsedBytes());
+        // Free buffers are still reserved, until trimmed.
+        allocator.release(buffer);
+        assertEquals(4096, budget.getUsedBytes());
+        allocator.trim();
+        assertEquals(0, budget.getUsedBytes());
+    }
+
+    @Test
+    public void testTryLease() {
+        budget.setLimit(4096);
+        ByteBuffer buffer = allocator.tryLease(3000);
+        assertNotNull(buffer);
+        assertNull(allocator.tryLease(1024));
+        assertEquals(1, budget.getRefusedCount());
+        // Free buffers can be reused without reserving.
+        allocator.release(buffer);
+        assertSame(buffer, allocator.tryLease(2500));
+        // Leasing always succeeds.
+        allocator.lease(1024);
+        assertEquals(4096 + 1024, budget.getUsedBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetLiveBytes_invalidClass() {
+        allocator.getLiveBytes(3000);
+    }
+
+    @Test
+    public void testToString() {
+        allocator.lease(1024);
+        String string = allocator.toString();
+        assertTrue(string.contains("live"));
+        assertTrue(string.contains("1024"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.otaliastudios.cameraview.internal;
+
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WorkerExecutorTest {
+
+    private final List<Runnable> fallback = new ArrayList<>();
+    private final Executor fallbackExecutor = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            fallback.add(command);
+        }
+    };
+
+    private Runnable await(final CountDownLatch started, final CountDownLatch unblock) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try { unblock.await(); } catch (InterruptedException ignore) {}
+            }
+        };
+    }
+
+    @Test
+    public void testLanes() {
+        assertSame(WorkerExecutor.cpu(), WorkerExecutor.cpu());
+        assertSame(WorkerExecutor.io(), WorkerExecutor.io());
+        assertNotSame(WorkerExecutor.cpu(), WorkerExecutor.io());
+        assertEquals(WorkerExecutor.IO_THREADS, WorkerExecutor.io().getThreadCount());
+        assertTrue(WorkerExecutor.cpu().getThreadCount() <= WorkerExecutor.MAX_CPU_THREADS);
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        WorkerExecutor executor = new WorkerExecutor("Test", 2, 4, fallbackExecutor);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch unblock = new CountDownLatch(1);
+        executor.execute(await(started, unblock));
+        executor.execute(await(started, unblock));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertEquals(2, executor.getActiveCount());
+        unblock.countDown();
+    }
+
+    @Test
+    public void testQueueMetrics() throws Exception {
+        WorkerExecutor executor = new WorkerExecutor("Test", 1, 4, fallbackExecutor);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        executor.execute(await(started, unblock));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        final CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    done.countDown();
+                }
+            });
+        }
+        assertEquals(3, executor.getQueueSize());
+        assertEquals(3, executor.getPeakQueueSize());
+        assertEquals(4, executor.getSubmittedCount());
+        unblock.countDown();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(0, executor.getQueueSize());
+        assertEquals(3, executor.getPeakQueueSize());
+        assertEquals(0, executor.getOverflowCount());
+        assertTrue(fallback.isEmpty());
+    }
+
+    @Test
+    public void testOverflow() throws Exception {
+        WorkerExecutor executor = new WorkerExecutor("Test", 1, 1, fallbackExecutor);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        executor.execute(await(started, unblock));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        Runnable queued = new Runnable() {
+            @Override
+            public void run() { }
+        };
+        Runnable overflowed = new Runnable() {
+            @Override
+            public void run() { }
+        };
+        executor.execute(queued);
+        executor.execute(overflowed);
+        // Tasks are never dropped.
+        assertEquals(1, executor.getOverflowCount());
+        assertEquals(1, fallback.size());
+        assertSame(overflowed, fallback.get(0));
+        unblock.countDown();
+    }
+
+    @Test
+    public void testToString() {
+        WorkerExecutor executor = new WorkerExecutor("Test", 1, 1, fallbackExecutor);
+        String string = executor.toString();
+        assertTrue(string.contains("Test"));
+        assertTrue(string.contains("overflow:0"));
+    }
+}
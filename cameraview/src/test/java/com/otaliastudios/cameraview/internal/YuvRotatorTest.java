@@ -0,0 +1,80 @@
+package com.otaliastudios.cameraview.internal;
+
+
+import com.otaliastudios.cameraview.size.Size;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+
+public class YuvRotatorTest {
+
+    private static byte[] randomNv21(Size size) {
+        byte[] data = new byte[size.getWidth() * size.getHeight() * 3 / 2];
+        new Random(size.getWidth()).nextBytes(data);
+        return data;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRotation() {
+        YuvRotator.rotate(new byte[6], new Size(2, 2), 45, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeRotation() {
+        YuvRotator.rotate(new byte[6], new Size(2, 2), -90, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOddSize() {
+        YuvRotator.rotate(new byte[10], new Size(3, 2), 90, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSmallOutput() {
+        YuvRotator.rotate(new byte[6], new Size(2, 2), 90, new byte[5]);
+    }
+
+    @Test
+    public void testZeroRotation() {
+        byte[] input = randomNv21(new Size(4, 4));
+        assertSame(input, YuvRotator.rotate(input, new Size(4, 4), 0, null));
+        byte[] output = new byte[input.length];
+        assertSame(output, YuvRotator.rotate(input, new Size(4, 4), 0, output));
+        assertArrayEquals(input, output);
+    }
+
+    @Test
+    public void testKnownValues() {
+        // 2x2 image: luma 1 2 / 3 4, chroma V=5 U=6.
+        byte[] input = new byte[]{ 1, 2, 3, 4, 5, 6 };
+        Size size = new Size(2, 2);
+        assertArrayEquals(new byte[]{ 3, 1, 4, 2, 5, 6 },
+                YuvRotator.rotate(input, size, 90, null));
+        assertArrayEquals(new byte[]{ 4, 3, 2, 1, 5, 6 },
+                YuvRotator.rotate(input, size, 180, null));
+        assertArrayEquals(new byte[]{ 2, 4, 1, 3, 5, 6 },
+                YuvRotator.rotate(input, size, 270, null));
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void testMatchesRotationHelper() {
+        // Sizes that are not multiple of the tile size, and big enough to use stripes.
+        Size[] sizes = new Size[]{ new Size(6, 4), new Size(50, 34), new Size(322, 642) };
+        for (Size size : sizes) {
+            byte[] input = randomNv21(size);
+            for (int rotation = 90; rotation < 360; rotation += 90) {
+                byte[] expected = RotationHelper.rotate(input, size, rotation);
+                byte[] output = new byte[input.length];
+                assertSame(output, YuvRotator.rotate(input, size, rotation, output));
+                assertArrayEquals(expected, output);
+                // Force parallel stripes, regardless of the available cores.
+                assertArrayEquals(expected, YuvRotator.rotate(input, size, rotation, null, 4));
+            }
+        }
+    }
+}
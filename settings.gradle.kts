@@ -1,2 +1,3 @@
 include(":cameraview")
 include(":demo")
+include(":benchmark")